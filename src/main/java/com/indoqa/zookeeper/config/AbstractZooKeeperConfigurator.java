@@ -17,6 +17,10 @@
 package com.indoqa.zookeeper.config;
 
 import java.util.Collection;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -24,8 +28,12 @@ import org.slf4j.LoggerFactory;
 import com.indoqa.zookeeper.Execution;
 import com.indoqa.zookeeper.StateExecutor;
 import com.indoqa.zookeeper.config.model.AbstractServiceDescription;
+import com.indoqa.zookeeper.config.model.FieldProjection;
 import com.indoqa.zookeeper.config.states.DeleteServiceDescriptionsState;
+import com.indoqa.zookeeper.config.states.PublishConfigurationSnapshotState;
 import com.indoqa.zookeeper.config.states.ReadServiceDescriptionsState;
+import com.indoqa.zookeeper.config.states.ServiceDescriptionIterator;
+import com.indoqa.zookeeper.config.states.StreamServiceDescriptionsState;
 import com.indoqa.zookeeper.config.states.WriteServiceDescriptionsState;
 
 public abstract class AbstractZooKeeperConfigurator<T extends AbstractServiceDescription> {
@@ -41,25 +49,66 @@ public abstract class AbstractZooKeeperConfigurator<T extends AbstractServiceDes
     }
 
     protected void deleteServiceDescriptions() {
+        this.deleteServiceDescriptions(false);
+    }
+
+    protected void deleteServiceDescriptions(boolean bulk) {
         LOGGER.info("Deleting service descriptions ...");
 
         try (StateExecutor stateExecutor = new StateExecutor(this.connectString)) {
-            Execution execution = stateExecutor.executeState(new DeleteServiceDescriptionsState());
+            Execution execution = stateExecutor.executeState(new DeleteServiceDescriptionsState(bulk));
+            stateExecutor.waitForTermination(execution);
+        }
+    }
+
+    /**
+     * Publish a snapshot of the properties below <code>basePath</code>, so that applications can read them without walking the
+     * tree. Call this again after changing property values.
+     */
+    protected void publishConfigurationSnapshot(String basePath) {
+        LOGGER.info("Publishing configuration snapshot of '{}' ...", basePath);
+
+        try (StateExecutor stateExecutor = new StateExecutor(this.connectString)) {
+            Execution execution = stateExecutor.executeState(new PublishConfigurationSnapshotState(basePath));
             stateExecutor.waitForTermination(execution);
         }
     }
 
     protected Collection<T> readServiceDescriptions() {
+        return this.readServiceDescriptions(FieldProjection.all());
+    }
+
+    protected Collection<T> readServiceDescriptions(FieldProjection projection) {
         LOGGER.info("Reading service descriptions ...");
 
         try (StateExecutor stateExecutor = new StateExecutor(this.connectString)) {
-            Execution execution = stateExecutor.executeState(new ReadServiceDescriptionsState<>(this.serviceDescriptionType));
+            Execution execution = stateExecutor
+                .executeState(new ReadServiceDescriptionsState<>(this.serviceDescriptionType, projection));
             stateExecutor.waitForTermination(execution);
 
             return ReadServiceDescriptionsState.getServiceDescriptions(execution);
         }
     }
 
+    /**
+     * Stream all service descriptions. Each description is available as soon as it has been read and at most
+     * <code>prefetch</code> descriptions are read ahead. The returned stream must be closed.
+     */
+    protected Stream<T> streamServiceDescriptions(int prefetch) {
+        LOGGER.info("Streaming service descriptions ...");
+
+        StateExecutor stateExecutor = new StateExecutor(this.connectString);
+        StreamServiceDescriptionsState<T> state = new StreamServiceDescriptionsState<>(this.serviceDescriptionType, prefetch);
+        stateExecutor.executeState(state);
+
+        ServiceDescriptionIterator<T> iterator = state.getIterator();
+        Spliterator<T> spliterator = Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.stream(spliterator, false).onClose(() -> {
+            iterator.close();
+            stateExecutor.close();
+        });
+    }
+
     protected void writeServiceDescriptions(Collection<? extends T> serviceDescriptions) {
         LOGGER.info("Writing service descriptions ...");
 
@@ -0,0 +1,140 @@
+/*
+ * Licensed to the Indoqa Software Design und Beratung GmbH (Indoqa) under
+ * one or more contributor license agreements. See the NOTICE file distributed
+ * with this work for additional information regarding copyright ownership.
+ * Indoqa licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.indoqa.zookeeper.config;
+
+import java.io.PrintStream;
+import java.util.Locale;
+import java.util.Map.Entry;
+
+import com.indoqa.zookeeper.Execution;
+import com.indoqa.zookeeper.StateExecutor;
+import com.indoqa.zookeeper.config.model.ConfigurationTreeProfile;
+import com.indoqa.zookeeper.config.model.ConfigurationTreeProfile.Subtree;
+import com.indoqa.zookeeper.config.states.ProfileConfigurationTreeState;
+
+/**
+ * Prints a {@link ConfigurationTreeProfile} of a ZooKeeper ensemble to find the configuration trees that are expensive to
+ * read:
+ *
+ * <pre>
+ * java -cp ... com.indoqa.zookeeper.config.ConfigurationTreeProfiler &lt;connect-string&gt; [&lt;base-path&gt;]
+ * </pre>
+ *
+ * Without a base path, all service descriptions are profiled.
+ */
+public final class ConfigurationTreeProfiler {
+
+    private static final String SERVICE_DESCRIPTION_ROOT = "/";
+    private static final int SESSION_TIMEOUT = 30_000;
+    private static final int TOP_ENTRIES = 10;
+
+    private ConfigurationTreeProfiler() {
+        // hide utility class constructor
+    }
+
+    private static String formatBytes(long bytes) {
+        if (bytes < 1024) {
+            return bytes + " B";
+        }
+
+        if (bytes < 1024 * 1024) {
+            return String.format(Locale.ROOT, "%.1f KiB", bytes / 1024.0);
+        }
+
+        return String.format(Locale.ROOT, "%.1f MiB", bytes / (1024.0 * 1024.0));
+    }
+
+    private static String formatValueSize(Integer valueSize) {
+        if (valueSize == null || valueSize < 0) {
+            return "missing";
+        }
+
+        return formatBytes(valueSize);
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 1 || args.length > 2) {
+            System.err.println("Usage: ConfigurationTreeProfiler <connect-string> [<base-path>]");
+            System.exit(1);
+        }
+
+        String basePath = args.length > 1 ? args[1] : SERVICE_DESCRIPTION_ROOT;
+
+        ConfigurationTreeProfile profile;
+        try (StateExecutor stateExecutor = new StateExecutor(args[0], SESSION_TIMEOUT)) {
+            Execution execution = stateExecutor.executeState(new ProfileConfigurationTreeState(basePath));
+            stateExecutor.waitForTermination(execution);
+            profile = ProfileConfigurationTreeState.getProfile(execution);
+        }
+
+        if (profile == null) {
+            System.err.println("Could not profile '" + basePath + "'.");
+            System.exit(1);
+        }
+
+        print(profile, System.out);
+    }
+
+    public static void print(ConfigurationTreeProfile profile, PrintStream out) {
+        if (profile.getNodeCount() == 0) {
+            out.println("Path '" + profile.getRootPath() + "' does not exist.");
+            return;
+        }
+
+        out.println("Profile of '" + profile.getRootPath() + "'");
+        out.println("  nodes: " + profile.getNodeCount() + " (" + profile.getLeafCount() + " leaves)");
+        out.println("  values: " + formatBytes(profile.getValueBytes()));
+        out.println("  max depth: " + profile.getMaxDepth());
+
+        out.println("Depth distribution");
+        for (Entry<Integer, Integer> eachEntry : profile.getDepthCounts().entrySet()) {
+            out.println("  " + eachEntry.getKey() + ": " + eachEntry.getValue());
+        }
+
+        out.println("Value sizes");
+        for (Entry<String, Integer> eachEntry : profile.getValueSizeHistogram().entrySet()) {
+            out.println("  " + eachEntry.getKey() + ": " + eachEntry.getValue());
+        }
+
+        out.println("Largest subtrees");
+        for (Subtree eachSubtree : profile.getLargestSubtrees(TOP_ENTRIES)) {
+            out.println("  " + eachSubtree.getName() + ": " + eachSubtree.getNodeCount() + " node(s), "
+                + formatBytes(eachSubtree.getValueBytes()));
+        }
+
+        out.println("Placeholders: " + profile.getPlaceholderReferenceCount() + " reference(s) to "
+            + profile.getPlaceholderFanOut().size() + " path(s)");
+        profile.getPlaceholderFanOut()
+            .entrySet()
+            .stream()
+            .sorted(Entry.<String, Integer> comparingByValue().reversed())
+            .limit(TOP_ENTRIES)
+            .forEach(eachEntry -> out.println("  " + eachEntry.getKey() + ": " + eachEntry.getValue() + " node(s), "
+                + formatValueSize(profile.getPlaceholderValueSize(eachEntry.getKey()))));
+
+        out.println("Estimated reads");
+        out.println("  ReadConfigurationState walking the tree: " + profile.getConfigurationRoundTrips() + " round trip(s), "
+            + formatBytes(profile.getConfigurationBytes()));
+        out.println("  ReadConfigurationState with a current snapshot: " + profile.getSnapshotRoundTrips() + " round trip(s), "
+            + formatBytes(profile.getSnapshotBytes()));
+        if (profile.isServiceDescriptionRoot()) {
+            out.println("  ReadServiceDescriptionsState: " + profile.getServiceDescriptionRoundTrips() + " round trip(s), "
+                + formatBytes(profile.getServiceDescriptionBytes()));
+        }
+        out.println("  pipelined walk: " + profile.getWalkRoundTrips() + " round trip(s)");
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Indoqa Software Design und Beratung GmbH (Indoqa) under
+ * one or more contributor license agreements. See the NOTICE file distributed
+ * with this work for additional information regarding copyright ownership.
+ * Indoqa licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.indoqa.zookeeper.config;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import com.indoqa.zookeeper.config.model.InstanceLoad;
+
+/**
+ * Measures the load of this instance for {@link com.indoqa.zookeeper.config.states.ReportInstanceLoadState}. The application
+ * calls {@link #requestStarted()} and {@link #requestFinished()} around each request it serves. The requests per second are
+ * calculated over the time since the previous sample, the CPU load is the recent CPU usage of this process.
+ */
+public class InstanceLoadMeter implements Supplier<InstanceLoad> {
+
+    private final OperatingSystemMXBean operatingSystem = ManagementFactory.getOperatingSystemMXBean();
+
+    private final AtomicInteger inFlightRequests = new AtomicInteger();
+    private final LongAdder finishedRequests = new LongAdder();
+
+    private long sampledFinishedRequests;
+    private long sampleTime = System.nanoTime();
+
+    /**
+     * Sample the current load. The requests per second are calculated over the time since the previous call.
+     */
+    @Override
+    public synchronized InstanceLoad get() {
+        long now = System.nanoTime();
+        long currentFinishedRequests = this.finishedRequests.sum();
+
+        double seconds = Math.max(now - this.sampleTime, 1) / (double) TimeUnit.SECONDS.toNanos(1);
+        double requestsPerSecond = (currentFinishedRequests - this.sampledFinishedRequests) / seconds;
+
+        this.sampleTime = now;
+        this.sampledFinishedRequests = currentFinishedRequests;
+
+        return new InstanceLoad(this.getCpuLoad(), this.inFlightRequests.get(), requestsPerSecond);
+    }
+
+    public void requestFinished() {
+        this.inFlightRequests.decrementAndGet();
+        this.finishedRequests.increment();
+    }
+
+    public void requestStarted() {
+        this.inFlightRequests.incrementAndGet();
+    }
+
+    private double getCpuLoad() {
+        if (this.operatingSystem instanceof com.sun.management.OperatingSystemMXBean) {
+            double processCpuLoad = ((com.sun.management.OperatingSystemMXBean) this.operatingSystem).getProcessCpuLoad();
+            if (processCpuLoad >= 0) {
+                return processCpuLoad;
+            }
+        }
+
+        // fall back to the system load, if the CPU load of this process is not available
+        double systemLoadAverage = this.operatingSystem.getSystemLoadAverage();
+        if (systemLoadAverage < 0) {
+            return 0;
+        }
+
+        return systemLoadAverage / this.operatingSystem.getAvailableProcessors();
+    }
+}
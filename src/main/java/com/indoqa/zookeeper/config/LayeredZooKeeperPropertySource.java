@@ -0,0 +1,206 @@
+/*
+ * Licensed to the Indoqa Software Design und Beratung GmbH (Indoqa) under
+ * one or more contributor license agreements. See the NOTICE file distributed
+ * with this work for additional information regarding copyright ownership.
+ * Indoqa licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.indoqa.zookeeper.config;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.env.MapPropertySource;
+
+import com.indoqa.zookeeper.StateExecutor;
+import com.indoqa.zookeeper.config.states.WatchConfigurationState;
+
+/**
+ * Overlays the properties of several base paths, e.g. <code>/defaults</code>, <code>/&lt;env&gt;</code> and
+ * <code>/&lt;service&gt;/&lt;host&gt;</code>, in one property source. Later base paths take precedence over earlier ones.
+ * All base paths are loaded concurrently and merged once into a flat index, so that a lookup is a single hash probe. Changes
+ * are watched and only the affected property is resolved again. A sorted copy of the index answers prefix queries
+ * and typed lookups are cached until their property changes.
+ */
+public class LayeredZooKeeperPropertySource extends MapPropertySource implements AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LayeredZooKeeperPropertySource.class);
+    private static final long INITIAL_LOAD_TIMEOUT = 60;
+
+    private final List<Map<String, Object>> layers = new ArrayList<>();
+    private final List<WatchConfigurationState> states = new ArrayList<>();
+    private final TypedPropertyValues typedValues = new TypedPropertyValues();
+    private final NavigableMap<String, Object> sortedProperties = new ConcurrentSkipListMap<>();
+    private final CountDownLatch initialLoad;
+
+    private final StateExecutor ownedStateExecutor;
+
+    public LayeredZooKeeperPropertySource(StateExecutor stateExecutor, String... basePaths) {
+        this(stateExecutor, false, basePaths);
+    }
+
+    public LayeredZooKeeperPropertySource(String connectString, int sessionTimeout, String... basePaths) {
+        this(new StateExecutor(connectString, sessionTimeout), true, basePaths);
+    }
+
+    private LayeredZooKeeperPropertySource(StateExecutor stateExecutor, boolean ownsStateExecutor, String... basePaths) {
+        super(getName(basePaths), new ConcurrentHashMap<>());
+
+        this.ownedStateExecutor = ownsStateExecutor ? stateExecutor : null;
+        this.initialLoad = new CountDownLatch(basePaths.length);
+
+        for (int i = 0; i < basePaths.length; i++) {
+            int layer = i;
+            this.layers.add(new HashMap<>());
+            this.states.add(new WatchConfigurationState(basePaths[i], new WatchConfigurationState.Listener() {
+
+                @Override
+                public void onPropertiesRead(Map<String, Object> properties) {
+                    LayeredZooKeeperPropertySource.this.onPropertiesRead(layer, properties);
+                }
+
+                @Override
+                public void onPropertyChanged(String name, Object value) {
+                    LayeredZooKeeperPropertySource.this.onPropertyChanged(layer, name, value);
+                }
+            }));
+        }
+
+        long start = System.nanoTime();
+        for (WatchConfigurationState eachState : this.states) {
+            stateExecutor.executeState(eachState);
+        }
+        this.awaitInitialLoad();
+
+        LOGGER.info("Loaded {} property value(s) from {} base path(s) in {} ms.", this.source.size(), basePaths.length,
+            (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private static String getName(String... basePaths) {
+        return "ZooKeeper properties @ " + String.join(", ", basePaths);
+    }
+
+    @Override
+    public void close() {
+        for (WatchConfigurationState eachState : this.states) {
+            eachState.close();
+        }
+
+        if (this.ownedStateExecutor != null) {
+            this.ownedStateExecutor.close();
+        }
+    }
+
+    /**
+     * @return All properties whose names start with <code>prefix</code>, sorted by their names.
+     */
+    public NavigableMap<String, Object> getProperties(String prefix) {
+        return PropertyPrefixes.getProperties(this.sortedProperties, prefix);
+    }
+
+    /**
+     * @return The value of the property converted to <code>type</code>. Conversions are cached until the property changes.
+     */
+    public <T> T getProperty(String name, Class<T> type) {
+        return this.typedValues.get(name, this.source.get(name), type);
+    }
+
+    public <T> T getProperty(String name, Class<T> type, T defaultValue) {
+        T result = this.getProperty(name, type);
+        return result == null ? defaultValue : result;
+    }
+
+    /**
+     * @return The comma separated elements of the property converted to <code>elementType</code>. Conversions are cached until
+     *         the property changes.
+     */
+    public <T> List<T> getPropertyList(String name, Class<T> elementType) {
+        return this.typedValues.getList(name, this.source.get(name), elementType);
+    }
+
+    /**
+     * @return The sorted names of all properties that start with <code>prefix</code>.
+     */
+    public String[] getPropertyNames(String prefix) {
+        return PropertyPrefixes.getPropertyNames(this.sortedProperties, prefix);
+    }
+
+    private void awaitInitialLoad() {
+        try {
+            if (!this.initialLoad.await(INITIAL_LOAD_TIMEOUT, TimeUnit.SECONDS)) {
+                this.close();
+                throw new IllegalStateException("The properties were not loaded within " + INITIAL_LOAD_TIMEOUT + " s.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            this.close();
+            throw new IllegalStateException("Interrupted while loading the properties.", e);
+        }
+    }
+
+    private void onPropertiesRead(int layer, Map<String, Object> properties) {
+        synchronized (this.layers) {
+            Map<String, Object> layerProperties = this.layers.get(layer);
+
+            Set<String> names = new HashSet<>(layerProperties.keySet());
+            names.addAll(properties.keySet());
+
+            layerProperties.clear();
+            layerProperties.putAll(properties);
+
+            for (String eachName : names) {
+                this.resolve(eachName);
+            }
+        }
+
+        this.initialLoad.countDown();
+    }
+
+    private void onPropertyChanged(int layer, String name, Object value) {
+        synchronized (this.layers) {
+            if (value == null) {
+                this.layers.get(layer).remove(name);
+            } else {
+                this.layers.get(layer).put(name, value);
+            }
+
+            this.resolve(name);
+        }
+    }
+
+    private void resolve(String name) {
+        this.typedValues.invalidate(name);
+
+        for (int i = this.layers.size() - 1; i >= 0; i--) {
+            Object value = this.layers.get(i).get(name);
+            if (value != null) {
+                this.source.put(name, value);
+                this.sortedProperties.put(name, value);
+                return;
+            }
+        }
+
+        this.source.remove(name);
+        this.sortedProperties.remove(name);
+    }
+}
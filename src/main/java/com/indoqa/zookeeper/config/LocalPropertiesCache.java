@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Indoqa Software Design und Beratung GmbH (Indoqa) under
+ * one or more contributor license agreements. See the NOTICE file distributed
+ * with this work for additional information regarding copyright ownership.
+ * Indoqa licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.indoqa.zookeeper.config;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.URLEncoder;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Properties;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Local copies of the properties of base paths, one file per base path. They are written after each complete read and used
+ * instead of ZooKeeper if it cannot be read in time. The copies contain the configuration, so the directory and the files are
+ * only accessible by their owner.
+ */
+final class LocalPropertiesCache {
+
+    private static final Set<PosixFilePermission> OWNER_ONLY = PosixFilePermissions.fromString("rwx------");
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LocalPropertiesCache.class);
+
+    private LocalPropertiesCache() {
+        // hide utility class constructor
+    }
+
+    /**
+     * @return The cached properties of <code>basePath</code> or <code>null</code> if there are none.
+     */
+    public static Map<String, Object> read(Path directory, String basePath) {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(getPath(directory, basePath), UTF_8)) {
+            properties.load(reader);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            LOGGER.warn("Could not read the cached properties of '{}'.", basePath, e);
+            return null;
+        }
+
+        Map<String, Object> result = new HashMap<>();
+        for (String eachName : properties.stringPropertyNames()) {
+            result.put(eachName, properties.getProperty(eachName));
+        }
+        return result;
+    }
+
+    public static void write(Path directory, String basePath, Map<String, Object> properties) {
+        Properties cachedProperties = new Properties();
+        for (Entry<String, Object> eachEntry : properties.entrySet()) {
+            if (eachEntry.getValue() != null) {
+                cachedProperties.setProperty(eachEntry.getKey(), eachEntry.getValue().toString());
+            }
+        }
+
+        try {
+            createDirectory(directory);
+
+            // replace the file atomically, so that a concurrent read never sees a partial file
+            Path path = getPath(directory, basePath);
+            Path temporaryPath = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+            try (Writer writer = Files.newBufferedWriter(temporaryPath, UTF_8)) {
+                cachedProperties.store(writer, basePath);
+            }
+            Files.move(temporaryPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOGGER.warn("Could not cache the properties of '{}' in '{}'.", basePath, directory, e);
+        }
+    }
+
+    private static void createDirectory(Path directory) throws IOException {
+        if (Files.isDirectory(directory)) {
+            return;
+        }
+
+        if (!directory.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+            Files.createDirectories(directory);
+            return;
+        }
+
+        Files.createDirectories(directory, PosixFilePermissions.asFileAttribute(OWNER_ONLY));
+        // the umask may have removed permissions of the owner
+        Files.setPosixFilePermissions(directory, OWNER_ONLY);
+    }
+
+    private static Path getPath(Path directory, String basePath) {
+        return directory.resolve(URLEncoder.encode(basePath, UTF_8) + ".properties");
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Licensed to the Indoqa Software Design und Beratung GmbH (Indoqa) under
+ * one or more contributor license agreements. See the NOTICE file distributed
+ * with this work for additional information regarding copyright ownership.
+ * Indoqa licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.indoqa.zookeeper.config;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import org.springframework.core.env.EnumerablePropertySource;
+
+import com.indoqa.zookeeper.config.utils.ZooKeeperRegistrationException;
+
+/**
+ * Property source for properties that are still being loaded by a {@link ZooKeeperPrefetch}. Requesting a property blocks
+ * until the properties have been loaded.
+ */
+public class PrefetchedZooKeeperPropertySource extends EnumerablePropertySource<CompletableFuture<Map<String, Object>>> {
+
+    public PrefetchedZooKeeperPropertySource(String basePath, CompletableFuture<Map<String, Object>> properties) {
+        super(ZooKeeperPropertySource.getName(basePath), properties);
+    }
+
+    @Override
+    public boolean containsProperty(String name) {
+        return this.getProperties().containsKey(name);
+    }
+
+    public Map<String, Object> getProperties() {
+        try {
+            return this.getSource().join();
+        } catch (CompletionException e) {
+            throw new ZooKeeperRegistrationException("Could not load the properties for '" + this.getName() + "'.", e.getCause());
+        }
+    }
+
+    @Override
+    public Object getProperty(String name) {
+        return this.getProperties().get(name);
+    }
+
+    @Override
+    public String[] getPropertyNames() {
+        return this.getProperties().keySet().toArray(new String[0]);
+    }
+
+    public boolean isLoaded() {
+        return this.getSource().isDone();
+    }
+}
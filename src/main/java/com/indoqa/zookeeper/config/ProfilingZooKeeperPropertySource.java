@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Indoqa Software Design und Beratung GmbH (Indoqa) under
+ * one or more contributor license agreements. See the NOTICE file distributed
+ * with this work for additional information regarding copyright ownership.
+ * Indoqa licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.indoqa.zookeeper.config;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.NavigableMap;
+
+/**
+ * A {@link ZooKeeperPropertySource} with the same name and properties as the wrapped one, that records every read of one of
+ * its properties with a {@link PropertyAccessProfiler}. Since it has the same name, it can replace the wrapped property source.
+ * Reads of unknown properties are not recorded.
+ */
+public class ProfilingZooKeeperPropertySource extends ZooKeeperPropertySource {
+
+    private final PropertyAccessProfiler profiler;
+
+    public ProfilingZooKeeperPropertySource(ZooKeeperPropertySource propertySource) {
+        this(propertySource, PropertyAccessProfiler.DEFAULT_HOT_PROPERTIES);
+    }
+
+    public ProfilingZooKeeperPropertySource(ZooKeeperPropertySource propertySource, int hotPropertyCount) {
+        super(propertySource);
+
+        this.profiler = new PropertyAccessProfiler(propertySource.getName(), Arrays.asList(propertySource.getPropertyNames()),
+            hotPropertyCount);
+    }
+
+    @Override
+    public NavigableMap<String, Object> getProperties(String prefix) {
+        NavigableMap<String, Object> result = super.getProperties(prefix);
+
+        for (String eachName : result.keySet()) {
+            this.profiler.record(eachName);
+        }
+
+        return result;
+    }
+
+    public PropertyAccessProfiler getProfiler() {
+        return this.profiler;
+    }
+
+    @Override
+    public Object getProperty(String name) {
+        this.profiler.record(name);
+        return super.getProperty(name);
+    }
+
+    @Override
+    public <T> T getProperty(String name, Class<T> type) {
+        this.profiler.record(name);
+        return super.getProperty(name, type);
+    }
+
+    @Override
+    public <T> List<T> getPropertyList(String name, Class<T> elementType) {
+        this.profiler.record(name);
+        return super.getPropertyList(name, elementType);
+    }
+}
@@ -0,0 +1,221 @@
+/*
+ * Licensed to the Indoqa Software Design und Beratung GmbH (Indoqa) under
+ * one or more contributor license agreements. See the NOTICE file distributed
+ * with this work for additional information regarding copyright ownership.
+ * Indoqa licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.indoqa.zookeeper.config;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Counts how often each property of a property source is read. There is one {@link LongAdder} per property, so concurrent
+ * reads of the same property on request paths do not contend. The counters are created up front for all properties, so
+ * recording a read never allocates.
+ * <p>
+ * The results are available via JMX after {@link #register()}, under
+ * <code>com.indoqa.zookeeper.config:type=PropertyAccessProfiler,name=&lt;name&gt;</code>. When the profiler is closed, the hot
+ * properties and the number of unread properties are logged.
+ */
+public class PropertyAccessProfiler implements PropertyAccessProfilerMBean, AutoCloseable {
+
+    public static final String PROP_ENABLED = "zookeeper.properties.profiler.enabled";
+    public static final String PROP_HOT_PROPERTIES = "zookeeper.properties.profiler.hot-properties";
+
+    public static final int DEFAULT_HOT_PROPERTIES = 20;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PropertyAccessProfiler.class);
+
+    private final String name;
+    private final Map<String, LongAdder> counters;
+    private final int hotPropertyCount;
+
+    private ObjectName objectName;
+
+    /**
+     * @param hotPropertyCount The number of properties that are reported as hot properties.
+     */
+    public PropertyAccessProfiler(String name, Collection<String> propertyNames, int hotPropertyCount) {
+        this.name = name;
+        this.hotPropertyCount = hotPropertyCount;
+
+        Map<String, LongAdder> propertyCounters = new HashMap<>();
+        for (String eachPropertyName : propertyNames) {
+            propertyCounters.put(eachPropertyName, new LongAdder());
+        }
+        this.counters = Collections.unmodifiableMap(propertyCounters);
+    }
+
+    /**
+     * Log the hot properties and unregister this profiler from JMX.
+     */
+    @Override
+    public synchronized void close() {
+        List<String> unreadPropertyNames = this.getUnreadPropertyNameList();
+        LOGGER.info("{} of {} properties of '{}' were read {} time(s) in total. Hot properties: {}", this.getReadPropertyCount(),
+            this.getPropertyCount(), this.name, this.getTotalReadCount(), this.getHotPropertyList(this.hotPropertyCount));
+        LOGGER.info("{} properties of '{}' were never read: {}", unreadPropertyNames.size(), this.name, unreadPropertyNames);
+
+        if (this.objectName == null) {
+            return;
+        }
+
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(this.objectName);
+        } catch (JMException e) {
+            LOGGER.warn("Could not unregister the MBean '{}'.", this.objectName, e);
+        }
+        this.objectName = null;
+    }
+
+    @Override
+    public String[] getHotProperties() {
+        return this.listHotProperties(this.hotPropertyCount);
+    }
+
+    @Override
+    public String getName() {
+        return this.name;
+    }
+
+    @Override
+    public int getPropertyCount() {
+        return this.counters.size();
+    }
+
+    /**
+     * @return How often the property was read or <code>-1</code> if the property is unknown.
+     */
+    public long getReadCount(String propertyName) {
+        LongAdder counter = this.counters.get(propertyName);
+        return counter == null ? -1 : counter.sum();
+    }
+
+    @Override
+    public int getReadPropertyCount() {
+        int result = 0;
+
+        for (LongAdder eachCounter : this.counters.values()) {
+            if (eachCounter.sum() > 0) {
+                result++;
+            }
+        }
+
+        return result;
+    }
+
+    @Override
+    public long getTotalReadCount() {
+        long result = 0;
+
+        for (LongAdder eachCounter : this.counters.values()) {
+            result += eachCounter.sum();
+        }
+
+        return result;
+    }
+
+    @Override
+    public String[] getUnreadPropertyNames() {
+        return this.getUnreadPropertyNameList().toArray(new String[0]);
+    }
+
+    @Override
+    public String[] listHotProperties(int limit) {
+        return this.getHotPropertyList(limit).toArray(new String[0]);
+    }
+
+    /**
+     * Record one read of the given property. Reads of unknown properties are ignored.
+     */
+    public void record(String propertyName) {
+        LongAdder counter = this.counters.get(propertyName);
+
+        if (counter != null) {
+            counter.increment();
+        }
+    }
+
+    /**
+     * Register this profiler with the platform MBean server.
+     */
+    public synchronized void register() {
+        if (this.objectName != null) {
+            return;
+        }
+
+        try {
+            ObjectName newObjectName = new ObjectName(
+                "com.indoqa.zookeeper.config:type=PropertyAccessProfiler,name=" + ObjectName.quote(this.name));
+
+            MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            mBeanServer.registerMBean(this, newObjectName);
+            this.objectName = newObjectName;
+        } catch (JMException e) {
+            LOGGER.warn("Could not register the property access profiler of '{}' with JMX.", this.name, e);
+        }
+    }
+
+    @Override
+    public void reset() {
+        for (LongAdder eachCounter : this.counters.values()) {
+            eachCounter.reset();
+        }
+    }
+
+    private List<String> getHotPropertyList(int limit) {
+        List<Entry<String, Long>> readCounts = new ArrayList<>();
+        for (Entry<String, LongAdder> eachEntry : this.counters.entrySet()) {
+            long readCount = eachEntry.getValue().sum();
+            if (readCount > 0) {
+                readCounts.add(Map.entry(eachEntry.getKey(), readCount));
+            }
+        }
+
+        readCounts.sort(Entry.<String, Long> comparingByValue().reversed().thenComparing(Entry.comparingByKey()));
+
+        List<String> result = new ArrayList<>(Math.min(limit, readCounts.size()));
+        for (Entry<String, Long> eachEntry : readCounts.subList(0, Math.min(limit, readCounts.size()))) {
+            result.add(eachEntry.getKey() + "=" + eachEntry.getValue());
+        }
+        return result;
+    }
+
+    private List<String> getUnreadPropertyNameList() {
+        List<String> result = new ArrayList<>();
+
+        for (Entry<String, LongAdder> eachEntry : this.counters.entrySet()) {
+            if (eachEntry.getValue().sum() == 0) {
+                result.add(eachEntry.getKey());
+            }
+        }
+
+        Collections.sort(result);
+        return result;
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Licensed to the Indoqa Software Design und Beratung GmbH (Indoqa) under
+ * one or more contributor license agreements. See the NOTICE file distributed
+ * with this work for additional information regarding copyright ownership.
+ * Indoqa licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.indoqa.zookeeper.config;
+
+import java.util.Collections;
+import java.util.NavigableMap;
+
+/**
+ * Prefix queries on sorted property names. All properties that start with a prefix form one contiguous range of a
+ * {@link NavigableMap}, so a query costs one lookup for each end of the range plus the results.
+ */
+final class PropertyPrefixes {
+
+    private PropertyPrefixes() {
+        // hide utility class constructor
+    }
+
+    public static <V> NavigableMap<String, V> getProperties(NavigableMap<String, V> properties, String prefix) {
+        if (prefix.isEmpty()) {
+            return Collections.unmodifiableNavigableMap(properties);
+        }
+
+        String end = getPrefixEnd(prefix);
+        if (end == null) {
+            return Collections.unmodifiableNavigableMap(properties.tailMap(prefix, true));
+        }
+
+        return Collections.unmodifiableNavigableMap(properties.subMap(prefix, true, end, false));
+    }
+
+    public static String[] getPropertyNames(NavigableMap<String, ?> properties, String prefix) {
+        return getProperties(properties, prefix).keySet().toArray(new String[0]);
+    }
+
+    /**
+     * @return The smallest string that is greater than all strings starting with <code>prefix</code> or <code>null</code> if
+     *         there is none.
+     */
+    private static String getPrefixEnd(String prefix) {
+        for (int i = prefix.length() - 1; i >= 0; i--) {
+            char character = prefix.charAt(i);
+            if (character != Character.MAX_VALUE) {
+                return prefix.substring(0, i) + (char) (character + 1);
+            }
+        }
+
+        return null;
+    }
+}
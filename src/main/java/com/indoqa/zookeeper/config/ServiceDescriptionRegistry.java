@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Indoqa Software Design und Beratung GmbH (Indoqa) under
+ * one or more contributor license agreements. See the NOTICE file distributed
+ * with this work for additional information regarding copyright ownership.
+ * Indoqa licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.indoqa.zookeeper.config;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.indoqa.zookeeper.StateExecutor;
+import com.indoqa.zookeeper.config.model.AbstractServiceDescription;
+import com.indoqa.zookeeper.config.states.WatchServiceDescriptionsState;
+
+/**
+ * Long-lived, in-memory view of all service descriptions. The descriptions are loaded once and kept current through
+ * watches. Lookups read from an immutable snapshot that is swapped atomically on every change, so they neither lock nor
+ * touch ZooKeeper. The returned descriptions are shared by all callers and frozen; see
+ * {@link AbstractServiceDescription#freeze()} for the values that stay writable and must not be modified.
+ */
+public class ServiceDescriptionRegistry<T extends AbstractServiceDescription> implements AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ServiceDescriptionRegistry.class);
+    private static final long INITIAL_LOAD_TIMEOUT = 60;
+
+    private final AtomicReference<Map<String, T>> snapshot = new AtomicReference<>(Map.of());
+    private final CountDownLatch initialLoad = new CountDownLatch(1);
+
+    private final StateExecutor ownedStateExecutor;
+    private final WatchServiceDescriptionsState<T> state;
+
+    public ServiceDescriptionRegistry(StateExecutor stateExecutor, Class<T> serviceDescriptionType) {
+        this(stateExecutor, serviceDescriptionType, false);
+    }
+
+    public ServiceDescriptionRegistry(String connectString, int sessionTimeout, Class<T> serviceDescriptionType) {
+        this(new StateExecutor(connectString, sessionTimeout), serviceDescriptionType, true);
+    }
+
+    private ServiceDescriptionRegistry(StateExecutor stateExecutor, Class<T> serviceDescriptionType, boolean ownsStateExecutor) {
+        this.ownedStateExecutor = ownsStateExecutor ? stateExecutor : null;
+        this.state = new WatchServiceDescriptionsState<>(serviceDescriptionType, this::onSnapshot);
+
+        LOGGER.info("Loading service descriptions ...");
+        stateExecutor.executeState(this.state);
+        this.awaitInitialLoad();
+        LOGGER.info("Loaded {} service description(s).", this.snapshot.get().size());
+    }
+
+    @Override
+    public void close() {
+        this.state.close();
+
+        if (this.ownedStateExecutor != null) {
+            this.ownedStateExecutor.close();
+        }
+    }
+
+    /**
+     * @return The service description with the given id or <code>null</code> if there is none.
+     */
+    public T getServiceDescription(String serviceId) {
+        return this.snapshot.get().get(serviceId);
+    }
+
+    public Collection<T> getServiceDescriptions() {
+        return this.snapshot.get().values();
+    }
+
+    /**
+     * @return An immutable map of all service descriptions by their id.
+     */
+    public Map<String, T> getSnapshot() {
+        return this.snapshot.get();
+    }
+
+    private void awaitInitialLoad() {
+        try {
+            if (!this.initialLoad.await(INITIAL_LOAD_TIMEOUT, TimeUnit.SECONDS)) {
+                this.close();
+                throw new IllegalStateException("The service descriptions were not loaded within " + INITIAL_LOAD_TIMEOUT + " s.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            this.close();
+            throw new IllegalStateException("Interrupted while loading the service descriptions.", e);
+        }
+    }
+
+    private void onSnapshot(Map<String, T> serviceDescriptions) {
+        this.snapshot.set(serviceDescriptions);
+        this.initialLoad.countDown();
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ * Licensed to the Indoqa Software Design und Beratung GmbH (Indoqa) under
+ * one or more contributor license agreements. See the NOTICE file distributed
+ * with this work for additional information regarding copyright ownership.
+ * Indoqa licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.indoqa.zookeeper.config;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.indoqa.zookeeper.StateExecutor;
+import com.indoqa.zookeeper.config.model.ServiceInstance;
+import com.indoqa.zookeeper.config.states.WatchServiceInstancesState;
+
+/**
+ * Selects a live instance of a service for client-side routing. The instances are kept current through watches on the
+ * session nodes created by {@link com.indoqa.zookeeper.config.states.RegisterInstanceZooKeeperState}. Every change replaces
+ * an immutable array of instances, so selecting an instance neither locks nor allocates.
+ */
+public class ServiceInstanceSelector implements AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ServiceInstanceSelector.class);
+    private static final long INITIAL_LOAD_TIMEOUT = 60;
+
+    private final Strategy defaultStrategy;
+    private final AtomicInteger roundRobinCounter = new AtomicInteger();
+    private final CountDownLatch initialLoad = new CountDownLatch(1);
+
+    private final StateExecutor ownedStateExecutor;
+    private final WatchServiceInstancesState state;
+
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+    public ServiceInstanceSelector(StateExecutor stateExecutor, String serviceId, Strategy defaultStrategy) {
+        this(stateExecutor, serviceId, defaultStrategy, false);
+    }
+
+    public ServiceInstanceSelector(String connectString, int sessionTimeout, String serviceId, Strategy defaultStrategy) {
+        this(new StateExecutor(connectString, sessionTimeout), serviceId, defaultStrategy, true);
+    }
+
+    private ServiceInstanceSelector(StateExecutor stateExecutor, String serviceId, Strategy defaultStrategy,
+            boolean ownsStateExecutor) {
+        this.defaultStrategy = defaultStrategy;
+        this.ownedStateExecutor = ownsStateExecutor ? stateExecutor : null;
+        this.state = new WatchServiceInstancesState(serviceId, this::onInstances);
+
+        stateExecutor.executeState(this.state);
+        this.awaitInitialLoad(serviceId);
+        LOGGER.info("Found {} live instance(s) of '{}'.", this.snapshot.instances.length, serviceId);
+    }
+
+    private static Instant getLatestStartDate(ServiceInstance instance) {
+        Instant result = Instant.MIN;
+
+        for (Instant eachStartDate : instance.getSessions().values()) {
+            if (eachStartDate != null && eachStartDate.isAfter(result)) {
+                result = eachStartDate;
+            }
+        }
+
+        return result;
+    }
+
+    @Override
+    public void close() {
+        this.state.close();
+
+        if (this.ownedStateExecutor != null) {
+            this.ownedStateExecutor.close();
+        }
+    }
+
+    public int getInstanceCount() {
+        return this.snapshot.instances.length;
+    }
+
+    /**
+     * @return An immutable list of all live instances.
+     */
+    public List<ServiceInstance> getInstances() {
+        return this.snapshot.instanceList;
+    }
+
+    /**
+     * Select an instance with the default strategy.
+     *
+     * @return The selected instance or <code>null</code> if there is no live instance.
+     */
+    public ServiceInstance select() {
+        return this.select(this.defaultStrategy);
+    }
+
+    /**
+     * Select an instance with the given strategy.
+     *
+     * @return The selected instance or <code>null</code> if there is no live instance.
+     */
+    public ServiceInstance select(Strategy strategy) {
+        Snapshot currentSnapshot = this.snapshot;
+
+        ServiceInstance[] instances = currentSnapshot.instances;
+        if (instances.length == 0) {
+            return null;
+        }
+
+        switch (strategy) {
+            case ROUND_ROBIN:
+                return instances[Math.floorMod(this.roundRobinCounter.getAndIncrement(), instances.length)];
+
+            case RANDOM:
+                return instances[ThreadLocalRandom.current().nextInt(instances.length)];
+
+            case LEAST_RECENTLY_STARTED:
+                return instances[currentSnapshot.leastRecentlyStartedIndex];
+
+            default:
+                throw new IllegalArgumentException("Unsupported strategy " + strategy);
+        }
+    }
+
+    private void awaitInitialLoad(String serviceId) {
+        try {
+            if (!this.initialLoad.await(INITIAL_LOAD_TIMEOUT, TimeUnit.SECONDS)) {
+                this.close();
+                throw new IllegalStateException(
+                    "The instances of '" + serviceId + "' were not loaded within " + INITIAL_LOAD_TIMEOUT + " s.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            this.close();
+            throw new IllegalStateException("Interrupted while loading the instances of '" + serviceId + "'.", e);
+        }
+    }
+
+    private void onInstances(List<ServiceInstance> instances) {
+        ServiceInstance[] instanceArray = instances.toArray(new ServiceInstance[instances.size()]);
+
+        int leastRecentlyStartedIndex = 0;
+        for (int i = 1; i < instanceArray.length; i++) {
+            Instant startDate = getLatestStartDate(instanceArray[i]);
+            if (startDate.isBefore(getLatestStartDate(instanceArray[leastRecentlyStartedIndex]))) {
+                leastRecentlyStartedIndex = i;
+            }
+        }
+
+        this.snapshot = new Snapshot(instanceArray, leastRecentlyStartedIndex);
+        this.initialLoad.countDown();
+    }
+
+    public enum Strategy {
+        /**
+         * Cycle through all live instances.
+         */
+        ROUND_ROBIN,
+        /**
+         * Pick a random live instance.
+         */
+        RANDOM,
+        /**
+         * Pick the instance that has been running the longest, i.e. whose latest session started least recently.
+         */
+        LEAST_RECENTLY_STARTED
+    }
+
+    private static final class Snapshot {
+
+        private static final Snapshot EMPTY = new Snapshot(new ServiceInstance[0], 0);
+
+        private final ServiceInstance[] instances;
+        private final List<ServiceInstance> instanceList;
+        private final int leastRecentlyStartedIndex;
+
+        private Snapshot(ServiceInstance[] instances, int leastRecentlyStartedIndex) {
+            this.instances = instances;
+            this.instanceList = List.of(instances);
+            this.leastRecentlyStartedIndex = leastRecentlyStartedIndex;
+        }
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * Licensed to the Indoqa Software Design und Beratung GmbH (Indoqa) under
+ * one or more contributor license agreements. See the NOTICE file distributed
+ * with this work for additional information regarding copyright ownership.
+ * Indoqa licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.indoqa.zookeeper.config;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.core.convert.ConversionService;
+import org.springframework.core.convert.support.DefaultConversionService;
+import org.springframework.util.StringUtils;
+
+import com.indoqa.zookeeper.config.utils.ValueCodec;
+import com.indoqa.zookeeper.config.utils.ValueCodecs;
+import com.indoqa.zookeeper.config.utils.ZooKeeperRegistrationException;
+
+/**
+ * Memoizes the conversions of property values per name and type. A cached conversion is only used as long as the raw value it
+ * was converted from is still the current value of the property, so a changed node is converted again on its next lookup.
+ * Property values are text, so they are converted with Spring's default conversions, e.g. <code>on</code>, <code>yes</code> and
+ * <code>1</code> are <code>true</code>. In addition, durations may be written like <code>10s</code> or <code>500ms</code>. Only
+ * types without a default conversion fall back to their {@link ValueCodec}.
+ */
+final class TypedPropertyValues {
+
+    private static final Pattern SIMPLE_DURATION = Pattern.compile("([+-]?\\d+)(ns|us|ms|s|m|h|d)?");
+    private static final ConversionService CONVERSION_SERVICE = createConversionService();
+
+    private final Map<String, CachedValues> cachedValues = new ConcurrentHashMap<>();
+
+    @SuppressWarnings("unchecked")
+    private static <T> T convert(String name, Object rawValue, Class<T> type) {
+        if (type.isInstance(rawValue)) {
+            return (T) rawValue;
+        }
+
+        String value = rawValue.toString().trim();
+        try {
+            if (!CONVERSION_SERVICE.canConvert(String.class, type)) {
+                ValueCodec<T> codec = ValueCodecs.getCodec(type);
+                if (codec != null) {
+                    return value.isEmpty() ? null : codec.decode(value.getBytes(UTF_8));
+                }
+            }
+
+            return CONVERSION_SERVICE.convert(value, type);
+        } catch (RuntimeException e) {
+            throw new ZooKeeperRegistrationException("Could not convert property '" + name + "' to " + type.getName() + ".", e);
+        }
+    }
+
+    private static <T> List<T> convertList(String name, Object rawValue, Class<T> elementType) {
+        String[] elements = StringUtils.trimArrayElements(StringUtils.commaDelimitedListToStringArray(rawValue.toString()));
+
+        List<T> result = new ArrayList<>(elements.length);
+        for (String eachElement : elements) {
+            T element = convert(name, eachElement, elementType);
+            if (element != null) {
+                result.add(element);
+            }
+        }
+
+        return Collections.unmodifiableList(result);
+    }
+
+    private static ConversionService createConversionService() {
+        DefaultConversionService result = new DefaultConversionService();
+        result.addConverter(String.class, Duration.class, TypedPropertyValues::parseDuration);
+        return result;
+    }
+
+    private static ChronoUnit getUnit(String suffix) {
+        if (suffix == null) {
+            return ChronoUnit.MILLIS;
+        }
+
+        switch (suffix) {
+            case "ns":
+                return ChronoUnit.NANOS;
+            case "us":
+                return ChronoUnit.MICROS;
+            case "ms":
+                return ChronoUnit.MILLIS;
+            case "s":
+                return ChronoUnit.SECONDS;
+            case "m":
+                return ChronoUnit.MINUTES;
+            case "h":
+                return ChronoUnit.HOURS;
+            default:
+                return ChronoUnit.DAYS;
+        }
+    }
+
+    private static Duration parseDuration(String value) {
+        if (value.isEmpty()) {
+            return null;
+        }
+
+        Matcher matcher = SIMPLE_DURATION.matcher(value);
+        if (!matcher.matches()) {
+            return Duration.parse(value);
+        }
+
+        return Duration.of(Long.parseLong(matcher.group(1)), getUnit(matcher.group(2)));
+    }
+
+    /**
+     * @return The value of the property converted to <code>type</code> or <code>null</code> if <code>rawValue</code> is
+     *         <code>null</code> or empty.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(String name, Object rawValue, Class<T> type) {
+        if (rawValue == null) {
+            return null;
+        }
+
+        CachedValues values = this.getCachedValues(name, rawValue);
+        Object result = values.values.get(type);
+        if (result == null) {
+            result = convert(name, rawValue, type);
+            if (result != null) {
+                values.values.put(type, result);
+            }
+        }
+
+        return (T) result;
+    }
+
+    /**
+     * @return The comma separated elements of the property converted to <code>elementType</code> or <code>null</code> if
+     *         <code>rawValue</code> is <code>null</code>. The list is unmodifiable.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> List<T> getList(String name, Object rawValue, Class<T> elementType) {
+        if (rawValue == null) {
+            return null;
+        }
+
+        CachedValues values = this.getCachedValues(name, rawValue);
+        return (List<T>) values.lists.computeIfAbsent(elementType, type -> convertList(name, rawValue, type));
+    }
+
+    /**
+     * Drop all conversions of the property, e.g. after it was changed or removed.
+     */
+    public void invalidate(String name) {
+        this.cachedValues.remove(name);
+    }
+
+    private CachedValues getCachedValues(String name, Object rawValue) {
+        CachedValues result = this.cachedValues.get(name);
+        if (result != null && result.rawValue == rawValue) {
+            return result;
+        }
+
+        result = new CachedValues(rawValue);
+        this.cachedValues.put(name, result);
+        return result;
+    }
+
+    private static final class CachedValues {
+
+        private final Object rawValue;
+        private final Map<Class<?>, Object> values = new ConcurrentHashMap<>();
+        private final Map<Class<?>, List<?>> lists = new ConcurrentHashMap<>();
+
+        private CachedValues(Object rawValue) {
+            this.rawValue = rawValue;
+        }
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * Licensed to the Indoqa Software Design und Beratung GmbH (Indoqa) under
+ * one or more contributor license agreements. See the NOTICE file distributed
+ * with this work for additional information regarding copyright ownership.
+ * Indoqa licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.indoqa.zookeeper.config;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.indoqa.zookeeper.StateExecutor;
+import com.indoqa.zookeeper.config.states.RegisterInstancesZooKeeperState;
+import com.indoqa.zookeeper.config.utils.HedgedReads;
+import com.indoqa.zookeeper.config.utils.PropertyFilter;
+import com.indoqa.zookeeper.config.utils.ReadDeadline;
+import com.indoqa.zookeeper.config.utils.ZooKeeperRegistrationException;
+import com.indoqa.zookeeper.config.utils.ZooKeeperRequestPolicy;
+
+/**
+ * Starts connecting to ZooKeeper, registering the instance and loading the properties of the given services on background
+ * threads, so that this work overlaps with the startup of the application. Call
+ * {@link #start(String, int, Function, String...)} at the top of <code>main()</code> and pass the result to
+ * {@link ZooKeeperRegistrationUtils#registerZooKeeperServices(org.springframework.context.ConfigurableApplicationContext, ZooKeeperPrefetch)}
+ * once the application context has been created.
+ * <p>
+ * There is no application environment yet when the prefetch starts, so the {@link ZooKeeperRequestPolicy},
+ * {@link PropertyFilter}, {@link ReadDeadline} and {@link HedgedReads} for loading the properties are read from the given
+ * properties, e.g. <code>System::getProperty</code>. Load reporting and profiling are configured by the application environment
+ * when the prefetch is handed over.
+ */
+public final class ZooKeeperPrefetch implements AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ZooKeeperPrefetch.class);
+
+    private final String[] serviceNames;
+    private final CompletableFuture<StateExecutor> stateExecutor;
+    private final List<CompletableFuture<ZooKeeperPropertySource>> loadedPropertySources = new ArrayList<>();
+    private final List<PrefetchedZooKeeperPropertySource> propertySources = new ArrayList<>();
+    private final ExecutorService executorService;
+
+    private volatile boolean handedOver;
+
+    private ZooKeeperPrefetch(String connectString, int sessionTimeout, Function<String, String> properties,
+            String... serviceNames) {
+        // invalid settings fail before anything is started
+        ZooKeeperRequestPolicy requestPolicy = ZooKeeperRequestPolicy.fromProperties(properties);
+        PropertyFilter propertyFilter = PropertyFilter.fromProperties(properties);
+        ReadDeadline readDeadline = ReadDeadline.fromProperties(properties);
+        HedgedReads hedgedReads = HedgedReads.fromProperties(connectString, sessionTimeout, properties);
+
+        this.serviceNames = serviceNames;
+        this.executorService = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "zookeeper-prefetch");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.stateExecutor = CompletableFuture.supplyAsync(() -> {
+            StateExecutor result = new StateExecutor(connectString, sessionTimeout);
+            result.executeState(new RegisterInstancesZooKeeperState(serviceNames));
+            return result;
+        }, this.executorService);
+
+        for (String eachServiceName : serviceNames) {
+            String basePath = "/" + eachServiceName + "/properties";
+
+            CompletableFuture<ZooKeeperPropertySource> propertySource = this.stateExecutor.thenApplyAsync(
+                executor -> loadProperties(executor, basePath, requestPolicy, propertyFilter, readDeadline, hedgedReads),
+                this.executorService);
+            this.loadedPropertySources.add(propertySource);
+
+            this.propertySources.add(
+                new PrefetchedZooKeeperPropertySource(basePath, propertySource.thenApply(ZooKeeperPropertySource::getSource)));
+        }
+
+        // the second session of hedged reads is only needed while the properties are loaded
+        CompletableFuture.allOf(this.loadedPropertySources.toArray(CompletableFuture[]::new)).whenComplete((result, error) -> {
+            this.executorService.shutdown();
+
+            if (hedgedReads != null) {
+                hedgedReads.close();
+            }
+        });
+    }
+
+    /**
+     * Start prefetching with the default settings for loading the properties. This method does not block.
+     */
+    public static ZooKeeperPrefetch start(String connectString, int sessionTimeout, String... serviceNames) {
+        return start(connectString, sessionTimeout, name -> null, serviceNames);
+    }
+
+    /**
+     * Start prefetching with the <code>zookeeper.rate-limit.*</code>, <code>zookeeper.retry.*</code>,
+     * <code>zookeeper.properties.*</code>, <code>zookeeper.deadline.*</code> and <code>zookeeper.hedged-reads.*</code> settings
+     * of the given properties. This method does not block.
+     */
+    public static ZooKeeperPrefetch start(String connectString, int sessionTimeout, Function<String, String> properties,
+            String... serviceNames) {
+        LOGGER.info("Prefetching ZooKeeper registration and properties for {} service(s) ...", serviceNames.length);
+        return new ZooKeeperPrefetch(connectString, sessionTimeout, properties, serviceNames);
+    }
+
+    private static ZooKeeperPropertySource loadProperties(StateExecutor stateExecutor, String basePath,
+            ZooKeeperRequestPolicy requestPolicy, PropertyFilter propertyFilter, ReadDeadline readDeadline,
+            HedgedReads hedgedReads) {
+        long start = System.nanoTime();
+
+        ZooKeeperPropertySource result = new ZooKeeperPropertySource(stateExecutor, basePath, requestPolicy, propertyFilter,
+            readDeadline, hedgedReads);
+
+        LOGGER.info("Prefetched properties at '{}' in {} ms.", basePath, (System.nanoTime() - start) / 1_000_000);
+        return result;
+    }
+
+    /**
+     * Close the connection, unless it has already been handed over to an application context.
+     */
+    @Override
+    public void close() {
+        this.executorService.shutdownNow();
+
+        // a connection that is still being established is closed as soon as it completes
+        this.stateExecutor.whenComplete((executor, error) -> {
+            if (executor != null && !this.handedOver) {
+                executor.close();
+            }
+        });
+    }
+
+    /**
+     * @return One property source per service. Each of them only blocks when a property is requested before its properties
+     *         have been loaded.
+     */
+    public List<PrefetchedZooKeeperPropertySource> getPropertySources() {
+        return this.propertySources;
+    }
+
+    /**
+     * Wait until all properties have been loaded.
+     *
+     * @return The loaded property sources, which unlike the prefetched ones also provide the missing paths.
+     */
+    List<ZooKeeperPropertySource> awaitPropertySources() {
+        List<ZooKeeperPropertySource> result = new ArrayList<>(this.propertySources.size());
+
+        for (int i = 0; i < this.propertySources.size(); i++) {
+            // fails with the same exception as a property lookup, if the properties could not be loaded
+            this.propertySources.get(i).getProperties();
+            result.add(this.loadedPropertySources.get(i).join());
+        }
+
+        return result;
+    }
+
+    String[] getServiceNames() {
+        return this.serviceNames;
+    }
+
+    /**
+     * Wait until the connection has been established and hand it over to the caller, who is responsible for closing it.
+     */
+    StateExecutor takeStateExecutor() {
+        try {
+            StateExecutor result = this.stateExecutor.join();
+            this.handedOver = true;
+            return result;
+        } catch (CompletionException e) {
+            throw new ZooKeeperRegistrationException("Could not connect to ZooKeeper.", e.getCause());
+        }
+    }
+}
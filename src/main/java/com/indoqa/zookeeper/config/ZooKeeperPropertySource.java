@@ -16,38 +16,195 @@
  */
 package com.indoqa.zookeeper.config;
 
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.core.env.MapPropertySource;
 
 import com.indoqa.zookeeper.Execution;
 import com.indoqa.zookeeper.StateExecutor;
 import com.indoqa.zookeeper.config.states.ReadConfigurationState;
+import com.indoqa.zookeeper.config.utils.HedgedReads;
+import com.indoqa.zookeeper.config.utils.PropertyFilter;
+import com.indoqa.zookeeper.config.utils.ReadDeadline;
+import com.indoqa.zookeeper.config.utils.ReadDeadline.Policy;
+import com.indoqa.zookeeper.config.utils.ZooKeeperRegistrationException;
+import com.indoqa.zookeeper.config.utils.ZooKeeperRequestPolicy;
 
+/**
+ * The properties below a base path. Besides the lookup by name, properties can be queried by a prefix of their names, e.g.
+ * all properties of one sub-tree, and converted to other types. Converted values are cached.
+ * <p>
+ * With a {@link ReadDeadline} loading takes at most its timeout. What happens if the properties could not be read completely
+ * in time depends on its {@link Policy}.
+ */
 public class ZooKeeperPropertySource extends MapPropertySource {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(ZooKeeperPropertySource.class);
+
+    private final TypedPropertyValues typedValues = new TypedPropertyValues();
+    private final NavigableMap<String, Object> sortedProperties;
+    private final List<String> missingPaths;
+
     public ZooKeeperPropertySource(StateExecutor stateExecutor, String basePath) {
-        super(getName(basePath), loadProperties(stateExecutor, basePath));
+        this(stateExecutor, basePath, ZooKeeperRequestPolicy.getDefault());
+    }
+
+    public ZooKeeperPropertySource(StateExecutor stateExecutor, String basePath, ZooKeeperRequestPolicy requestPolicy) {
+        this(stateExecutor, basePath, requestPolicy, PropertyFilter.getDefault());
+    }
+
+    public ZooKeeperPropertySource(StateExecutor stateExecutor, String basePath, ZooKeeperRequestPolicy requestPolicy,
+            PropertyFilter propertyFilter) {
+        this(stateExecutor, basePath, requestPolicy, propertyFilter, ReadDeadline.getDefault());
+    }
+
+    public ZooKeeperPropertySource(StateExecutor stateExecutor, String basePath, ZooKeeperRequestPolicy requestPolicy,
+            PropertyFilter propertyFilter, ReadDeadline readDeadline) {
+        this(stateExecutor, basePath, requestPolicy, propertyFilter, readDeadline, null);
+    }
+
+    /**
+     * @param hedgedReads The {@link HedgedReads} for loading the properties or <code>null</code>.
+     */
+    public ZooKeeperPropertySource(StateExecutor stateExecutor, String basePath, ZooKeeperRequestPolicy requestPolicy,
+            PropertyFilter propertyFilter, ReadDeadline readDeadline, HedgedReads hedgedReads) {
+        this(basePath, loadProperties(stateExecutor, basePath, requestPolicy, propertyFilter, readDeadline, hedgedReads));
     }
 
     public ZooKeeperPropertySource(String connectString, int sessionTimeout, String basePath) {
-        super(getName(basePath), loadProperties(connectString, sessionTimeout, basePath));
+        this(basePath, loadProperties(connectString, sessionTimeout, basePath));
     }
 
-    private static String getName(String basePath) {
+    /**
+     * Create a property source from properties that have already been loaded with a {@link ReadConfigurationState}.
+     */
+    public ZooKeeperPropertySource(String basePath, Map<String, Object> properties) {
+        this(basePath, new LoadedProperties(properties, Collections.emptyList()));
+    }
+
+    /**
+     * Create a property source with the name, the properties and the missing paths of <code>propertySource</code>.
+     */
+    protected ZooKeeperPropertySource(ZooKeeperPropertySource propertySource) {
+        super(propertySource.getName(), propertySource.getSource());
+
+        this.sortedProperties = propertySource.sortedProperties;
+        this.missingPaths = propertySource.missingPaths;
+    }
+
+    private ZooKeeperPropertySource(String basePath, LoadedProperties loadedProperties) {
+        super(getName(basePath), loadedProperties.properties);
+
+        this.sortedProperties = new TreeMap<>(this.source);
+        this.missingPaths = loadedProperties.missingPaths;
+    }
+
+    static String getName(String basePath) {
         return "ZooKeeper properties @ " + basePath;
     }
 
-    private static Map<String, Object> loadProperties(StateExecutor stateExecutor, String basePath) {
-        Execution execution = stateExecutor.executeState(new ReadConfigurationState(basePath));
+    private static LoadedProperties loadProperties(StateExecutor stateExecutor, String basePath,
+            ZooKeeperRequestPolicy requestPolicy, PropertyFilter propertyFilter, ReadDeadline readDeadline,
+            HedgedReads hedgedReads) {
+        ReadConfigurationState state = new ReadConfigurationState(basePath, false, propertyFilter);
+        state.setRequestPolicy(requestPolicy);
+        state.setReadDeadline(readDeadline);
+        state.setHedgedReads(hedgedReads);
+
+        Execution execution = stateExecutor.executeState(state);
         stateExecutor.waitForTermination(execution);
 
-        return execution.getEnvironmentValue("properties");
+        Map<String, Object> properties = execution.getEnvironmentValue("properties");
+        List<String> missingPaths = ReadConfigurationState.getMissingPaths(execution);
+        if (missingPaths.isEmpty()) {
+            if (readDeadline.getPolicy() == Policy.USE_CACHE) {
+                LocalPropertiesCache.write(readDeadline.getCacheDirectory(), basePath, properties);
+            }
+            return new LoadedProperties(properties, missingPaths);
+        }
+
+        if (readDeadline.getPolicy() == Policy.PARTIAL_RESULTS) {
+            LOGGER.warn("Using {} property value(s) of '{}', but {} subtree(s) are missing: {}", properties.size(), basePath,
+                missingPaths.size(), missingPaths);
+            return new LoadedProperties(properties, missingPaths);
+        }
+
+        if (readDeadline.getPolicy() == Policy.USE_CACHE) {
+            Map<String, Object> cachedProperties = LocalPropertiesCache.read(readDeadline.getCacheDirectory(), basePath);
+            if (cachedProperties != null) {
+                LOGGER.warn("Using the cached properties of '{}', because they could not be read within {} ms.", basePath,
+                    readDeadline.getTimeout().toMillis());
+                return new LoadedProperties(cachedProperties, Collections.emptyList());
+            }
+        }
+
+        throw new ZooKeeperRegistrationException("The properties of '" + basePath + "' could not be read within "
+            + readDeadline.getTimeout().toMillis() + " ms, missing " + missingPaths + ".");
     }
 
-    private static Map<String, Object> loadProperties(String connectString, int sessionTimeout, String basePath) {
+    private static LoadedProperties loadProperties(String connectString, int sessionTimeout, String basePath) {
         try (StateExecutor stateExecutor = new StateExecutor(connectString, sessionTimeout)) {
-            return loadProperties(stateExecutor, basePath);
+            return loadProperties(stateExecutor, basePath, ZooKeeperRequestPolicy.getDefault(), PropertyFilter.getDefault(),
+                ReadDeadline.getDefault(), null);
+        }
+    }
+
+    /**
+     * @return The paths whose subtrees are missing, because they could not be read before the {@link ReadDeadline} passed.
+     *         This is only possible with {@link Policy#PARTIAL_RESULTS}.
+     */
+    public List<String> getMissingPaths() {
+        return this.missingPaths;
+    }
+
+    /**
+     * @return All properties whose names start with <code>prefix</code>, sorted by their names.
+     */
+    public NavigableMap<String, Object> getProperties(String prefix) {
+        return PropertyPrefixes.getProperties(this.sortedProperties, prefix);
+    }
+
+    /**
+     * @return The value of the property converted to <code>type</code>. Conversions are cached until the property changes.
+     */
+    public <T> T getProperty(String name, Class<T> type) {
+        return this.typedValues.get(name, this.source.get(name), type);
+    }
+
+    public <T> T getProperty(String name, Class<T> type, T defaultValue) {
+        T result = this.getProperty(name, type);
+        return result == null ? defaultValue : result;
+    }
+
+    /**
+     * @return The comma separated elements of the property converted to <code>elementType</code>. Conversions are cached until
+     *         the property changes.
+     */
+    public <T> List<T> getPropertyList(String name, Class<T> elementType) {
+        return this.typedValues.getList(name, this.source.get(name), elementType);
+    }
+
+    /**
+     * @return The sorted names of all properties that start with <code>prefix</code>.
+     */
+    public String[] getPropertyNames(String prefix) {
+        return PropertyPrefixes.getPropertyNames(this.sortedProperties, prefix);
+    }
+
+    private static final class LoadedProperties {
+
+        private final Map<String, Object> properties;
+        private final List<String> missingPaths;
+
+        private LoadedProperties(Map<String, Object> properties, List<String> missingPaths) {
+            this.properties = properties;
+            this.missingPaths = missingPaths;
         }
     }
 }
@@ -21,17 +21,26 @@ import static org.springframework.util.StringUtils.isEmpty;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.core.env.ConfigurableEnvironment;
 import org.springframework.core.env.MutablePropertySources;
 
 import com.indoqa.zookeeper.StateExecutor;
-import com.indoqa.zookeeper.config.states.RegisterInstanceZooKeeperState;
+import com.indoqa.zookeeper.config.states.RegisterInstancesZooKeeperState;
+import com.indoqa.zookeeper.config.states.ReportInstanceLoadState;
+import com.indoqa.zookeeper.config.utils.HedgedReads;
+import com.indoqa.zookeeper.config.utils.PropertyFilter;
+import com.indoqa.zookeeper.config.utils.ReadDeadline;
 import com.indoqa.zookeeper.config.utils.ZooKeeperRegistrationException;
+import com.indoqa.zookeeper.config.utils.ZooKeeperRequestPolicy;
 
 public final class ZooKeeperRegistrationUtils {
 
-    private static final String PROP_ZK_CONNECT_STRING = "zookeeper.connect-string";
-    private static final String PROP_ZK_SESSION_TIMEOUT = "zookeeper.session-timeout";
-    private static final String DEFAULT_ZK_SESSION_TIMEOUT = "5000";
+    public static final String PROP_ZK_CONNECT_STRING = "zookeeper.connect-string";
+    public static final String PROP_ZK_SESSION_TIMEOUT = "zookeeper.session-timeout";
+    public static final int DEFAULT_SESSION_TIMEOUT = 5000;
+
+    private static final String DEFAULT_ZK_SESSION_TIMEOUT = String.valueOf(DEFAULT_SESSION_TIMEOUT);
 
     private static final Logger LOGGER = LoggerFactory.getLogger(ZooKeeperRegistrationUtils.class);
 
@@ -57,15 +66,55 @@ public final class ZooKeeperRegistrationUtils {
         StateExecutor stateExecutor = new StateExecutor(connectString, sessionTimeout);
         registerStateExecutor(applicationContext, stateExecutor);
 
-        MutablePropertySources propertySources = applicationContext.getEnvironment().getPropertySources();
-        for (String eachServiceName : servicesNames) {
-            registerService(stateExecutor, eachServiceName);
-            addPropertySource(stateExecutor, propertySources, eachServiceName);
+        registerServices(stateExecutor, servicesNames);
+        reportInstanceLoad(applicationContext, stateExecutor, servicesNames);
+
+        ConfigurableEnvironment environment = applicationContext.getEnvironment();
+        ZooKeeperRequestPolicy requestPolicy = ZooKeeperRequestPolicy.fromProperties(environment::getProperty);
+        PropertyFilter propertyFilter = PropertyFilter.fromProperties(environment::getProperty);
+        ReadDeadline readDeadline = ReadDeadline.fromProperties(environment::getProperty);
+        MutablePropertySources propertySources = environment.getPropertySources();
+
+        // the second session of hedged reads is only needed while the properties are loaded
+        HedgedReads hedgedReads = HedgedReads.fromProperties(connectString, sessionTimeout, environment::getProperty);
+        try {
+            for (String eachServiceName : servicesNames) {
+                ZooKeeperPropertySource propertySource = new ZooKeeperPropertySource(stateExecutor,
+                    "/" + eachServiceName + "/properties", requestPolicy, propertyFilter, readDeadline, hedgedReads);
+                propertySources.addLast(profile(applicationContext, propertySource));
+            }
+        } finally {
+            if (hedgedReads != null) {
+                hedgedReads.close();
+            }
         }
     }
 
-    private static void addPropertySource(StateExecutor stateExecutor, MutablePropertySources propertySources, String serviceName) {
-        propertySources.addLast(new ZooKeeperPropertySource(stateExecutor, "/" + serviceName + "/properties"));
+    /**
+     * Register an application's services with ZooKeeper, using the connection, registration and properties of a prefetch that
+     * was started early during startup. The properties are loaded with the settings passed to
+     * {@link ZooKeeperPrefetch#start(String, int, java.util.function.Function, String...)}, load reporting and profiling are
+     * configured by the environment of the application context. With profiling enabled, this method waits until all
+     * properties have been loaded.
+     */
+    public static void registerZooKeeperServices(ConfigurableApplicationContext applicationContext, ZooKeeperPrefetch prefetch) {
+        StateExecutor stateExecutor = prefetch.takeStateExecutor();
+        registerStateExecutor(applicationContext, stateExecutor);
+
+        reportInstanceLoad(applicationContext, stateExecutor, prefetch.getServiceNames());
+
+        MutablePropertySources propertySources = applicationContext.getEnvironment().getPropertySources();
+        if (isProfilingEnabled(applicationContext)) {
+            // the profiler wraps the loaded property sources
+            for (ZooKeeperPropertySource eachPropertySource : prefetch.awaitPropertySources()) {
+                propertySources.addLast(profile(applicationContext, eachPropertySource));
+            }
+            return;
+        }
+
+        for (PrefetchedZooKeeperPropertySource eachPropertySource : prefetch.getPropertySources()) {
+            propertySources.addLast(eachPropertySource);
+        }
     }
 
     private static void checkServiceNames(String[] servicesNames) {
@@ -89,11 +138,50 @@ public final class ZooKeeperRegistrationUtils {
         }
     }
 
-    private static void registerService(StateExecutor stateExecutor, String serviceName) {
-        stateExecutor.executeState(new RegisterInstanceZooKeeperState(serviceName));
+    private static boolean isProfilingEnabled(ConfigurableApplicationContext applicationContext) {
+        return Boolean.parseBoolean(applicationContext.getEnvironment().getProperty(PropertyAccessProfiler.PROP_ENABLED));
+    }
+
+    private static ZooKeeperPropertySource profile(ConfigurableApplicationContext applicationContext,
+            ZooKeeperPropertySource propertySource) {
+        if (!isProfilingEnabled(applicationContext)) {
+            return propertySource;
+        }
+
+        ConfigurableEnvironment environment = applicationContext.getEnvironment();
+        int hotPropertyCount = environment.getProperty(PropertyAccessProfiler.PROP_HOT_PROPERTIES, Integer.class,
+            PropertyAccessProfiler.DEFAULT_HOT_PROPERTIES);
+        ProfilingZooKeeperPropertySource result = new ProfilingZooKeeperPropertySource(propertySource, hotPropertyCount);
+
+        // the hot properties are logged when the application shuts down
+        PropertyAccessProfiler profiler = result.getProfiler();
+        profiler.register();
+        applicationContext.addApplicationListener((ContextClosedEvent event) -> profiler.close());
+
+        return result;
+    }
+
+    private static void registerServices(StateExecutor stateExecutor, String... serviceNames) {
+        stateExecutor.executeState(new RegisterInstancesZooKeeperState(serviceNames));
     }
 
     private static void registerStateExecutor(ConfigurableApplicationContext applicationContext, StateExecutor stateExecutor) {
         applicationContext.getBeanFactory().registerSingleton(stateExecutor.getClass().getName(), stateExecutor);
     }
+
+    private static void reportInstanceLoad(ConfigurableApplicationContext applicationContext, StateExecutor stateExecutor,
+            String... serviceNames) {
+        InstanceLoadMeter loadMeter = new InstanceLoadMeter();
+        ReportInstanceLoadState loadReporter = ReportInstanceLoadState.fromProperties(loadMeter,
+            applicationContext.getEnvironment()::getProperty, serviceNames);
+        if (loadReporter == null) {
+            return;
+        }
+
+        // the application records its requests with the meter
+        applicationContext.getBeanFactory().registerSingleton(loadMeter.getClass().getName(), loadMeter);
+        applicationContext.addApplicationListener((ContextClosedEvent event) -> loadReporter.close());
+
+        stateExecutor.executeState(loadReporter);
+    }
 }
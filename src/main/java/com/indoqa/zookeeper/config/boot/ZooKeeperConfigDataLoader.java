@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Indoqa Software Design und Beratung GmbH (Indoqa) under
+ * one or more contributor license agreements. See the NOTICE file distributed
+ * with this work for additional information regarding copyright ownership.
+ * Indoqa licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.indoqa.zookeeper.config.boot;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.commons.logging.Log;
+import org.springframework.boot.context.config.ConfigData;
+import org.springframework.boot.context.config.ConfigDataLoader;
+import org.springframework.boot.context.config.ConfigDataLoaderContext;
+import org.springframework.boot.logging.DeferredLogFactory;
+import org.springframework.core.env.PropertySource;
+
+import com.indoqa.zookeeper.StateExecutor;
+import com.indoqa.zookeeper.config.ZooKeeperPropertySource;
+import com.indoqa.zookeeper.config.utils.ZooKeeperRegistrationException;
+
+/**
+ * Loads all base paths of a {@link ZooKeeperConfigDataResource} concurrently over one session. Later base paths take
+ * precedence over earlier ones.
+ */
+public class ZooKeeperConfigDataLoader implements ConfigDataLoader<ZooKeeperConfigDataResource> {
+
+    private final Log log;
+
+    public ZooKeeperConfigDataLoader(DeferredLogFactory logFactory) {
+        this.log = logFactory.getLog(ZooKeeperConfigDataLoader.class);
+    }
+
+    private static ExecutorService createExecutorService(int threads) {
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "zookeeper-config-data");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public ConfigData load(ConfigDataLoaderContext context, ZooKeeperConfigDataResource resource) {
+        long start = System.nanoTime();
+
+        List<String> basePaths = resource.getBasePaths();
+        ExecutorService executorService = createExecutorService(basePaths.size());
+
+        try (StateExecutor stateExecutor = new StateExecutor(resource.getConnectString(), resource.getSessionTimeout())) {
+            List<CompletableFuture<PropertySource<?>>> futures = new ArrayList<>(basePaths.size());
+            for (String eachBasePath : basePaths) {
+                futures.add(CompletableFuture.supplyAsync(() -> this.loadPropertySource(stateExecutor, resource, eachBasePath),
+                    executorService));
+            }
+
+            List<PropertySource<?>> propertySources = new ArrayList<>(futures.size());
+            for (CompletableFuture<PropertySource<?>> eachFuture : futures) {
+                propertySources.add(eachFuture.join());
+            }
+
+            this.log.info("Loaded ZooKeeper properties from " + basePaths.size() + " base path(s) in "
+                + (System.nanoTime() - start) / 1_000_000 + " ms.");
+            return new ConfigData(propertySources);
+        } catch (CompletionException e) {
+            throw new ZooKeeperRegistrationException("Could not load properties from " + resource + ".", e.getCause());
+        } finally {
+            executorService.shutdownNow();
+
+            // the second session of hedged reads is only needed while the properties are loaded
+            if (resource.getHedgedReads() != null) {
+                resource.getHedgedReads().close();
+            }
+        }
+    }
+
+    private PropertySource<?> loadPropertySource(StateExecutor stateExecutor, ZooKeeperConfigDataResource resource,
+            String basePath) {
+        long start = System.nanoTime();
+
+        ZooKeeperPropertySource result = new ZooKeeperPropertySource(stateExecutor, basePath, resource.getRequestPolicy(),
+            resource.getPropertyFilter(), resource.getReadDeadline(), resource.getHedgedReads());
+
+        this.log.info("Loaded " + result.getSource().size() + " property value(s) at '" + basePath + "' in "
+            + (System.nanoTime() - start) / 1_000_000 + " ms.");
+        return result;
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Indoqa Software Design und Beratung GmbH (Indoqa) under
+ * one or more contributor license agreements. See the NOTICE file distributed
+ * with this work for additional information regarding copyright ownership.
+ * Indoqa licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.indoqa.zookeeper.config.boot;
+
+import static com.indoqa.zookeeper.config.ZooKeeperRegistrationUtils.*;
+import static org.springframework.util.StringUtils.hasText;
+import static org.springframework.util.StringUtils.tokenizeToStringArray;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+import org.springframework.boot.context.config.ConfigDataLocation;
+import org.springframework.boot.context.config.ConfigDataLocationResolver;
+import org.springframework.boot.context.config.ConfigDataLocationResolverContext;
+import org.springframework.boot.context.properties.bind.Binder;
+
+import com.indoqa.zookeeper.config.utils.HedgedReads;
+import com.indoqa.zookeeper.config.utils.PropertyFilter;
+import com.indoqa.zookeeper.config.utils.ReadDeadline;
+import com.indoqa.zookeeper.config.utils.ZooKeeperRegistrationException;
+import com.indoqa.zookeeper.config.utils.ZooKeeperRequestPolicy;
+
+/**
+ * Resolves <code>spring.config.import=zookeeper:/svc-a/properties;/svc-b/properties</code> into one
+ * {@link ZooKeeperConfigDataResource}, so that all base paths are loaded concurrently over one session. Spring Boot splits
+ * <code>spring.config.import</code> at commas itself, so base paths within one import are separated by semicolons.
+ * The connection is configured by the properties <code>zookeeper.connect-string</code> and
+ * <code>zookeeper.session-timeout</code>, reads are limited and retried according to the <code>zookeeper.rate-limit.*</code>
+ * and <code>zookeeper.retry.*</code> properties. The <code>zookeeper.properties.*</code>, <code>zookeeper.deadline.*</code>
+ * and <code>zookeeper.hedged-reads.*</code> properties apply as well.
+ * <p>
+ * Load reporting and profiling are not supported, because there is no application context while config data is loaded. They
+ * are configured by {@link com.indoqa.zookeeper.config.ZooKeeperRegistrationUtils}.
+ */
+public class ZooKeeperConfigDataLocationResolver implements ConfigDataLocationResolver<ZooKeeperConfigDataResource> {
+
+    public static final String PREFIX = "zookeeper:";
+
+    private static final String PATH_DELIMITERS = ";,";
+
+    private static List<String> getBasePaths(ConfigDataLocation location) {
+        String[] basePaths = tokenizeToStringArray(location.getNonPrefixedValue(PREFIX), PATH_DELIMITERS);
+        if (basePaths.length == 0) {
+            throw new ZooKeeperRegistrationException("The location '" + location + "' does not contain any base path.");
+        }
+
+        return List.of(basePaths);
+    }
+
+    @Override
+    public boolean isResolvable(ConfigDataLocationResolverContext context, ConfigDataLocation location) {
+        return location.hasPrefix(PREFIX);
+    }
+
+    @Override
+    public List<ZooKeeperConfigDataResource> resolve(ConfigDataLocationResolverContext context, ConfigDataLocation location) {
+        Binder binder = context.getBinder();
+
+        String connectString = binder.bind(PROP_ZK_CONNECT_STRING, String.class).orElse(null);
+        if (!hasText(connectString)) {
+            if (location.isOptional()) {
+                return Collections.emptyList();
+            }
+
+            throw new ZooKeeperRegistrationException(
+                "The property '" + PROP_ZK_CONNECT_STRING + "' is not set or empty, but is required to import '" + location + "'.");
+        }
+
+        int sessionTimeout = binder.bind(PROP_ZK_SESSION_TIMEOUT, Integer.class).orElse(DEFAULT_SESSION_TIMEOUT);
+        Function<String, String> properties = name -> binder.bind(name, String.class).orElse(null);
+
+        return List.of(new ZooKeeperConfigDataResource(connectString, sessionTimeout, getBasePaths(location),
+            ZooKeeperRequestPolicy.fromProperties(properties), PropertyFilter.fromProperties(properties),
+            ReadDeadline.fromProperties(properties), HedgedReads.fromProperties(connectString, sessionTimeout, properties),
+            location.isOptional()));
+    }
+}
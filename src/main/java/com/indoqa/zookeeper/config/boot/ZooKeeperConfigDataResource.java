@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Indoqa Software Design und Beratung GmbH (Indoqa) under
+ * one or more contributor license agreements. See the NOTICE file distributed
+ * with this work for additional information regarding copyright ownership.
+ * Indoqa licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.indoqa.zookeeper.config.boot;
+
+import java.util.List;
+import java.util.Objects;
+
+import org.springframework.boot.context.config.ConfigDataResource;
+
+import com.indoqa.zookeeper.config.utils.HedgedReads;
+import com.indoqa.zookeeper.config.utils.PropertyFilter;
+import com.indoqa.zookeeper.config.utils.ReadDeadline;
+import com.indoqa.zookeeper.config.utils.ZooKeeperRequestPolicy;
+
+/**
+ * The base paths of one <code>zookeeper:</code> import, loaded together over a single session, and the settings for loading
+ * them.
+ */
+public class ZooKeeperConfigDataResource extends ConfigDataResource {
+
+    private final String connectString;
+    private final int sessionTimeout;
+    private final List<String> basePaths;
+    private final ZooKeeperRequestPolicy requestPolicy;
+    private final PropertyFilter propertyFilter;
+    private final ReadDeadline readDeadline;
+    private final HedgedReads hedgedReads;
+
+    public ZooKeeperConfigDataResource(String connectString, int sessionTimeout, List<String> basePaths,
+            ZooKeeperRequestPolicy requestPolicy, boolean optional) {
+        this(connectString, sessionTimeout, basePaths, requestPolicy, PropertyFilter.getDefault(), ReadDeadline.getDefault(),
+            null, optional);
+    }
+
+    /**
+     * @param hedgedReads The {@link HedgedReads} for loading the properties or <code>null</code>. Its second session is closed
+     *            after the properties have been loaded.
+     */
+    public ZooKeeperConfigDataResource(String connectString, int sessionTimeout, List<String> basePaths,
+            ZooKeeperRequestPolicy requestPolicy, PropertyFilter propertyFilter, ReadDeadline readDeadline,
+            HedgedReads hedgedReads, boolean optional) {
+        super(optional);
+
+        this.connectString = connectString;
+        this.sessionTimeout = sessionTimeout;
+        this.basePaths = List.copyOf(basePaths);
+        this.requestPolicy = requestPolicy;
+        this.propertyFilter = propertyFilter;
+        this.readDeadline = readDeadline;
+        this.hedgedReads = hedgedReads;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+
+        if (obj == null || this.getClass() != obj.getClass()) {
+            return false;
+        }
+
+        ZooKeeperConfigDataResource other = (ZooKeeperConfigDataResource) obj;
+        return this.connectString.equals(other.connectString) && this.basePaths.equals(other.basePaths);
+    }
+
+    public List<String> getBasePaths() {
+        return this.basePaths;
+    }
+
+    public String getConnectString() {
+        return this.connectString;
+    }
+
+    public HedgedReads getHedgedReads() {
+        return this.hedgedReads;
+    }
+
+    public PropertyFilter getPropertyFilter() {
+        return this.propertyFilter;
+    }
+
+    public ReadDeadline getReadDeadline() {
+        return this.readDeadline;
+    }
+
+    public ZooKeeperRequestPolicy getRequestPolicy() {
+        return this.requestPolicy;
+    }
+
+    public int getSessionTimeout() {
+        return this.sessionTimeout;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.connectString, this.basePaths);
+    }
+
+    @Override
+    public String toString() {
+        return "zookeeper:" + this.connectString + this.basePaths;
+    }
+}
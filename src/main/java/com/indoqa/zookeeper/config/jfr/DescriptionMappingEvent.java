@@ -0,0 +1,67 @@
+/*
+ * Licensed to the Indoqa Software Design und Beratung GmbH (Indoqa) under
+ * one or more contributor license agreements. See the NOTICE file distributed
+ * with this work for additional information regarding copyright ownership.
+ * Indoqa licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.indoqa.zookeeper.config.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Reading or writing one service description by reflection. The duration includes all ZooKeeper requests of the mapping,
+ * which are recorded as {@link ZooKeeperOperationEvent}s.
+ */
+@Name("com.indoqa.zookeeper.config.DescriptionMapping")
+@Label("Description Mapping")
+@Category({"Indoqa", "ZooKeeper Config"})
+@Description("Reading or writing a service description by reflection")
+@StackTrace(false)
+public final class DescriptionMappingEvent extends Event {
+
+    @Label("Service Id")
+    private String serviceId;
+
+    @Label("Description Class")
+    private Class<?> descriptionClass;
+
+    @Label("Write")
+    @Description("Whether the description was written instead of read")
+    private boolean write;
+
+    public static DescriptionMappingEvent startRead(String serviceId, Class<?> descriptionClass) {
+        return start(serviceId, descriptionClass, false);
+    }
+
+    public static DescriptionMappingEvent startWrite(String serviceId, Class<?> descriptionClass) {
+        return start(serviceId, descriptionClass, true);
+    }
+
+    private static DescriptionMappingEvent start(String serviceId, Class<?> descriptionClass, boolean write) {
+        DescriptionMappingEvent result = new DescriptionMappingEvent();
+
+        if (result.isEnabled()) {
+            result.serviceId = serviceId;
+            result.descriptionClass = descriptionClass;
+            result.write = write;
+            result.begin();
+        }
+
+        return result;
+    }
+}
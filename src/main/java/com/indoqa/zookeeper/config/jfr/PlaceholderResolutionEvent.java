@@ -0,0 +1,69 @@
+/*
+ * Licensed to the Indoqa Software Design und Beratung GmbH (Indoqa) under
+ * one or more contributor license agreements. See the NOTICE file distributed
+ * with this work for additional information regarding copyright ownership.
+ * Indoqa licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.indoqa.zookeeper.config.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * The resolution of one placeholder in a property value. Placeholders that were already resolved while reading the same
+ * configuration are marked as cached.
+ */
+@Name("com.indoqa.zookeeper.config.PlaceholderResolution")
+@Label("Placeholder Resolution")
+@Category({"Indoqa", "ZooKeeper Config"})
+@Description("The resolution of a placeholder in a property value")
+@StackTrace(false)
+public final class PlaceholderResolutionEvent extends Event {
+
+    @Label("Placeholder")
+    private String placeholder;
+
+    @Label("Cached")
+    private boolean cached;
+
+    @Label("Resolved")
+    @Description("Whether the placeholder has a value")
+    private boolean resolved;
+
+    /**
+     * Start recording the resolution of the given placeholder. Call {@link #resolved(boolean, String)} once it is resolved.
+     * Nothing is recorded if the event is disabled.
+     */
+    public static PlaceholderResolutionEvent start(String placeholder) {
+        PlaceholderResolutionEvent result = new PlaceholderResolutionEvent();
+
+        if (result.isEnabled()) {
+            result.placeholder = placeholder;
+            result.begin();
+        }
+
+        return result;
+    }
+
+    public void resolved(boolean wasCached, String value) {
+        if (this.isEnabled()) {
+            this.cached = wasCached;
+            this.resolved = value != null;
+            this.commit();
+        }
+    }
+}
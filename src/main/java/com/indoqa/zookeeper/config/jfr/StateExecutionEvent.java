@@ -0,0 +1,72 @@
+/*
+ * Licensed to the Indoqa Software Design und Beratung GmbH (Indoqa) under
+ * one or more contributor license agreements. See the NOTICE file distributed
+ * with this work for additional information regarding copyright ownership.
+ * Indoqa licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.indoqa.zookeeper.config.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import org.apache.zookeeper.KeeperException;
+
+/**
+ * The execution of the <code>onStart</code> method of a state of this library. States that keep running after
+ * <code>onStart</code>, e.g. watches, are only recorded until their initial read is completed.
+ */
+@Name("com.indoqa.zookeeper.config.StateExecution")
+@Label("State Execution")
+@Category({"Indoqa", "ZooKeeper Config"})
+@Description("The execution of a ZooKeeper state")
+@StackTrace(false)
+public final class StateExecutionEvent extends Event {
+
+    @Label("State Class")
+    private Class<?> stateClass;
+
+    /**
+     * Record the execution of the given state while running <code>action</code>. The event is committed even if
+     * <code>action</code> fails. Nothing is recorded if the event is disabled.
+     */
+    public static void record(Object state, Action action) throws KeeperException {
+        StateExecutionEvent event = start(state);
+
+        try {
+            action.run();
+        } finally {
+            event.commit();
+        }
+    }
+
+    private static StateExecutionEvent start(Object state) {
+        StateExecutionEvent result = new StateExecutionEvent();
+
+        if (result.isEnabled()) {
+            result.stateClass = state.getClass();
+            result.begin();
+        }
+
+        return result;
+    }
+
+    @FunctionalInterface
+    public interface Action {
+
+        void run() throws KeeperException;
+    }
+}
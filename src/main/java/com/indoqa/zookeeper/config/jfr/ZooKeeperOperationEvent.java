@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Indoqa Software Design und Beratung GmbH (Indoqa) under
+ * one or more contributor license agreements. See the NOTICE file distributed
+ * with this work for additional information regarding copyright ownership.
+ * Indoqa licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.indoqa.zookeeper.config.jfr;
+
+import java.util.List;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.OpResult.GetDataResult;
+
+/**
+ * One request to ZooKeeper. The duration of the event is the latency of the request, including the time spent waiting for a
+ * hedged request. Retries of the same operation are recorded as separate events. A <code>multi</code> request is recorded as one
+ * event with the path of its first operation.
+ */
+@Name("com.indoqa.zookeeper.config.ZooKeeperOperation")
+@Label("ZooKeeper Operation")
+@Category({"Indoqa", "ZooKeeper Config"})
+@Description("A request to ZooKeeper with its path, payload and latency")
+@StackTrace(false)
+public final class ZooKeeperOperationEvent extends Event {
+
+    @Label("Operation")
+    private String operation;
+
+    @Label("Path")
+    private String path;
+
+    @Label("Bytes")
+    @Description("The data sent and received, for children the length of their names")
+    @DataAmount
+    private long bytes;
+
+    @Label("Error")
+    @Description("The error code if the request failed")
+    private String error;
+
+    /**
+     * Record the request performed by <code>request</code>. Nothing is recorded if the event is disabled.
+     *
+     * @param requestBytes The number of bytes sent, e.g. the data of a <code>setData</code> request.
+     */
+    public static <T> T record(String operation, String path, int requestBytes, Request<T> request) throws KeeperException {
+        ZooKeeperOperationEvent event = start(operation, path);
+
+        try {
+            T result = request.invoke();
+            event.succeeded(requestBytes, result);
+            return result;
+        } catch (KeeperException e) {
+            event.failed(e);
+            throw e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for ZooKeeper.", e);
+        }
+    }
+
+    private static long getSize(Object response) {
+        if (response instanceof byte[]) {
+            return ((byte[]) response).length;
+        }
+
+        if (response instanceof List) {
+            long result = 0;
+            for (Object eachElement : (List<?>) response) {
+                // the names of children or the results of a multi
+                result += eachElement instanceof String ? ((String) eachElement).length() : getSize(eachElement);
+            }
+            return result;
+        }
+
+        if (response instanceof GetDataResult) {
+            return getSize(((GetDataResult) response).getData());
+        }
+
+        return 0;
+    }
+
+    private static ZooKeeperOperationEvent start(String operation, String path) {
+        ZooKeeperOperationEvent result = new ZooKeeperOperationEvent();
+
+        if (result.isEnabled()) {
+            result.operation = operation;
+            result.path = path;
+            result.begin();
+        }
+
+        return result;
+    }
+
+    private void failed(KeeperException exception) {
+        if (this.isEnabled()) {
+            this.error = String.valueOf(exception.code());
+            this.commit();
+        }
+    }
+
+    private void succeeded(int requestBytes, Object response) {
+        if (this.isEnabled()) {
+            this.bytes = requestBytes + getSize(response);
+            this.commit();
+        }
+    }
+
+    @FunctionalInterface
+    public interface Request<T> {
+
+        T invoke() throws KeeperException, InterruptedException;
+    }
+}
@@ -16,10 +16,28 @@
  */
 package com.indoqa.zookeeper.config.model;
 
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import com.indoqa.zookeeper.config.utils.NotStored;
+import com.indoqa.zookeeper.config.utils.ReflectionHelper;
 
 public abstract class AbstractServiceDescription {
 
@@ -29,10 +47,139 @@ public abstract class AbstractServiceDescription {
     private Map<String, String> properties = new HashMap<>();
     private Map<String, ServiceInstance> instances = new HashMap<>();
 
+    @NotStored
+    private volatile boolean frozen;
+
+    private static void freezeFields(Object object, Set<Object> visited) {
+        Class<?> currentClass = object.getClass();
+        while (currentClass != null) {
+            for (Field eachDeclaredField : currentClass.getDeclaredFields()) {
+                if (Modifier.isStatic(eachDeclaredField.getModifiers()) || !ReflectionHelper.isStoredField(eachDeclaredField)) {
+                    continue;
+                }
+
+                Object value = ReflectionHelper.getFieldValue(eachDeclaredField, object);
+                Object frozenValue = freezeValue(value, visited);
+                if (frozenValue != value) {
+                    ReflectionHelper.setFieldValue(eachDeclaredField, object, frozenValue);
+                }
+            }
+
+            currentClass = currentClass.getSuperclass();
+        }
+    }
+
+    private static Object freezeValue(Object value, Set<Object> visited) {
+        if (value == null || ReflectionHelper.isSimpleType(value.getClass()) || !visited.add(value)) {
+            return value;
+        }
+
+        if (value instanceof AbstractServiceDescription) {
+            ((AbstractServiceDescription) value).freeze();
+            return value;
+        }
+
+        if (value instanceof ServiceInstance) {
+            ((ServiceInstance) value).freeze();
+            return value;
+        }
+
+        if (value instanceof Map) {
+            return ReflectionHelper.getImmutableCopy(freezeValues((Map<?, ?>) value, visited));
+        }
+
+        if (value instanceof Collection) {
+            return ReflectionHelper.getImmutableCopy(freezeValues((Collection<?>) value, visited));
+        }
+
+        if (value.getClass().isArray()) {
+            if (!value.getClass().getComponentType().isPrimitive()) {
+                for (int i = 0; i < Array.getLength(value); i++) {
+                    Array.set(value, i, freezeValue(Array.get(value, i), visited));
+                }
+            }
+            return value;
+        }
+
+        if (!value.getClass().getName().startsWith("java.")) {
+            freezeFields(value, visited);
+        }
+        return value;
+    }
+
+    /**
+     * @return A mutable copy of the same kind as <code>collection</code> with all elements frozen.
+     */
+    private static Collection<Object> freezeValues(Collection<?> collection, Set<Object> visited) {
+        Collection<Object> result;
+        if (collection instanceof SortedSet) {
+            @SuppressWarnings("unchecked")
+            SortedSet<Object> sortedSet = (SortedSet<Object>) collection;
+            result = new TreeSet<>(sortedSet.comparator());
+        } else if (collection instanceof LinkedHashSet) {
+            result = new LinkedHashSet<>();
+        } else if (collection instanceof Set) {
+            result = new HashSet<>();
+        } else {
+            result = new ArrayList<>(collection.size());
+        }
+
+        for (Object eachElement : collection) {
+            result.add(freezeValue(eachElement, visited));
+        }
+
+        return result;
+    }
+
+    /**
+     * @return A mutable copy of the same kind as <code>map</code> with all values frozen.
+     */
+    private static Map<Object, Object> freezeValues(Map<?, ?> map, Set<Object> visited) {
+        Map<Object, Object> result;
+        if (map instanceof SortedMap) {
+            @SuppressWarnings("unchecked")
+            SortedMap<Object, Object> sortedMap = (SortedMap<Object, Object>) map;
+            result = new TreeMap<>(sortedMap.comparator());
+        } else if (map instanceof LinkedHashMap) {
+            result = new LinkedHashMap<>();
+        } else {
+            result = new HashMap<>();
+        }
+
+        for (Entry<?, ?> eachEntry : map.entrySet()) {
+            result.put(eachEntry.getKey(), freezeValue(eachEntry.getValue(), visited));
+        }
+
+        return result;
+    }
+
     public void addInstance(ServiceInstance instance) {
+        this.checkNotFrozen();
         this.instances.put(instance.getName(), instance);
     }
 
+    /**
+     * Make this service description read-only, so that it can be shared between threads without copying or locking. The
+     * stored fields (including those of subclasses) are frozen recursively: maps and collections are replaced by compact,
+     * immutable copies of their frozen elements, nested service descriptions and instances are frozen and all setters of this
+     * class reject further changes. Subclasses must call {@link #checkNotFrozen()} in their own setters.
+     * <p>
+     * Arrays and nested objects of other classes cannot reject changes. Their elements and fields are frozen as well, but
+     * arrays, mutable JDK values like {@link java.util.Date} and the setters of nested classes stay writable. Subclasses that
+     * are shared should return copies of such values or code reading a shared description must not modify them.
+     */
+    public final void freeze() {
+        if (this.frozen) {
+            return;
+        }
+
+        Set<Object> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+        visited.add(this);
+        freezeFields(this, visited);
+
+        this.frozen = true;
+    }
+
     public final String getDescription() {
         return this.description;
     }
@@ -57,6 +204,10 @@ public abstract class AbstractServiceDescription {
         return Optional.ofNullable(this.properties.get(propertyName));
     }
 
+    public final boolean isFrozen() {
+        return this.frozen;
+    }
+
     public void onRead() {
         if (this.instances == null) {
             return;
@@ -68,26 +219,38 @@ public abstract class AbstractServiceDescription {
     }
 
     public final void setDescription(String description) {
+        this.checkNotFrozen();
         this.description = description;
     }
 
     public final void setId(String id) {
+        this.checkNotFrozen();
         this.id = id;
     }
 
     public final void setInstances(Map<String, ServiceInstance> instances) {
+        this.checkNotFrozen();
         this.instances = instances;
     }
 
     public final void setName(String name) {
+        this.checkNotFrozen();
         this.name = name;
     }
 
     public final void setProperties(Map<String, String> properties) {
+        this.checkNotFrozen();
         this.properties = properties;
     }
 
     public final void setProperty(String propertyName, String propertyValue) {
+        this.checkNotFrozen();
         this.properties.put(propertyName, propertyValue);
     }
+
+    protected final void checkNotFrozen() {
+        if (this.frozen) {
+            throw new IllegalStateException("The service description '" + this.id + "' is frozen and cannot be modified.");
+        }
+    }
 }
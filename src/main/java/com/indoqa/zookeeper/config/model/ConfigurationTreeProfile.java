@@ -0,0 +1,437 @@
+/*
+ * Licensed to the Indoqa Software Design und Beratung GmbH (Indoqa) under
+ * one or more contributor license agreements. See the NOTICE file distributed
+ * with this work for additional information regarding copyright ownership.
+ * Indoqa licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.indoqa.zookeeper.config.model;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+
+/**
+ * The shape of a configuration tree: how many nodes it has, how deep and how large they are, which placeholders they use
+ * and what reading the tree costs. The costs are estimated for the sequential reads of <code>ReadConfigurationState</code>
+ * and <code>ReadServiceDescriptionsState</code>, where every request takes one round trip. Bytes count the paths, child
+ * names and values that are transferred, but neither node statistics nor protocol overhead.
+ * <p>
+ * <code>ReadConfigurationState</code> walks the tree unless snapshots are enabled explicitly, so there are two estimates for
+ * it: the walk, which is also the cost whenever a snapshot is missing or stale, and reading a current snapshot.
+ */
+public final class ConfigurationTreeProfile {
+
+    private static final String SERVICE_DESCRIPTION_ROOT = "/";
+    private static final int[] VALUE_SIZE_LIMITS = {0, 64, 256, 1024, 4096, 16384, 65536};
+    // the parent of all snapshot nodes and the default chunk size of PublishConfigurationSnapshotState
+    private static final String SNAPSHOTS_PATH = "/.configuration-snapshots/";
+    private static final int SNAPSHOT_CHUNK_SIZE = 512 * 1024;
+    // the format, generation, publisher, chunk count and node count
+    private static final int SNAPSHOT_HEADER_BYTES = 4 + 8 + 8 + 4 + 4;
+    // the response limit and the result overhead per node of validating a snapshot in ReadConfigurationState
+    private static final long MAX_VALIDATION_BYTES = 512 * 1024;
+    private static final int VALIDATION_RESULT_BYTES = 128;
+
+    private final String rootPath;
+    private final Map<Integer, Integer> depthCounts = new TreeMap<>();
+    private final int[] valueSizeCounts = new int[VALUE_SIZE_LIMITS.length + 1];
+    private final Map<String, Subtree> subtrees = new HashMap<>();
+    private final Map<String, Integer> placeholderReferences = new TreeMap<>();
+    private final Map<String, Integer> placeholderValueSizes = new TreeMap<>();
+
+    private int nodeCount;
+    private int leafCount;
+    private int maxDepth = -1;
+    private long valueBytes;
+    private int placeholderReferenceCount;
+    private int walkRoundTrips;
+
+    private long configurationRoundTrips;
+    private long configurationBytes;
+    private long serviceDescriptionRoundTrips;
+    private long serviceDescriptionBytes;
+    private long snapshotHeaderBytes = SNAPSHOT_HEADER_BYTES;
+    private long snapshotPropertiesBytes = 4;
+    private long snapshotValidationBytes;
+    private int snapshotValidationBatches;
+    private long snapshotBatchBytes;
+
+    public ConfigurationTreeProfile(String rootPath) {
+        this.rootPath = rootPath;
+    }
+
+    private static int getByteCount(Collection<String> values) {
+        int result = 0;
+
+        for (String eachValue : values) {
+            result += getByteCount(eachValue);
+        }
+
+        return result;
+    }
+
+    private static int getByteCount(String value) {
+        return value.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    private static String getValueSizeLabel(int index) {
+        if (index == 0) {
+            return "0 B";
+        }
+
+        if (index == VALUE_SIZE_LIMITS.length) {
+            return "> " + VALUE_SIZE_LIMITS[index - 1] + " B";
+        }
+
+        return "<= " + VALUE_SIZE_LIMITS[index] + " B";
+    }
+
+    /**
+     * Add a node of the tree.
+     *
+     * @param depth The distance from the root path, which has depth <code>0</code>.
+     * @param placeholderPaths The paths of the placeholders in the value of this node.
+     */
+    public void addNode(String path, int depth, int valueSize, List<String> children, Collection<String> placeholderPaths) {
+        this.nodeCount++;
+        if (children.isEmpty()) {
+            this.leafCount++;
+        }
+        this.valueBytes += valueSize;
+        this.maxDepth = Math.max(this.maxDepth, depth);
+        this.depthCounts.merge(depth, 1, Integer::sum);
+        this.valueSizeCounts[this.getValueSizeIndex(valueSize)]++;
+
+        if (depth > 0) {
+            String name = path.substring(this.rootPath.length()).replaceFirst("^/", "").split("/", 2)[0];
+            Subtree subtree = this.subtrees.computeIfAbsent(name, Subtree::new);
+            subtree.nodeCount++;
+            subtree.valueBytes += valueSize;
+        }
+
+        for (String eachPlaceholderPath : new LinkedHashSet<>(placeholderPaths)) {
+            this.placeholderReferences.merge(eachPlaceholderPath, 1, Integer::sum);
+        }
+        this.placeholderReferenceCount += placeholderPaths.size();
+
+        this.addConfigurationCost(path, depth, valueSize, children);
+        this.addSnapshotCost(path, depth, valueSize);
+        if (this.isServiceDescriptionRoot()) {
+            this.addServiceDescriptionCost(path, depth, valueSize, children);
+        }
+    }
+
+    /**
+     * Add the target of a placeholder.
+     *
+     * @param valueSize The size of the value at <code>path</code> or <code>-1</code> if the node does not exist.
+     */
+    public void addPlaceholderTarget(String path, int valueSize) {
+        this.placeholderValueSizes.put(path, valueSize);
+    }
+
+    /**
+     * @return The estimated payload bytes that <code>ReadConfigurationState</code> transfers to read all properties below the
+     *         root path by walking the tree.
+     */
+    public long getConfigurationBytes() {
+        long result = this.configurationBytes;
+
+        for (Entry<String, Integer> eachEntry : this.placeholderValueSizes.entrySet()) {
+            result += getByteCount(eachEntry.getKey()) + Math.max(eachEntry.getValue(), 0);
+        }
+
+        return result;
+    }
+
+    /**
+     * @return The estimated round trips of <code>ReadConfigurationState</code> to read all properties below the root path
+     *         by walking the tree. This is the default and also happens with snapshots enabled, if the snapshot is missing or
+     *         stale. Each distinct placeholder is resolved once.
+     * @see #getSnapshotRoundTrips()
+     */
+    public long getConfigurationRoundTrips() {
+        return this.configurationRoundTrips + this.placeholderValueSizes.size();
+    }
+
+    /**
+     * @return The number of nodes per depth, sorted by depth.
+     */
+    public Map<Integer, Integer> getDepthCounts() {
+        return Collections.unmodifiableMap(this.depthCounts);
+    }
+
+    /**
+     * @return The direct children of the root path with the most bytes of values in their subtrees, largest first.
+     */
+    public List<Subtree> getLargestSubtrees(int limit) {
+        List<Subtree> result = new ArrayList<>(this.subtrees.values());
+
+        result.sort(Comparator.comparingLong(Subtree::getValueBytes)
+            .thenComparingInt(Subtree::getNodeCount)
+            .reversed()
+            .thenComparing(Subtree::getName));
+
+        return result.subList(0, Math.min(limit, result.size()));
+    }
+
+    public int getLeafCount() {
+        return this.leafCount;
+    }
+
+    /**
+     * @return The depth of the deepest node or <code>-1</code> if the root path does not exist.
+     */
+    public int getMaxDepth() {
+        return this.maxDepth;
+    }
+
+    /**
+     * @return The placeholder paths that do not exist.
+     */
+    public List<String> getMissingPlaceholderPaths() {
+        List<String> result = new ArrayList<>();
+
+        for (Entry<String, Integer> eachEntry : this.placeholderValueSizes.entrySet()) {
+            if (eachEntry.getValue() < 0) {
+                result.add(eachEntry.getKey());
+            }
+        }
+
+        return result;
+    }
+
+    public int getNodeCount() {
+        return this.nodeCount;
+    }
+
+    /**
+     * @return The number of nodes that refer to each placeholder path, sorted by path.
+     */
+    public Map<String, Integer> getPlaceholderFanOut() {
+        return Collections.unmodifiableMap(this.placeholderReferences);
+    }
+
+    /**
+     * @return The number of placeholders in all values, including repeated ones.
+     */
+    public int getPlaceholderReferenceCount() {
+        return this.placeholderReferenceCount;
+    }
+
+    /**
+     * @return The size of the value at a placeholder path, <code>-1</code> if the node does not exist or <code>null</code> if
+     *         the path was not resolved.
+     */
+    public Integer getPlaceholderValueSize(String placeholderPath) {
+        return this.placeholderValueSizes.get(placeholderPath);
+    }
+
+    public String getRootPath() {
+        return this.rootPath;
+    }
+
+    /**
+     * @return The estimated payload bytes that <code>ReadServiceDescriptionsState</code> transfers or <code>-1</code> if the
+     *         root path is not the root of the service descriptions.
+     */
+    public long getServiceDescriptionBytes() {
+        if (!this.isServiceDescriptionRoot()) {
+            return -1;
+        }
+
+        return this.serviceDescriptionBytes;
+    }
+
+    /**
+     * @return The estimated round trips of <code>ReadServiceDescriptionsState</code> or <code>-1</code> if the root path is not
+     *         the root of the service descriptions. The type of a service description is not known here, so every inner node
+     *         is counted as a map or collection whose children are listed.
+     */
+    public long getServiceDescriptionRoundTrips() {
+        if (!this.isServiceDescriptionRoot()) {
+            return -1;
+        }
+
+        return this.serviceDescriptionRoundTrips;
+    }
+
+    /**
+     * @return The estimated payload bytes that <code>ReadConfigurationState</code> with snapshots enabled transfers to read a
+     *         current snapshot of the root path. The properties are counted uncompressed, so this is an upper bound.
+     */
+    public long getSnapshotBytes() {
+        long chunkCount = this.getSnapshotChunkCount();
+        long pathBytes = getByteCount(SNAPSHOTS_PATH + URLEncoder.encode(this.rootPath, StandardCharsets.UTF_8));
+
+        return chunkCount * pathBytes + this.snapshotHeaderBytes + this.snapshotPropertiesBytes + this.snapshotValidationBytes;
+    }
+
+    /**
+     * @return The estimated round trips of <code>ReadConfigurationState</code> with snapshots enabled to read a current
+     *         snapshot of the root path published with the default chunk size: reading the snapshot node, validating all
+     *         nodes with batched <code>multi</code> requests and reading each further chunk. Placeholders are already resolved
+     *         in a snapshot. The properties are counted uncompressed, so this is an upper bound.
+     * @see #getConfigurationRoundTrips()
+     */
+    public long getSnapshotRoundTrips() {
+        return this.snapshotValidationBatches + this.getSnapshotChunkCount();
+    }
+
+    public long getValueBytes() {
+        return this.valueBytes;
+    }
+
+    /**
+     * @return The number of nodes per range of value sizes, from empty values to the largest.
+     */
+    public Map<String, Integer> getValueSizeHistogram() {
+        Map<String, Integer> result = new LinkedHashMap<>();
+
+        for (int i = 0; i < this.valueSizeCounts.length; i++) {
+            result.put(getValueSizeLabel(i), this.valueSizeCounts[i]);
+        }
+
+        return result;
+    }
+
+    /**
+     * @return The round trips that were needed to create this profile.
+     */
+    public int getWalkRoundTrips() {
+        return this.walkRoundTrips;
+    }
+
+    public boolean isServiceDescriptionRoot() {
+        return SERVICE_DESCRIPTION_ROOT.equals(this.rootPath);
+    }
+
+    public void setWalkRoundTrips(int walkRoundTrips) {
+        this.walkRoundTrips = walkRoundTrips;
+    }
+
+    @Override
+    public String toString() {
+        return this.rootPath + ": " + this.nodeCount + " node(s), " + this.valueBytes + " byte(s) of values, max depth "
+            + this.maxDepth;
+    }
+
+    private void addConfigurationCost(String path, int depth, int valueSize, List<String> children) {
+        int pathBytes = getByteCount(path);
+
+        // the root is checked with exists, every other node is read with getData, all nodes are listed with getChildren
+        this.configurationRoundTrips += 2;
+        this.configurationBytes += 2 * pathBytes + getByteCount(children);
+        if (depth > 0) {
+            this.configurationBytes += valueSize;
+        }
+    }
+
+    private void addServiceDescriptionCost(String path, int depth, int valueSize, List<String> children) {
+        int pathBytes = getByteCount(path);
+
+        if (depth == 0) {
+            // the service ids are listed once
+            this.serviceDescriptionRoundTrips++;
+            this.serviceDescriptionBytes += pathBytes + getByteCount(children);
+        } else if (depth == 1) {
+            // the root of a service description is checked twice and read as an object, its fields are checked one by one
+            this.serviceDescriptionRoundTrips += 2;
+            this.serviceDescriptionBytes += 2 * pathBytes;
+        } else {
+            // every field is checked with exists, then either read with getData or listed with getChildren
+            this.serviceDescriptionRoundTrips += 2;
+            this.serviceDescriptionBytes += 2 * pathBytes;
+            this.serviceDescriptionBytes += children.isEmpty() ? valueSize : getByteCount(children);
+        }
+    }
+
+    private void addSnapshotCost(String path, int depth, int valueSize) {
+        String relativePath = depth == 0 ? "" : path.substring(this.rootPath.length()).replaceFirst("^/", "");
+
+        if (depth > 0) {
+            // the name and the value of every property with their lengths
+            this.snapshotPropertiesBytes += 4 + getByteCount(relativePath) + 4 + valueSize;
+        }
+
+        // the header records the version of every node, which is read with its value to validate the snapshot
+        this.snapshotHeaderBytes += 4 + getByteCount(relativePath) + 8 + 8 + 4;
+        this.snapshotValidationBytes += getByteCount(path) + valueSize;
+
+        long responseBytes = path.length() + valueSize + VALIDATION_RESULT_BYTES;
+        if (this.snapshotValidationBatches == 0 || this.snapshotBatchBytes + responseBytes > MAX_VALIDATION_BYTES) {
+            this.snapshotValidationBatches++;
+            this.snapshotBatchBytes = 0;
+        }
+        this.snapshotBatchBytes += responseBytes;
+    }
+
+    private long getSnapshotChunkCount() {
+        long remainingBytes = Math.max(0, this.snapshotPropertiesBytes - (SNAPSHOT_CHUNK_SIZE - this.snapshotHeaderBytes));
+        return 1 + (remainingBytes + SNAPSHOT_CHUNK_SIZE - 1) / SNAPSHOT_CHUNK_SIZE;
+    }
+
+    private int getValueSizeIndex(int valueSize) {
+        for (int i = 0; i < VALUE_SIZE_LIMITS.length; i++) {
+            if (valueSize <= VALUE_SIZE_LIMITS[i]) {
+                return i;
+            }
+        }
+
+        return VALUE_SIZE_LIMITS.length;
+    }
+
+    /**
+     * A direct child of the root path together with everything below it.
+     */
+    public static final class Subtree {
+
+        private final String name;
+        private int nodeCount;
+        private long valueBytes;
+
+        private Subtree(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return this.name;
+        }
+
+        /**
+         * @return The number of nodes in this subtree, including its root.
+         */
+        public int getNodeCount() {
+            return this.nodeCount;
+        }
+
+        public long getValueBytes() {
+            return this.valueBytes;
+        }
+
+        @Override
+        public String toString() {
+            return this.name + ": " + this.nodeCount + " node(s), " + this.valueBytes + " byte(s) of values";
+        }
+    }
+}
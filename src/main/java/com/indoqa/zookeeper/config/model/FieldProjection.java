@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Indoqa Software Design und Beratung GmbH (Indoqa) under
+ * one or more contributor license agreements. See the NOTICE file distributed
+ * with this work for additional information regarding copyright ownership.
+ * Indoqa licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.indoqa.zookeeper.config.model;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * Selects the fields that are read from a service description. A projection is created from dotted field paths, e.g.
+ * <code>FieldProjection.of("properties", "instances.sessions")</code>. A path selects the field with all its content, a
+ * longer path only selects the named fields of the nested objects. The fields of values in maps, collections and arrays are
+ * selected by the projection of the field that contains them. Fields that are not selected are neither read nor changed.
+ */
+public final class FieldProjection {
+
+    private static final FieldProjection ALL = new FieldProjection(null);
+
+    // null selects all fields
+    private final Map<String, FieldProjection> fields;
+
+    private FieldProjection(Map<String, FieldProjection> fields) {
+        this.fields = fields;
+    }
+
+    public static FieldProjection all() {
+        return ALL;
+    }
+
+    public static FieldProjection of(Collection<String> paths) {
+        FieldProjection result = new FieldProjection(new HashMap<>());
+
+        for (String eachPath : paths) {
+            result = result.with(eachPath);
+        }
+
+        return result;
+    }
+
+    public static FieldProjection of(String... paths) {
+        return of(Arrays.asList(paths));
+    }
+
+    /**
+     * @return The projection for the fields of the given field's value or <code>null</code> if the field is not selected.
+     */
+    public FieldProjection getFieldProjection(String fieldName) {
+        if (this.isAll()) {
+            return ALL;
+        }
+
+        return this.fields.get(fieldName);
+    }
+
+    public boolean isAll() {
+        return this.fields == null;
+    }
+
+    @Override
+    public String toString() {
+        if (this.isAll()) {
+            return "*";
+        }
+
+        StringBuilder stringBuilder = new StringBuilder("{");
+        for (Entry<String, FieldProjection> eachEntry : this.fields.entrySet()) {
+            if (stringBuilder.length() > 1) {
+                stringBuilder.append(", ");
+            }
+
+            stringBuilder.append(eachEntry.getKey());
+            if (!eachEntry.getValue().isAll()) {
+                stringBuilder.append('.').append(eachEntry.getValue());
+            }
+        }
+        return stringBuilder.append('}').toString();
+    }
+
+    /**
+     * @return A projection that additionally selects the given dotted field path.
+     */
+    public FieldProjection with(String path) {
+        if (this.isAll()) {
+            return this;
+        }
+
+        Map<String, FieldProjection> resultFields = new HashMap<>(this.fields);
+
+        int separatorIndex = path.indexOf('.');
+        if (separatorIndex == -1) {
+            resultFields.put(path, ALL);
+        } else {
+            String fieldName = path.substring(0, separatorIndex);
+            FieldProjection fieldProjection = resultFields.getOrDefault(fieldName, new FieldProjection(new HashMap<>()));
+            resultFields.put(fieldName, fieldProjection.with(path.substring(separatorIndex + 1)));
+        }
+
+        return new FieldProjection(resultFields);
+    }
+}
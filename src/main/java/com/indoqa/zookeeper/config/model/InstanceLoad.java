@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Indoqa Software Design und Beratung GmbH (Indoqa) under
+ * one or more contributor license agreements. See the NOTICE file distributed
+ * with this work for additional information regarding copyright ownership.
+ * Indoqa licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.indoqa.zookeeper.config.model;
+
+/**
+ * The load of one session of a service instance, as published by
+ * {@link com.indoqa.zookeeper.config.states.ReportInstanceLoadState}. A load is stored compactly as
+ * <code>&lt;cpu load&gt;;&lt;in-flight requests&gt;;&lt;requests per second&gt;</code>, e.g. <code>0.42;3;120.5</code>, which
+ * is read with {@link #parse(String)} and written with {@link #toString()}. {@link ServiceInstance} registers the codec with
+ * {@link com.indoqa.zookeeper.config.utils.ValueCodecs}.
+ */
+public final class InstanceLoad {
+
+    private static final char SEPARATOR = ';';
+
+    private final double cpuLoad;
+    private final int inFlightRequests;
+    private final double requestsPerSecond;
+
+    /**
+     * @param cpuLoad The CPU load of the process between <code>0</code> and <code>1</code>.
+     */
+    public InstanceLoad(double cpuLoad, int inFlightRequests, double requestsPerSecond) {
+        this.cpuLoad = Math.round(Math.min(Math.max(cpuLoad, 0), 1) * 1000) / 1000.0;
+        this.inFlightRequests = Math.max(inFlightRequests, 0);
+        this.requestsPerSecond = Math.round(Math.max(requestsPerSecond, 0) * 10) / 10.0;
+    }
+
+    public static InstanceLoad parse(String value) {
+        int firstSeparator = value.indexOf(SEPARATOR);
+        int secondSeparator = value.indexOf(SEPARATOR, firstSeparator + 1);
+        if (firstSeparator == -1 || secondSeparator == -1) {
+            throw new IllegalArgumentException("The value '" + value + "' is not a valid instance load.");
+        }
+
+        return new InstanceLoad(Double.parseDouble(value.substring(0, firstSeparator)),
+            Integer.parseInt(value.substring(firstSeparator + 1, secondSeparator)),
+            Double.parseDouble(value.substring(secondSeparator + 1)));
+    }
+
+    private static boolean differs(double value, double otherValue, double threshold) {
+        return Math.abs(value - otherValue) > threshold * Math.max(Math.max(value, otherValue), 1);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+
+        if (!(obj instanceof InstanceLoad)) {
+            return false;
+        }
+
+        InstanceLoad other = (InstanceLoad) obj;
+        return this.cpuLoad == other.cpuLoad && this.inFlightRequests == other.inFlightRequests
+            && this.requestsPerSecond == other.requestsPerSecond;
+    }
+
+    public double getCpuLoad() {
+        return this.cpuLoad;
+    }
+
+    public int getInFlightRequests() {
+        return this.inFlightRequests;
+    }
+
+    public double getRequestsPerSecond() {
+        return this.requestsPerSecond;
+    }
+
+    @Override
+    public int hashCode() {
+        return Double.hashCode(this.cpuLoad) * 31 * 31 + this.inFlightRequests * 31 + Double.hashCode(this.requestsPerSecond);
+    }
+
+    /**
+     * @param threshold The relative change, e.g. <code>0.1</code> for 10 %. The CPU load is compared absolutely, since it is
+     *            already a fraction. In-flight requests and requests per second are compared relative to the larger value,
+     *            but at least to <code>1</code>.
+     * @return <code>true</code> if any value of this load differs from the other load by more than the threshold.
+     */
+    public boolean isSignificantlyDifferent(InstanceLoad other, double threshold) {
+        return Math.abs(this.cpuLoad - other.cpuLoad) > threshold
+            || differs(this.inFlightRequests, other.inFlightRequests, threshold)
+            || differs(this.requestsPerSecond, other.requestsPerSecond, threshold);
+    }
+
+    @Override
+    public String toString() {
+        return String.valueOf(this.cpuLoad) + SEPARATOR + this.inFlightRequests + SEPARATOR + this.requestsPerSecond;
+    }
+}
@@ -16,17 +16,68 @@
  */
 package com.indoqa.zookeeper.config.model;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
+
 import java.time.Instant;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
 
+import com.indoqa.zookeeper.config.utils.NotStored;
+import com.indoqa.zookeeper.config.utils.ReflectionHelper;
+import com.indoqa.zookeeper.config.utils.ValueCodec;
+import com.indoqa.zookeeper.config.utils.ValueCodecs;
+
 public class ServiceInstance {
 
     private String name;
 
     private Map<String, Instant> sessions = new HashMap<>();
 
+    private Map<String, InstanceLoad> loads = new HashMap<>();
+
+    @NotStored
+    private volatile boolean frozen;
+
+    static {
+        // the loads are stored as the data of a single node each
+        ValueCodecs.register(InstanceLoad.class, new InstanceLoadCodec());
+    }
+
+    /**
+     * Make this instance read-only. The sessions and loads are replaced by immutable copies and all setters reject further
+     * changes. The freeze is shallow, the session start dates and loads are immutable values anyway.
+     */
+    public void freeze() {
+        if (this.frozen) {
+            return;
+        }
+
+        @SuppressWarnings("unchecked")
+        Map<String, Instant> immutableSessions = (Map<String, Instant>) ReflectionHelper.getImmutableCopy(this.sessions);
+        this.sessions = immutableSessions;
+
+        @SuppressWarnings("unchecked")
+        Map<String, InstanceLoad> immutableLoads = (Map<String, InstanceLoad>) ReflectionHelper.getImmutableCopy(this.loads);
+        this.loads = immutableLoads;
+        this.frozen = true;
+    }
+
+    /**
+     * @return The last published load of the given session, if the session publishes its load.
+     */
+    public Optional<InstanceLoad> getLoad(String session) {
+        if (this.loads == null) {
+            return Optional.empty();
+        }
+
+        return Optional.ofNullable(this.loads.get(session));
+    }
+
+    public Map<String, InstanceLoad> getLoads() {
+        return this.loads;
+    }
+
     public String getName() {
         return this.name;
     }
@@ -39,15 +90,51 @@ public class ServiceInstance {
         return Optional.ofNullable(this.sessions.get(session));
     }
 
+    public boolean isFrozen() {
+        return this.frozen;
+    }
+
+    public void setLoad(String session, InstanceLoad load) {
+        this.checkNotFrozen();
+        this.loads.put(session, load);
+    }
+
+    public void setLoads(Map<String, InstanceLoad> loads) {
+        this.checkNotFrozen();
+        this.loads = loads;
+    }
+
     public void setName(String name) {
+        this.checkNotFrozen();
         this.name = name;
     }
 
     public void setSession(String session, Instant startDate) {
+        this.checkNotFrozen();
         this.sessions.put(session, startDate);
     }
 
     public void setSessions(Map<String, Instant> sessions) {
+        this.checkNotFrozen();
         this.sessions = sessions;
     }
+
+    private void checkNotFrozen() {
+        if (this.frozen) {
+            throw new IllegalStateException("The instance '" + this.name + "' is frozen and cannot be modified.");
+        }
+    }
+
+    private static final class InstanceLoadCodec implements ValueCodec<InstanceLoad> {
+
+        @Override
+        public InstanceLoad decode(byte[] data) {
+            return InstanceLoad.parse(new String(data, UTF_8));
+        }
+
+        @Override
+        public byte[] encode(InstanceLoad value) {
+            return value.toString().getBytes(UTF_8);
+        }
+    }
 }
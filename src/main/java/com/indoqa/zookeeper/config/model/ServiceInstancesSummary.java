@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Indoqa Software Design und Beratung GmbH (Indoqa) under
+ * one or more contributor license agreements. See the NOTICE file distributed
+ * with this work for additional information regarding copyright ownership.
+ * Indoqa licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.indoqa.zookeeper.config.model;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The number of live sessions of one service, per host and in total. A summary is created from node statistics only, so
+ * neither the service description nor the session nodes are read.
+ */
+public final class ServiceInstancesSummary {
+
+    private final String serviceId;
+    private final Map<String, Integer> sessionCounts;
+    private final int nodeCount;
+
+    public ServiceInstancesSummary(String serviceId, Map<String, Integer> sessionCounts, int nodeCount) {
+        this.serviceId = serviceId;
+        this.sessionCounts = Collections.unmodifiableMap(new TreeMap<>(sessionCounts));
+        this.nodeCount = nodeCount;
+    }
+
+    /**
+     * @return The number of hosts that have at least one live session.
+     */
+    public int getLiveHostCount() {
+        int result = 0;
+
+        for (int eachSessionCount : this.sessionCounts.values()) {
+            if (eachSessionCount > 0) {
+                result++;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * @return The number of all nodes below the <code>instances</code> node of this service, including the nodes of hosts
+     *         without sessions, or <code>-1</code> if the service has no <code>instances</code> node.
+     */
+    public int getNodeCount() {
+        return this.nodeCount;
+    }
+
+    public String getServiceId() {
+        return this.serviceId;
+    }
+
+    public int getSessionCount() {
+        int result = 0;
+
+        for (int eachSessionCount : this.sessionCounts.values()) {
+            result += eachSessionCount;
+        }
+
+        return result;
+    }
+
+    /**
+     * @return The number of live sessions per host name, sorted by host name. Hosts without sessions are included with
+     *         <code>0</code>.
+     */
+    public Map<String, Integer> getSessionCounts() {
+        return this.sessionCounts;
+    }
+
+    @Override
+    public String toString() {
+        return this.serviceId + ": " + this.getSessionCount() + " session(s) on " + this.getLiveHostCount() + " of "
+            + this.sessionCounts.size() + " host(s)";
+    }
+}
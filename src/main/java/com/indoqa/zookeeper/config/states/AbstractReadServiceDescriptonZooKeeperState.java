@@ -16,152 +16,59 @@
  */
 package com.indoqa.zookeeper.config.states;
 
-import static java.nio.charset.StandardCharsets.UTF_8;
-
-import java.lang.reflect.Array;
-import java.lang.reflect.Field;
-import java.lang.reflect.ParameterizedType;
-import java.lang.reflect.Type;
-import java.util.Collection;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 
 import org.apache.zookeeper.KeeperException;
-import org.apache.zookeeper.KeeperException.NoNodeException;
 
-import com.indoqa.zookeeper.AbstractZooKeeperState;
 import com.indoqa.zookeeper.config.model.AbstractServiceDescription;
-import com.indoqa.zookeeper.config.utils.ReflectionHelper;
+import com.indoqa.zookeeper.config.model.FieldProjection;
+import com.indoqa.zookeeper.config.store.ServiceDescriptionReader;
+import com.indoqa.zookeeper.config.utils.ReadDeadline.Policy;
 
 public abstract class AbstractReadServiceDescriptonZooKeeperState<T extends AbstractServiceDescription>
-        extends AbstractZooKeeperState {
+        extends AbstractReadZooKeeperState {
+
+    private final List<String> missingPaths = new ArrayList<>();
+    private boolean freezeResults;
 
     protected AbstractReadServiceDescriptonZooKeeperState(String name) {
         super(name);
     }
 
-    @SuppressWarnings("unchecked")
-    protected T readServiceDescription(String serviceId, Class<T> resultType) throws KeeperException {
-        this.logger.info("Reading service description '{}' ...", serviceId);
-
-        String path = combinePath("/", serviceId);
-        if (!this.exists(path)) {
-            return null;
-        }
-
-        T result = (T) this.read(path, resultType);
-        if (result.getId() == null) {
-            return null;
-        }
-
-        result.onRead();
-        return result;
+    /**
+     * @param freezeResults If <code>true</code>, each service description is frozen after it has been read, see
+     *            {@link AbstractServiceDescription#freeze()}.
+     */
+    public void setFreezeResults(boolean freezeResults) {
+        this.freezeResults = freezeResults;
     }
 
-    private Object read(String path, Type type) throws KeeperException {
-        if (!this.exists(path)) {
-            return null;
-        }
-
-        if (ReflectionHelper.isSimpleType(type)) {
-            return this.readSimpleValue(path, type);
-        }
-
-        if (ReflectionHelper.isMap(type)) {
-            return this.readMap(path, type);
-        }
-
-        if (ReflectionHelper.isCollection(type)) {
-            return this.readCollection(path, type);
-        }
-
-        if (ReflectionHelper.isArray(type)) {
-            return this.readArray(path, type);
-        }
-
-        return this.readObject(path, type);
+    /**
+     * @return The paths of the fields that could not be read before the deadline with {@link Policy#PARTIAL_RESULTS}.
+     */
+    protected List<String> getMissingPaths() {
+        return this.missingPaths;
     }
 
-    private Object readArray(String path, Type type) throws KeeperException {
-        Class<?> valueType = ((Class<?>) type).getComponentType();
-
-        List<String> children = this.getChildren(path);
-        Object result = Array.newInstance(valueType, children.size());
-
-        int index = 0;
-        for (String eachChild : children) {
-            Object childValue = this.read(combinePath(path, eachChild), valueType);
-            Array.set(result, index, childValue);
-            index++;
-        }
-
-        return result;
+    protected T readServiceDescription(String serviceId, Class<T> resultType) throws KeeperException {
+        return this.readServiceDescription(serviceId, resultType, FieldProjection.all());
     }
 
-    @SuppressWarnings("unchecked")
-    private Object readCollection(String path, Type type) throws KeeperException {
-        Collection<Object> result = (Collection<Object>) ReflectionHelper.createInstance(type);
-
-        Type valueType = ((ParameterizedType) type).getActualTypeArguments()[0];
+    protected T readServiceDescription(String serviceId, Class<T> resultType, FieldProjection projection)
+            throws KeeperException {
+        this.logger.info("Reading service description '{}' ...", serviceId);
 
-        List<String> children = this.getChildren(path);
-        for (String eachChild : children) {
-            Object childValue = this.read(combinePath(path, eachChild), valueType);
-            result.add(childValue);
+        List<String> partialMissingPaths = null;
+        if (this.getReadDeadline().getPolicy() == Policy.PARTIAL_RESULTS) {
+            partialMissingPaths = this.missingPaths;
         }
 
-        return result;
-    }
-
-    @SuppressWarnings("unchecked")
-    private Object readMap(String path, Type type) throws KeeperException {
-        Map<String, Object> result = (Map<String, Object>) ReflectionHelper.createInstance(type);
-
-        Type valueType = ((ParameterizedType) type).getActualTypeArguments()[1];
-
-        List<String> children = this.getChildren(path);
-        for (String eachChild : children) {
-            Object childValue = this.read(combinePath(path, eachChild), valueType);
-            result.put(eachChild, childValue);
+        ServiceDescriptionReader reader = new ServiceDescriptionReader(this.getNodeStore(), partialMissingPaths);
+        T result = reader.read(serviceId, resultType, projection);
+        if (result != null && this.freezeResults) {
+            result.freeze();
         }
-
         return result;
     }
-
-    private Object readObject(String path, Type type) throws KeeperException {
-        this.logger.debug("ReadObject {} {}", path, type.getTypeName());
-        Object result = ReflectionHelper.createInstance(type);
-
-        Class<?> currentClass = result.getClass();
-        while (currentClass != null) {
-            for (Field eachDeclaredField : currentClass.getDeclaredFields()) {
-                String valuePath = combinePath(path, eachDeclaredField.getName());
-                Object value = this.read(valuePath, eachDeclaredField.getGenericType());
-                ReflectionHelper.setFieldValue(eachDeclaredField, result, value);
-            }
-
-            currentClass = currentClass.getSuperclass();
-        }
-
-        return result;
-    }
-
-    private Object readSimpleValue(String path, Type type) throws KeeperException {
-        String serializedvalue = this.readValue(path);
-        return ReflectionHelper.getDeserializedValue(serializedvalue, type);
-    }
-
-    private String readValue(String path) throws KeeperException {
-        try {
-            byte[] data = this.getData(path, null);
-            if (data == null || data.length == 0) {
-                return "";
-            }
-
-            return new String(data, UTF_8);
-        } catch (NoNodeException e) {
-            this.logger.error("Could not find node '{}'.", path, e);
-            return null;
-        }
-    }
 }
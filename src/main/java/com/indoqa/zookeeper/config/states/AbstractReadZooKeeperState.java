@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Indoqa Software Design und Beratung GmbH (Indoqa) under
+ * one or more contributor license agreements. See the NOTICE file distributed
+ * with this work for additional information regarding copyright ownership.
+ * Indoqa licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.indoqa.zookeeper.config.states;
+
+import java.util.List;
+
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.data.Stat;
+
+import com.indoqa.zookeeper.AbstractZooKeeperState;
+import com.indoqa.zookeeper.config.jfr.ZooKeeperOperationEvent;
+import com.indoqa.zookeeper.config.store.NodeStore;
+import com.indoqa.zookeeper.config.store.ZooKeeperNodeStore;
+import com.indoqa.zookeeper.config.utils.HedgedReads;
+import com.indoqa.zookeeper.config.utils.ReadDeadline;
+import com.indoqa.zookeeper.config.utils.ZooKeeperRequestPolicy;
+import com.indoqa.zookeeper.config.utils.ZooKeeperRequestPolicy.Operation;
+
+/**
+ * Base class for states that read from ZooKeeper. All reads should go through {@link #execute(Operation)}, so that they are
+ * rate limited and retried according to the {@link ZooKeeperRequestPolicy} and bounded by the {@link ReadDeadline}. Reads that
+ * use {@link #getChildrenHedged(String)} and {@link #getDataHedged(String, Stat)} are additionally hedged if
+ * {@link HedgedReads} are set.
+ */
+public abstract class AbstractReadZooKeeperState extends AbstractZooKeeperState {
+
+    private ZooKeeperRequestPolicy requestPolicy = ZooKeeperRequestPolicy.getDefault();
+    private ReadDeadline readDeadline = ReadDeadline.getDefault();
+    private ZooKeeperRequestPolicy startedRequestPolicy;
+    private HedgedReads hedgedReads;
+
+    protected AbstractReadZooKeeperState(String name) {
+        super(name);
+    }
+
+    /**
+     * @param hedgedReads The hedged reads or <code>null</code> to read from the session of this state only.
+     */
+    public void setHedgedReads(HedgedReads hedgedReads) {
+        this.hedgedReads = hedgedReads;
+    }
+
+    public void setReadDeadline(ReadDeadline readDeadline) {
+        this.readDeadline = readDeadline;
+        this.startedRequestPolicy = null;
+    }
+
+    public void setRequestPolicy(ZooKeeperRequestPolicy requestPolicy) {
+        this.requestPolicy = requestPolicy;
+        this.startedRequestPolicy = null;
+    }
+
+    protected <V> V execute(Operation<V> operation) throws KeeperException {
+        return this.getRequestPolicy().execute(this.zooKeeper, operation);
+    }
+
+    protected List<String> getChildrenHedged(String path) throws KeeperException {
+        return ZooKeeperOperationEvent.record("getChildren", path, 0, () -> this.hedgedReads == null
+            ? this.getChildren(path)
+            : this.hedgedReads.getChildren(this.zooKeeper, path));
+    }
+
+    protected byte[] getDataHedged(String path, Stat stat) throws KeeperException {
+        return ZooKeeperOperationEvent.record("getData", path, 0, () -> this.hedgedReads == null
+            ? this.getData(path, stat)
+            : this.hedgedReads.getData(this.zooKeeper, path, stat));
+    }
+
+    /**
+     * @return A {@link NodeStore} on the session of this state, following its {@link ZooKeeperRequestPolicy} and
+     *         {@link ReadDeadline}.
+     */
+    protected NodeStore getNodeStore() {
+        return new ZooKeeperNodeStore(this.zooKeeper, this.getRequestPolicy());
+    }
+
+    protected ReadDeadline getReadDeadline() {
+        return this.readDeadline;
+    }
+
+    private ZooKeeperRequestPolicy getRequestPolicy() {
+        if (this.startedRequestPolicy == null) {
+            // the deadline starts with the first operation
+            this.startedRequestPolicy = this.readDeadline.isEnabled()
+                ? this.requestPolicy.withDeadline(this.readDeadline.getDeadlineFromNow())
+                : this.requestPolicy;
+        }
+
+        return this.startedRequestPolicy;
+    }
+}
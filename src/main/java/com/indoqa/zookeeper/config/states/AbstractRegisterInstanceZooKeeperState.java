@@ -0,0 +1,63 @@
+/*
+ * Licensed to the Indoqa Software Design und Beratung GmbH (Indoqa) under
+ * one or more contributor license agreements. See the NOTICE file distributed
+ * with this work for additional information regarding copyright ownership.
+ * Indoqa licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.indoqa.zookeeper.config.states;
+
+import java.net.InetAddress;
+import java.util.UUID;
+
+import org.apache.zookeeper.CreateMode;
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.KeeperException.NodeExistsException;
+
+import com.indoqa.zookeeper.AbstractZooKeeperState;
+
+/**
+ * Base class of the states registering this instance. The nodes <code>instances/&lt;host&gt;</code> and
+ * <code>instances/&lt;host&gt;/sessions</code> are created as {@link CreateMode#CONTAINER} nodes, so ZooKeeper removes them
+ * once the last session of a host ended. Host nodes that were created before, or by other means, can be removed with
+ * {@link CompactServiceInstancesState}.
+ */
+public abstract class AbstractRegisterInstanceZooKeeperState extends AbstractZooKeeperState {
+
+    protected AbstractRegisterInstanceZooKeeperState(String name) {
+        super(name);
+    }
+
+    /**
+     * Create the container node at the given path, if it does not exist yet. The parent node must exist.
+     */
+    protected void ensureContainerExists(String path) throws KeeperException {
+        try {
+            this.createNode(path, new byte[0], CreateMode.CONTAINER);
+        } catch (NodeExistsException e) {
+            // the node was already created, e.g. by another session of this host -> nothing to do
+        }
+    }
+
+    protected String getHostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            this.logger.error("Could not determine host name.", e);
+            return "UNKNOWN-" + UUID.randomUUID().toString();
+        }
+    }
+
+    protected String getSessionName() {
+        return "0x" + Long.toHexString(this.zooKeeper.getSessionId());
+    }
+}
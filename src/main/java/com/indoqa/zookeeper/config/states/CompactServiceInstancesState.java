@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Indoqa Software Design und Beratung GmbH (Indoqa) under
+ * one or more contributor license agreements. See the NOTICE file distributed
+ * with this work for additional information regarding copyright ownership.
+ * Indoqa licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.indoqa.zookeeper.config.states;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.KeeperException.NoNodeException;
+import org.apache.zookeeper.KeeperException.NotEmptyException;
+import org.apache.zookeeper.Op;
+
+import com.indoqa.zookeeper.AbstractZooKeeperState;
+import com.indoqa.zookeeper.Execution;
+import com.indoqa.zookeeper.config.jfr.StateExecutionEvent;
+import com.indoqa.zookeeper.config.jfr.ZooKeeperOperationEvent;
+
+/**
+ * Removes the host nodes below <code>&lt;service&gt;/instances</code> that have no sessions left. Such nodes were created as
+ * persistent nodes by earlier versions or were written with a service description. Each host node is deleted together with
+ * its children in one <code>multi</code> transaction, which fails if a session was registered in the meantime. In that case
+ * the host is kept.
+ */
+public class CompactServiceInstancesState extends AbstractZooKeeperState {
+
+    private static final String COMPACTED_HOSTS_KEY = "compacted-hosts";
+    private static final String SESSIONS = "sessions";
+    private static final String ZOOKEEPER_NODE = "zookeeper";
+
+    private final List<String> serviceIds;
+
+    /**
+     * @param serviceIds The services to compact. If none are given, all service descriptions are compacted.
+     */
+    public CompactServiceInstancesState(String... serviceIds) {
+        super("Compact Service Instances");
+
+        this.serviceIds = Arrays.asList(serviceIds);
+    }
+
+    public static int getCompactedHostCount(Execution execution) {
+        Integer result = execution.getEnvironmentValue(COMPACTED_HOSTS_KEY);
+        return result == null ? 0 : result;
+    }
+
+    @Override
+    protected void onStart() throws KeeperException {
+        StateExecutionEvent.record(this, () -> {
+            super.onStart();
+            this.terminate();
+
+            List<String> compactedServiceIds = this.serviceIds;
+            if (compactedServiceIds.isEmpty()) {
+                compactedServiceIds = new ArrayList<>(this.getChildren("/"));
+                compactedServiceIds.remove(ZOOKEEPER_NODE);
+                compactedServiceIds.remove(ConfigurationSnapshot.SNAPSHOTS_NODE);
+            }
+
+            int compactedHostCount = 0;
+            for (String eachServiceId : compactedServiceIds) {
+                compactedHostCount += this.compact(combinePath("/", eachServiceId, "instances"));
+            }
+
+            this.logger.info("Removed {} host node(s) without sessions.", compactedHostCount);
+            this.setEnvironmentValue(COMPACTED_HOSTS_KEY, compactedHostCount);
+        });
+    }
+
+    private int compact(String instancesPath) throws KeeperException {
+        List<String> hosts;
+        try {
+            hosts = this.getChildren(instancesPath);
+        } catch (NoNodeException e) {
+            return 0;
+        }
+
+        int result = 0;
+        for (String eachHost : hosts) {
+            if (this.deleteHost(combinePath(instancesPath, eachHost))) {
+                result++;
+            }
+        }
+
+        this.logger.debug("Removed {} of {} host node(s) of '{}'.", result, hosts.size(), instancesPath);
+        return result;
+    }
+
+    private boolean deleteHost(String hostPath) throws KeeperException {
+        List<Op> operations = new ArrayList<>();
+
+        try {
+            for (String eachChild : this.getChildren(hostPath)) {
+                String childPath = combinePath(hostPath, eachChild);
+
+                if (SESSIONS.equals(eachChild) && !this.getChildren(childPath).isEmpty()) {
+                    return false;
+                }
+
+                // host nodes only contain leaves and the sessions node
+                operations.add(Op.delete(childPath, -1));
+            }
+        } catch (NoNodeException e) {
+            // ZooKeeper removed the container nodes in the meantime
+            return false;
+        }
+
+        operations.add(Op.delete(hostPath, -1));
+
+        try {
+            ZooKeeperOperationEvent.record("multi", operations.get(0).getPath(), 0, () -> this.zooKeeper.multi(operations));
+            return true;
+        } catch (NotEmptyException | NoNodeException e) {
+            this.logger.debug("The host node '{}' was modified concurrently. Keeping it.", hostPath, e);
+            return false;
+        }
+    }
+}
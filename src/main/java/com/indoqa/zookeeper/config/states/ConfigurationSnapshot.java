@@ -0,0 +1,252 @@
+/*
+ * Licensed to the Indoqa Software Design und Beratung GmbH (Indoqa) under
+ * one or more contributor license agreements. See the NOTICE file distributed
+ * with this work for additional information regarding copyright ownership.
+ * Indoqa licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.indoqa.zookeeper.config.states;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.zookeeper.data.Stat;
+
+/**
+ * A pre-resolved copy of all properties below a base path. Snapshots are stored outside of the configuration tree in the node
+ * <code>/.configuration-snapshots/&lt;encoded basePath&gt;</code>, so that they never show up as properties. The node holds a
+ * header and the first chunk of the compressed properties; further chunks are stored as its children. The header records the
+ * {@link NodeVersion} of every node below the base path, so that added or removed children and changed values can be detected.
+ * Chunks are named after the generation and the session of the publisher, so that concurrent publishers never overwrite each
+ * other's chunks.
+ */
+final class ConfigurationSnapshot {
+
+    public static final String SNAPSHOTS_NODE = ".configuration-snapshots";
+
+    private static final int FORMAT = 2;
+
+    private final long generation;
+    private final long publisher;
+    private final int chunkCount;
+    private final Map<String, NodeVersion> nodeVersions;
+    private final byte[] firstChunk;
+
+    ConfigurationSnapshot(long generation, long publisher, int chunkCount, Map<String, NodeVersion> nodeVersions,
+            byte[] firstChunk) {
+        this.generation = generation;
+        this.publisher = publisher;
+        this.chunkCount = chunkCount;
+        this.nodeVersions = nodeVersions;
+        this.firstChunk = firstChunk;
+    }
+
+    public static Map<String, Object> decodeProperties(byte[] data) throws IOException {
+        try (DataInputStream input = new DataInputStream(new GZIPInputStream(new ByteArrayInputStream(data)))) {
+            int count = input.readInt();
+
+            Map<String, Object> result = new HashMap<>(count * 4 / 3 + 1);
+            for (int i = 0; i < count; i++) {
+                result.put(readString(input), readString(input));
+            }
+            return result;
+        }
+    }
+
+    public static byte[] encodeProperties(Map<String, Object> properties) throws IOException {
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+
+        try (DataOutputStream output = new DataOutputStream(new GZIPOutputStream(result))) {
+            output.writeInt(properties.size());
+
+            for (Entry<String, Object> eachEntry : properties.entrySet()) {
+                writeString(output, eachEntry.getKey());
+                writeString(output, eachEntry.getValue() == null ? null : eachEntry.getValue().toString());
+            }
+        }
+
+        return result.toByteArray();
+    }
+
+    public static String getChunkName(long generation, long publisher, int index) {
+        return getChunkPrefix(generation, publisher) + index;
+    }
+
+    public static String getChunkPrefix(long generation, long publisher) {
+        return generation + "-" + Long.toHexString(publisher) + "-";
+    }
+
+    public static String getSnapshotPath(String basePath) {
+        return "/" + SNAPSHOTS_NODE + "/" + URLEncoder.encode(basePath, UTF_8);
+    }
+
+    /**
+     * @return The snapshot stored in <code>data</code> or <code>null</code> if <code>data</code> does not contain a snapshot.
+     */
+    public static ConfigurationSnapshot parse(byte[] data) throws IOException {
+        if (data == null || data.length == 0) {
+            return null;
+        }
+
+        ByteArrayInputStream bytes = new ByteArrayInputStream(data);
+        DataInputStream input = new DataInputStream(bytes);
+        if (input.readInt() != FORMAT) {
+            return null;
+        }
+
+        long generation = input.readLong();
+        long publisher = input.readLong();
+        int chunkCount = input.readInt();
+
+        int nodeCount = input.readInt();
+        Map<String, NodeVersion> nodeVersions = new LinkedHashMap<>();
+        for (int i = 0; i < nodeCount; i++) {
+            nodeVersions.put(readString(input), new NodeVersion(input.readLong(), input.readLong(), input.readInt()));
+        }
+
+        return new ConfigurationSnapshot(generation, publisher, chunkCount, nodeVersions, bytes.readAllBytes());
+    }
+
+    /**
+     * Split <code>payload</code> into chunks, the first of which is at most <code>firstChunkSize</code> bytes long.
+     */
+    public static List<byte[]> split(byte[] payload, int firstChunkSize, int chunkSize) {
+        List<byte[]> result = new ArrayList<>();
+
+        int offset = Math.min(payload.length, firstChunkSize);
+        result.add(Arrays.copyOfRange(payload, 0, offset));
+
+        while (offset < payload.length) {
+            int end = Math.min(payload.length, offset + chunkSize);
+            result.add(Arrays.copyOfRange(payload, offset, end));
+            offset = end;
+        }
+
+        return result;
+    }
+
+    private static String readString(DataInputStream input) throws IOException {
+        int length = input.readInt();
+        if (length == -1) {
+            return null;
+        }
+
+        byte[] data = new byte[length];
+        input.readFully(data);
+        return new String(data, UTF_8);
+    }
+
+    private static void writeString(DataOutputStream output, String value) throws IOException {
+        if (value == null) {
+            output.writeInt(-1);
+            return;
+        }
+
+        byte[] data = value.getBytes(UTF_8);
+        output.writeInt(data.length);
+        output.write(data);
+    }
+
+    public int getChunkCount() {
+        return this.chunkCount;
+    }
+
+    public byte[] getFirstChunk() {
+        return this.firstChunk;
+    }
+
+    public long getGeneration() {
+        return this.generation;
+    }
+
+    /**
+     * @return The versions of all nodes below the base path by their relative paths, in the order of a breadth-first walk.
+     */
+    public Map<String, NodeVersion> getNodeVersions() {
+        return this.nodeVersions;
+    }
+
+    public long getPublisher() {
+        return this.publisher;
+    }
+
+    public byte[] toBytes() throws IOException {
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+
+        DataOutputStream output = new DataOutputStream(result);
+        output.writeInt(FORMAT);
+        output.writeLong(this.generation);
+        output.writeLong(this.publisher);
+        output.writeInt(this.chunkCount);
+
+        output.writeInt(this.nodeVersions.size());
+        for (Entry<String, NodeVersion> eachEntry : this.nodeVersions.entrySet()) {
+            writeString(output, eachEntry.getKey());
+            output.writeLong(eachEntry.getValue().pzxid);
+            output.writeLong(eachEntry.getValue().mzxid);
+            output.writeInt(eachEntry.getValue().dataLength);
+        }
+
+        if (this.firstChunk != null) {
+            output.write(this.firstChunk);
+        }
+
+        return result.toByteArray();
+    }
+
+    /**
+     * The state of a node when the snapshot was published. The <code>pzxid</code> changes when a child is added or removed,
+     * the <code>mzxid</code> when the value changes.
+     */
+    public static final class NodeVersion {
+
+        private final long pzxid;
+        private final long mzxid;
+        private final int dataLength;
+
+        public NodeVersion(Stat stat) {
+            this(stat.getPzxid(), stat.getMzxid(), stat.getDataLength());
+        }
+
+        private NodeVersion(long pzxid, long mzxid, int dataLength) {
+            this.pzxid = pzxid;
+            this.mzxid = mzxid;
+            this.dataLength = dataLength;
+        }
+
+        /**
+         * @return The length of the value, which allows estimating the size of a response before validating the node.
+         */
+        public int getDataLength() {
+            return this.dataLength;
+        }
+
+        public boolean matches(Stat stat) {
+            return stat.getPzxid() == this.pzxid && stat.getMzxid() == this.mzxid;
+        }
+    }
+}
@@ -16,35 +16,158 @@
  */
 package com.indoqa.zookeeper.config.states;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.Op;
 
 import com.indoqa.zookeeper.AbstractZooKeeperState;
+import com.indoqa.zookeeper.config.jfr.StateExecutionEvent;
+import com.indoqa.zookeeper.config.jfr.ZooKeeperOperationEvent;
 
 public class DeleteServiceDescriptionsState extends AbstractZooKeeperState {
 
+    private static final String ZOOKEEPER_NODE = "zookeeper";
+
+    private static final int DEFAULT_BATCH_SIZE = 500;
+
+    private final boolean bulk;
+    private final int batchSize;
+
     public DeleteServiceDescriptionsState() {
+        this(false);
+    }
+
+    /**
+     * @param bulk If <code>true</code>, all nodes are collected with pipelined asynchronous requests first and then deleted
+     *            bottom-up in batched <code>multi</code> transactions instead of one round trip per node.
+     */
+    public DeleteServiceDescriptionsState(boolean bulk) {
+        this(bulk, DEFAULT_BATCH_SIZE);
+    }
+
+    public DeleteServiceDescriptionsState(boolean bulk, int batchSize) {
         super("Delete Service Descriptions");
+
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("The batch size must be positive, but was " + batchSize + ".");
+        }
+
+        this.bulk = bulk;
+        this.batchSize = batchSize;
     }
 
     @Override
     protected void onStart() throws KeeperException {
-        super.onStart();
-        this.terminate();
+        StateExecutionEvent.record(this, () -> {
+            super.onStart();
+            this.terminate();
 
-        this.ensureNodeExists("/");
+            this.ensureNodeExists("/");
 
-        List<String> children = this.getChildren("/");
-        for (String eachChild : children) {
-            this.logger.info("Deleting service description '{}' ...", eachChild);
+            List<String> children = this.getChildren("/");
+            if (this.bulk) {
+                this.deleteInBulk(children);
+                return;
+            }
 
-            try {
-                this.deleteNodeStructure(combinePath("/", eachChild));
-            } catch (KeeperException.BadArgumentsException e) {
-                this.logger.error("Caught '{}'. Did you try to delete the zookeeper node?", e.getMessage(), e);
+            for (String eachChild : children) {
+                this.logger.info("Deleting service description '{}' ...", eachChild);
+
+                try {
+                    this.deleteNodeStructure(combinePath("/", eachChild));
+                } catch (KeeperException.BadArgumentsException e) {
+                    this.logger.error("Caught '{}'. Did you try to delete the zookeeper node?", e.getMessage(), e);
+                    break;
+                }
+            }
+        });
+    }
+
+    private List<String> collectNodes(List<String> rootPaths) throws KeeperException {
+        List<String> result = new ArrayList<>(rootPaths);
+
+        // perform a breadth-first search, listing all nodes of one level with pipelined requests
+        List<String> level = rootPaths;
+        while (!level.isEmpty()) {
+            level = this.getChildrenAsync(level);
+            result.addAll(level);
+        }
+
+        return result;
+    }
+
+    private boolean deleteBatch(List<String> paths) throws KeeperException {
+        List<Op> operations = new ArrayList<>(paths.size());
+        for (String eachPath : paths) {
+            operations.add(Op.delete(eachPath, -1));
+        }
+
+        try {
+            ZooKeeperOperationEvent.record("multi", operations.get(0).getPath(), 0, () -> this.zooKeeper.multi(operations));
+        } catch (KeeperException.BadArgumentsException e) {
+            this.logger.error("Caught '{}'. Did you try to delete the zookeeper node?", e.getMessage(), e);
+            return false;
+        } catch (KeeperException e) {
+            // the tree was modified concurrently (e.g. a new session node) -> delete these nodes one by one
+            this.logger.warn("Deleting a batch failed with '{}'. Falling back to deleting {} node(s) individually.",
+                e.getMessage(), paths.size());
+
+            for (String eachPath : paths) {
+                if (this.exists(eachPath)) {
+                    this.deleteNodeStructure(eachPath);
+                }
+            }
+        }
+
+        return true;
+    }
+
+    private void deleteInBulk(List<String> serviceIds) throws KeeperException {
+        List<String> rootPaths = new ArrayList<>();
+        for (String eachServiceId : serviceIds) {
+            if (ZOOKEEPER_NODE.equals(eachServiceId)) {
+                this.logger.warn("Skipping the node '/{}'. It is managed by ZooKeeper itself.", eachServiceId);
+                continue;
+            }
+
+            rootPaths.add(combinePath("/", eachServiceId));
+        }
+
+        this.logger.info("Collecting the nodes of {} service description(s) ...", rootPaths.size());
+        List<String> paths = this.collectNodes(rootPaths);
+
+        // children are always listed after their parents -> reversing the order allows deleting bottom-up
+        Collections.reverse(paths);
+
+        this.logger.info("Deleting {} node(s) in batches of {} ...", paths.size(), this.batchSize);
+        int deletedCount = 0;
+        for (int start = 0; start < paths.size(); start += this.batchSize) {
+            List<String> batch = paths.subList(start, Math.min(start + this.batchSize, paths.size()));
+            if (!this.deleteBatch(batch)) {
                 break;
             }
+
+            deletedCount += batch.size();
+            this.logger.info("Deleted {} of {} node(s).", deletedCount, paths.size());
+        }
+    }
+
+    private List<String> getChildrenAsync(List<String> parentPaths) throws KeeperException {
+        Map<String, List<String>> children = PipelinedRequests.send(parentPaths,
+            (path, callback) -> this.zooKeeper.getChildren(path, false,
+                (resultCode, resultPath, context, childNames) -> callback.accept(resultCode, childNames), null));
+
+        List<String> result = new ArrayList<>();
+        for (String eachParentPath : parentPaths) {
+            for (String eachChild : children.getOrDefault(eachParentPath, Collections.emptyList())) {
+                result.add(combinePath(eachParentPath, eachChild));
+            }
         }
+
+        return result;
     }
 }
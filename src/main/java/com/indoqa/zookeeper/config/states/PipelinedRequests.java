@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Indoqa Software Design und Beratung GmbH (Indoqa) under
+ * one or more contributor license agreements. See the NOTICE file distributed
+ * with this work for additional information regarding copyright ownership.
+ * Indoqa licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.indoqa.zookeeper.config.states;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.KeeperException.Code;
+
+/**
+ * Sends asynchronous ZooKeeper requests without waiting for each response, so that many requests share a single round trip.
+ */
+final class PipelinedRequests {
+
+    private static final int MAX_PENDING_REQUESTS = 1000;
+
+    private PipelinedRequests() {
+        // hide utility class constructor
+    }
+
+    private static void acquire(Semaphore semaphore) {
+        try {
+            semaphore.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for pending requests.", e);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for pending requests.", e);
+        }
+    }
+
+    /**
+     * Send one pipelined asynchronous request per path and wait for all results. Missing nodes are left out of the result.
+     *
+     * @param request Sends the request for a path and passes the result code and the value to the given callback.
+     */
+    public static <T> Map<String, T> send(List<String> paths, BiConsumer<String, BiConsumer<Integer, T>> request)
+            throws KeeperException {
+        Map<String, T> result = new ConcurrentHashMap<>();
+        AtomicReference<KeeperException> error = new AtomicReference<>();
+
+        CountDownLatch latch = new CountDownLatch(paths.size());
+        Semaphore pendingRequests = new Semaphore(MAX_PENDING_REQUESTS);
+
+        for (String eachPath : paths) {
+            acquire(pendingRequests);
+
+            request.accept(eachPath, (resultCode, value) -> {
+                try {
+                    Code code = Code.get(resultCode);
+                    if (code == Code.OK && value != null) {
+                        result.put(eachPath, value);
+                    } else if (code != Code.OK && code != Code.NONODE) {
+                        error.compareAndSet(null, KeeperException.create(code, eachPath));
+                    }
+                } finally {
+                    pendingRequests.release();
+                    latch.countDown();
+                }
+            });
+        }
+
+        await(latch);
+
+        if (error.get() != null) {
+            throw error.get();
+        }
+
+        return result;
+    }
+}
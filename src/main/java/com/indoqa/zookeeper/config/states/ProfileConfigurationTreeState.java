@@ -0,0 +1,140 @@
+/*
+ * Licensed to the Indoqa Software Design und Beratung GmbH (Indoqa) under
+ * one or more contributor license agreements. See the NOTICE file distributed
+ * with this work for additional information regarding copyright ownership.
+ * Indoqa licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.indoqa.zookeeper.config.states;
+
+import static com.indoqa.zookeeper.config.states.ReadConfigurationState.getPlaceholderPaths;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.KeeperException.Code;
+
+import com.indoqa.zookeeper.AbstractZooKeeperState;
+import com.indoqa.zookeeper.Execution;
+import com.indoqa.zookeeper.config.jfr.StateExecutionEvent;
+import com.indoqa.zookeeper.config.model.ConfigurationTreeProfile;
+
+/**
+ * Walks all nodes below a base path, or all service descriptions if the base path is <code>/</code>, and creates a
+ * {@link ConfigurationTreeProfile}. The tree is read level by level with pipelined asynchronous requests, so the walk takes
+ * two round trips per level plus one for the placeholders, no matter how many nodes there are.
+ */
+public class ProfileConfigurationTreeState extends AbstractZooKeeperState {
+
+    private static final String PROFILE_KEY = "configuration-tree-profile";
+    private static final String ROOT_PATH = "/";
+    private static final String ZOOKEEPER_NODE = "zookeeper";
+    private static final byte[] NO_DATA = new byte[0];
+
+    private final String basePath;
+
+    public ProfileConfigurationTreeState(String basePath) {
+        super("Profile " + basePath);
+
+        this.basePath = basePath;
+    }
+
+    /**
+     * @return The profile or <code>null</code> if the state has not completed.
+     */
+    public static ConfigurationTreeProfile getProfile(Execution execution) {
+        return execution.getEnvironmentValue(PROFILE_KEY);
+    }
+
+    @Override
+    protected void onStart() throws KeeperException {
+        StateExecutionEvent.record(this, () -> {
+            super.onStart();
+            this.terminate();
+
+            ConfigurationTreeProfile profile = new ConfigurationTreeProfile(this.basePath);
+            Set<String> placeholderPaths = new TreeSet<>();
+            int roundTrips = 0;
+
+            List<String> paths = Collections.singletonList(this.basePath);
+            for (int depth = 0; !paths.isEmpty(); depth++) {
+                Map<String, byte[]> values = this.readValues(paths);
+                Map<String, List<String>> children = PipelinedRequests.send(paths,
+                    (path, callback) -> this.zooKeeper.getChildren(path, false,
+                        (resultCode, resultPath, context, childNames) -> callback.accept(resultCode, childNames), null));
+                roundTrips += 2;
+
+                List<String> childPaths = new ArrayList<>();
+                for (String eachPath : paths) {
+                    byte[] value = values.get(eachPath);
+                    List<String> childNames = children.get(eachPath);
+                    if (value == null || childNames == null) {
+                        // the node was deleted while walking the tree
+                        continue;
+                    }
+
+                    childNames = new ArrayList<>(childNames);
+                    if (ROOT_PATH.equals(eachPath)) {
+                        childNames.remove(ZOOKEEPER_NODE);
+                        childNames.remove(ConfigurationSnapshot.SNAPSHOTS_NODE);
+                    }
+
+                    List<String> nodePlaceholderPaths = getPlaceholderPaths(new String(value, StandardCharsets.UTF_8));
+                    profile.addNode(eachPath, depth, value.length, childNames, nodePlaceholderPaths);
+                    placeholderPaths.addAll(nodePlaceholderPaths);
+
+                    for (String eachChildName : childNames) {
+                        childPaths.add(combinePath(eachPath, eachChildName));
+                    }
+                }
+
+                paths = childPaths;
+            }
+
+            if (!placeholderPaths.isEmpty()) {
+                Map<String, byte[]> placeholderValues = this.readValues(new ArrayList<>(placeholderPaths));
+                roundTrips++;
+
+                for (String eachPlaceholderPath : placeholderPaths) {
+                    byte[] value = placeholderValues.get(eachPlaceholderPath);
+                    profile.addPlaceholderTarget(eachPlaceholderPath, value == null ? -1 : value.length);
+                }
+            }
+
+            profile.setWalkRoundTrips(roundTrips);
+            this.logger.info("Profiled {} in {} round trip(s).", profile, roundTrips);
+            this.setEnvironmentValue(PROFILE_KEY, profile);
+        });
+    }
+
+    /**
+     * @return The values of all existing nodes, nodes without a value are mapped to an empty array.
+     */
+    private Map<String, byte[]> readValues(List<String> paths) throws KeeperException {
+        return PipelinedRequests.send(paths, (path, callback) -> {
+            try {
+                this.zooKeeper.getData(path, false,
+                    (resultCode, resultPath, context, data, stat) -> callback.accept(resultCode, data == null ? NO_DATA : data),
+                    null);
+            } catch (IllegalArgumentException e) {
+                // placeholders may contain anything, treat invalid paths as missing nodes
+                callback.accept(Code.NONODE.intValue(), null);
+            }
+        });
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Licensed to the Indoqa Software Design und Beratung GmbH (Indoqa) under
+ * one or more contributor license agreements. See the NOTICE file distributed
+ * with this work for additional information regarding copyright ownership.
+ * Indoqa licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.indoqa.zookeeper.config.states;
+
+import static com.indoqa.zookeeper.config.states.ConfigurationSnapshot.*;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.KeeperException.BadVersionException;
+import org.apache.zookeeper.KeeperException.NoNodeException;
+import org.apache.zookeeper.data.Stat;
+
+import com.indoqa.zookeeper.config.jfr.ZooKeeperOperationEvent;
+import com.indoqa.zookeeper.config.utils.PropertyFilter;
+
+/**
+ * Publishes a snapshot of all properties below a base path with their placeholders already filled, so that
+ * a {@link ReadConfigurationState} with snapshots enabled can read them with a few requests instead of walking the tree. The
+ * snapshot is only used as long as no node below the base path is added, removed or changed. Placeholder targets outside of
+ * the base path are not checked, so changing them requires publishing the snapshot again.
+ */
+public class PublishConfigurationSnapshotState extends ReadConfigurationState {
+
+    private static final int DEFAULT_CHUNK_SIZE = 512 * 1024;
+
+    private final int chunkSize;
+    private final Map<String, NodeVersion> nodeVersions = new LinkedHashMap<>();
+
+    public PublishConfigurationSnapshotState(String basePath) {
+        this(basePath, DEFAULT_CHUNK_SIZE);
+    }
+
+    public PublishConfigurationSnapshotState(String basePath, int chunkSize) {
+        // readers expect a snapshot to contain all properties below the base path
+        super("Publish configuration snapshot of " + basePath, basePath, false, PropertyFilter.getDefault());
+
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("The chunk size must be positive.");
+        }
+        this.chunkSize = chunkSize;
+    }
+
+    @Override
+    protected void onPropertiesRead(Map<String, Object> properties) throws KeeperException {
+        super.onPropertiesRead(properties);
+
+        if (!this.getMissingPaths().isEmpty()) {
+            this.logger.warn("Not publishing a snapshot of '{}', because it could not be read completely.", this.basePath);
+            return;
+        }
+
+        if (this.nodeVersions.isEmpty()) {
+            this.logger.warn("Not publishing a snapshot of '{}', because the base path does not exist.", this.basePath);
+            return;
+        }
+
+        try {
+            this.publish(properties);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not encode the snapshot of '" + this.basePath + "'.", e);
+        }
+    }
+
+    @Override
+    protected List<String> readChildren(String path) throws KeeperException {
+        Stat stat = new Stat();
+        List<String> result = this.execute(
+            () -> ZooKeeperOperationEvent.record("getChildren", path, 0, () -> this.zooKeeper.getChildren(path, false, stat)));
+
+        // every node is recorded, since a leaf can get children later
+        String relativePath = path.equals(this.basePath) ? "" : path.substring(this.basePath.length() + 1);
+        this.nodeVersions.put(relativePath, new NodeVersion(stat));
+
+        return result;
+    }
+
+    private void deleteChunks(String snapshotPath, String prefix, boolean matching) throws KeeperException {
+        for (String eachChild : this.getChildren(snapshotPath)) {
+            if (eachChild.startsWith(prefix) != matching) {
+                continue;
+            }
+
+            try {
+                this.deleteNodeStructure(combinePath(snapshotPath, eachChild));
+            } catch (NoNodeException e) {
+                // already deleted by a concurrent publisher
+            }
+        }
+    }
+
+    private void publish(Map<String, Object> properties) throws KeeperException, IOException {
+        String snapshotPath = getSnapshotPath(this.basePath);
+        this.ensureNodeExists(snapshotPath);
+
+        Stat stat = new Stat();
+        ConfigurationSnapshot previous = ConfigurationSnapshot.parse(this.getData(snapshotPath, stat));
+        long generation = previous == null ? 1 : previous.getGeneration() + 1;
+        long publisher = this.zooKeeper.getSessionId();
+
+        // the header doesn't depend on the number of chunks, so the first chunk can fill up the rest of the node
+        int headerLength = new ConfigurationSnapshot(generation, publisher, 0, this.nodeVersions, null).toBytes().length;
+        List<byte[]> chunks = split(encodeProperties(properties), Math.max(0, this.chunkSize - headerLength), this.chunkSize);
+
+        for (int i = 1; i < chunks.size(); i++) {
+            String chunkPath = combinePath(snapshotPath, getChunkName(generation, publisher, i));
+            this.ensureNodeExists(chunkPath);
+            this.setData(chunkPath, chunks.get(i), -1);
+        }
+
+        ConfigurationSnapshot snapshot = new ConfigurationSnapshot(generation, publisher, chunks.size(), this.nodeVersions,
+            chunks.get(0));
+        try {
+            this.setData(snapshotPath, snapshot.toBytes(), stat.getVersion());
+        } catch (BadVersionException e) {
+            this.logger.warn("The snapshot of '{}' has been published concurrently, discarding snapshot {}.", this.basePath,
+                generation);
+            this.deleteChunks(snapshotPath, getChunkPrefix(generation, publisher), true);
+            return;
+        }
+
+        this.deleteChunks(snapshotPath, getChunkPrefix(generation, publisher), false);
+
+        this.logger.info("Published snapshot {} of {} property value(s) at '{}' in {} chunk(s).", generation, properties.size(),
+            this.basePath, chunks.size());
+    }
+}
@@ -16,31 +16,79 @@
  */
 package com.indoqa.zookeeper.config.states;
 
+import static com.indoqa.zookeeper.config.states.ConfigurationSnapshot.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 
 import org.apache.zookeeper.KeeperException;
 import org.apache.zookeeper.KeeperException.NoNodeException;
+import org.apache.zookeeper.Op;
+import org.apache.zookeeper.OpResult;
+import org.apache.zookeeper.OpResult.GetDataResult;
 import org.apache.zookeeper.data.Stat;
 
-import com.indoqa.zookeeper.AbstractZooKeeperState;
-
-public class ReadConfigurationState extends AbstractZooKeeperState {
+import com.indoqa.zookeeper.Execution;
+import com.indoqa.zookeeper.config.jfr.PlaceholderResolutionEvent;
+import com.indoqa.zookeeper.config.jfr.StateExecutionEvent;
+import com.indoqa.zookeeper.config.jfr.ZooKeeperOperationEvent;
+import com.indoqa.zookeeper.config.utils.PropertyFilter;
+import com.indoqa.zookeeper.config.utils.ReadDeadline;
+import com.indoqa.zookeeper.config.utils.ReadDeadlineExceededException;
+
+/**
+ * Reads all properties below a base path. A {@link PropertyFilter} restricts the nodes that are read, skipped subtrees are
+ * neither listed nor fetched.
+ * <p>
+ * If the {@link ReadDeadline} passes, the properties read so far are provided together with the paths whose subtrees are
+ * missing, see {@link #getMissingPaths(Execution)}.
+ * <p>
+ * Reading a {@link PublishConfigurationSnapshotState snapshot} has to be enabled explicitly. The snapshot is used as long as no
+ * node below the base path has been added, removed or changed since it was published, which is validated with batched
+ * <code>multi</code> requests. Changed placeholder targets outside of the base path are only visible after the snapshot has
+ * been published again.
+ */
+public class ReadConfigurationState extends AbstractReadZooKeeperState {
 
     private static final String PLACEHOLDER_START = "${zk:";
     private static final String PLACEHOLDER_END = "}";
+    private static final String MISSING_PATHS_KEY = "missing-paths";
+    // half of the default jute.maxbuffer and the serialized stat and framing of each result
+    private static final long MAX_VALIDATION_BYTES = 512 * 1024;
+    private static final int RESULT_OVERHEAD_BYTES = 128;
 
-    private final String basePath;
+    protected final String basePath;
+    private final boolean useSnapshot;
 
     private final Map<String, String> encounteredPlaceholders = new HashMap<>();
+    private final List<String> missingPaths = new ArrayList<>();
+    private final PropertyFilter propertyFilter;
 
     public ReadConfigurationState(String basePath) {
-        super("Read properties from " + basePath);
+        this(basePath, false);
+    }
+
+    public ReadConfigurationState(String basePath, boolean useSnapshot) {
+        this(basePath, useSnapshot, PropertyFilter.getDefault());
+    }
+
+    public ReadConfigurationState(String basePath, boolean useSnapshot, PropertyFilter propertyFilter) {
+        this("Read properties from " + basePath, basePath, useSnapshot, propertyFilter);
+    }
+
+    protected ReadConfigurationState(String name, String basePath, boolean useSnapshot, PropertyFilter propertyFilter) {
+        super(name);
 
         this.basePath = basePath;
+        this.useSnapshot = useSnapshot;
+        this.propertyFilter = propertyFilter;
     }
 
     private static String asString(byte[] data) {
@@ -51,20 +99,149 @@ public class ReadConfigurationState extends AbstractZooKeeperState {
         }
     }
 
+    /**
+     * @return The paths whose subtrees could not be read completely before the {@link ReadDeadline} passed.
+     */
+    public static List<String> getMissingPaths(Execution execution) {
+        List<String> result = execution.getEnvironmentValue(MISSING_PATHS_KEY);
+        if (result == null) {
+            return Collections.emptyList();
+        }
+
+        return result;
+    }
+
+    /**
+     * @return The paths of all placeholders in <code>propertyValue</code>, in the order they appear.
+     */
+    static List<String> getPlaceholderPaths(String propertyValue) {
+        List<String> result = new ArrayList<>();
+
+        int startIndex = propertyValue.indexOf(PLACEHOLDER_START);
+        while (startIndex != -1) {
+            int endIndex = propertyValue.indexOf(PLACEHOLDER_END, startIndex);
+            if (endIndex == -1) {
+                break;
+            }
+
+            result.add(propertyValue.substring(startIndex + PLACEHOLDER_START.length(), endIndex));
+            startIndex = propertyValue.indexOf(PLACEHOLDER_START, endIndex);
+        }
+
+        return result;
+    }
+
     private static boolean hasData(byte[] data) {
         return data != null && data.length > 0;
     }
 
+    /**
+     * @return The paths whose subtrees could not be read completely before the {@link ReadDeadline} passed.
+     */
+    protected List<String> getMissingPaths() {
+        return this.missingPaths;
+    }
+
+    protected String getRelativePath(String path) {
+        if (path.startsWith(this.basePath)) {
+            return path.substring(this.basePath.length() + 1);
+        }
+
+        return path;
+    }
+
+    /**
+     * @return <code>true</code> if the node at <code>path</code> is read as a property according to the {@link PropertyFilter}.
+     */
+    protected boolean isAccepted(String path) {
+        return this.propertyFilter.accepts(this.getRelativePath(path));
+    }
+
+    /**
+     * @return <code>true</code> if this state keeps running after the properties have been read.
+     */
+    protected boolean isWatching() {
+        return false;
+    }
+
+    /**
+     * Called for every placeholder that has been resolved while reading the value of the property at
+     * <code>propertyPath</code>, including placeholders contained in the values of other placeholders.
+     */
+    protected void onPlaceholderResolved(String propertyPath, String placeholderPath) {
+        // nothing to do by default
+    }
+
+    /**
+     * Called with the properties once they have been read.
+     */
+    protected void onPropertiesRead(Map<String, Object> properties) throws KeeperException {
+        this.setEnvironmentValue("properties", properties);
+    }
+
     @Override
     protected void onStart() throws KeeperException {
-        super.onStart();
-        this.terminate();
+        StateExecutionEvent.record(this, () -> {
+            super.onStart();
+            if (!this.isWatching()) {
+                this.terminate();
+            }
 
-        Map<String, Object> properties = this.readProperties();
-        this.setEnvironmentValue("properties", properties);
+            Map<String, Object> properties = this.readAllProperties();
+            this.setEnvironmentValue(MISSING_PATHS_KEY, Collections.unmodifiableList(this.missingPaths));
+            this.onPropertiesRead(properties);
+        });
     }
 
-    private String fillPlaceholders(String propertyValue) throws KeeperException {
+    /**
+     * @return All properties below the base path, taken from the snapshot if it is enabled and current.
+     */
+    protected Map<String, Object> readAllProperties() throws KeeperException {
+        this.missingPaths.clear();
+        this.encounteredPlaceholders.clear();
+
+        Map<String, Object> result = null;
+        try {
+            if (this.useSnapshot) {
+                result = this.readSnapshot();
+            }
+        } catch (ReadDeadlineExceededException e) {
+            this.logger.warn("Could not read the snapshot of '{}' before the deadline.", this.basePath, e);
+            this.missingPaths.add(this.basePath);
+            result = new HashMap<>();
+        }
+
+        if (result != null && !this.propertyFilter.isEmpty()) {
+            // snapshots always contain all properties
+            result.keySet().removeIf(eachName -> !this.propertyFilter.accepts(eachName));
+        }
+
+        if (result == null) {
+            result = this.readProperties();
+        }
+
+        return result;
+    }
+
+    /**
+     * @return The children of a node below the base path.
+     */
+    protected List<String> readChildren(String path) throws KeeperException {
+        return this.execute(() -> this.getChildrenHedged(path));
+    }
+
+    /**
+     * @return The value of the property at <code>path</code> with its placeholders filled or <code>null</code> if the node
+     *         has no value.
+     */
+    protected String readPropertyValue(String path) throws KeeperException {
+        // placeholders are only cached while all properties are read at once
+        this.encounteredPlaceholders.clear();
+
+        return this.resolvePropertyValue(path);
+    }
+
+    private String fillPlaceholders(String propertyPath, String propertyValue) throws KeeperException {
         int startIndex = propertyValue.indexOf(PLACEHOLDER_START);
         if (startIndex == -1) {
             return propertyValue;
@@ -73,11 +250,15 @@ public class ReadConfigurationState extends AbstractZooKeeperState {
         int endIndex = propertyValue.indexOf(PLACEHOLDER_END, startIndex);
         String path = propertyValue.substring(startIndex + PLACEHOLDER_START.length(), endIndex);
 
+        PlaceholderResolutionEvent event = PlaceholderResolutionEvent.start(path);
         String value = this.encounteredPlaceholders.get(path);
-        if (value == null) {
+        boolean cached = value != null;
+        if (!cached) {
             value = this.getPropertyValue(path);
             this.encounteredPlaceholders.put(path, value);
         }
+        event.resolved(cached, value);
+        this.onPlaceholderResolved(propertyPath, path);
 
         if (value == null) {
             return null;
@@ -85,13 +266,21 @@ public class ReadConfigurationState extends AbstractZooKeeperState {
 
         StringBuilder stringBuilder = new StringBuilder(propertyValue);
         stringBuilder.replace(startIndex, endIndex + PLACEHOLDER_END.length(), value);
-        return this.fillPlaceholders(stringBuilder.toString());
+        return this.fillPlaceholders(propertyPath, stringBuilder.toString());
+    }
+
+    private String getNodePath(String relativePath) {
+        if (relativePath.isEmpty()) {
+            return this.basePath;
+        }
+
+        return combinePath(this.basePath, relativePath);
     }
 
     private String getPropertyValue(String path) throws KeeperException {
         try {
             Stat stat = new Stat();
-            byte[] data = this.getData(path, stat);
+            byte[] data = this.execute(() -> this.getDataHedged(path, stat));
 
             if (hasData(data)) {
                 return asString(data);
@@ -106,23 +295,85 @@ public class ReadConfigurationState extends AbstractZooKeeperState {
         return null;
     }
 
-    private String getRelativePath(String path) {
-        if (path.startsWith(this.basePath)) {
-            return path.substring(this.basePath.length() + 1);
+    private boolean isCurrent(ConfigurationSnapshot snapshot) throws KeeperException {
+        List<Op> operations = new ArrayList<>();
+        List<NodeVersion> versions = new ArrayList<>();
+        long responseBytes = 0;
+
+        for (Entry<String, NodeVersion> eachEntry : snapshot.getNodeVersions().entrySet()) {
+            String path = this.getNodePath(eachEntry.getKey());
+            long nodeBytes = path.length() + eachEntry.getValue().getDataLength() + RESULT_OVERHEAD_BYTES;
+
+            // keep each response well below jute.maxbuffer, a larger node is validated on its own
+            if (!operations.isEmpty() && responseBytes + nodeBytes > MAX_VALIDATION_BYTES) {
+                if (!this.isCurrent(operations, versions)) {
+                    return false;
+                }
+
+                operations = new ArrayList<>();
+                versions = new ArrayList<>();
+                responseBytes = 0;
+            }
+
+            operations.add(Op.getData(path));
+            versions.add(eachEntry.getValue());
+            responseBytes += nodeBytes;
         }
 
-        return path;
+        return this.isCurrent(operations, versions);
+    }
+
+    private boolean isCurrent(List<Op> operations, List<NodeVersion> versions) throws KeeperException {
+        String path = operations.get(0).getPath();
+        List<OpResult> results = this.execute(() -> ZooKeeperOperationEvent.record("multi", path, 0,
+            () -> this.zooKeeper.multi(operations)));
+
+        for (int i = 0; i < results.size(); i++) {
+            OpResult result = results.get(i);
+            if (!(result instanceof GetDataResult) || !versions.get(i).matches(((GetDataResult) result).getStat())) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private void readChildProperties(String path, List<String> paths, Map<String, Object> result) throws KeeperException {
+        List<String> children = this.readChildren(path);
+        for (String eachChild : children) {
+            String childPath = combinePath(path, eachChild);
+            String relativePath = this.getRelativePath(childPath);
+            if (this.propertyFilter.isSkipped(relativePath)) {
+                continue;
+            }
+
+            if (this.propertyFilter.isDescended(relativePath)) {
+                paths.add(childPath);
+            }
+
+            if (this.propertyFilter.isIncluded(relativePath)) {
+                this.readProperty(childPath, result);
+            }
+        }
     }
 
     private Map<String, Object> readProperties() throws KeeperException {
         Map<String, Object> result = new HashMap<>();
 
-        if (!this.exists(this.basePath)) {
-            this.logger.error("Base path '{}' does not exist.", this.basePath);
+        try {
+            boolean exists = this.execute(
+                () -> ZooKeeperOperationEvent.record("exists", this.basePath, 0, () -> this.exists(this.basePath)));
+            if (!exists) {
+                this.logger.error("Base path '{}' does not exist.", this.basePath);
+                return result;
+            }
+        } catch (ReadDeadlineExceededException e) {
+            this.logger.warn("Could not read base path '{}' before the deadline.", this.basePath, e);
+            this.missingPaths.add(this.basePath);
             return result;
         }
 
-        this.logger.info("Reading properties at '{}'.", this.basePath);
+        this.logger.info("Reading properties at '{}' ({}).", this.basePath, this.propertyFilter);
 
         // perform a breadth-first search for all properties under the base path
         List<String> paths = new ArrayList<>();
@@ -131,12 +382,15 @@ public class ReadConfigurationState extends AbstractZooKeeperState {
         while (!paths.isEmpty()) {
             String path = paths.remove(0);
 
-            List<String> children = this.getChildren(path);
-            for (String eachChild : children) {
-                String childPath = combinePath(path, eachChild);
-                paths.add(childPath);
-
-                this.readProperty(childPath, result);
+            try {
+                this.readChildProperties(path, paths, result);
+            } catch (ReadDeadlineExceededException e) {
+                // the current path may have been read partially, all remaining paths not at all
+                this.missingPaths.add(path);
+                this.missingPaths.addAll(paths);
+                this.logger.warn("Could not read {} subtree(s) of '{}' before the deadline.", this.missingPaths.size(),
+                    this.basePath, e);
+                break;
             }
         }
 
@@ -145,11 +399,54 @@ public class ReadConfigurationState extends AbstractZooKeeperState {
         return result;
     }
 
+    private Map<String, Object> readSnapshot() throws KeeperException {
+        String snapshotPath = getSnapshotPath(this.basePath);
+
+        try {
+            byte[] data = this.execute(() -> this.getDataHedged(snapshotPath, new Stat()));
+
+            ConfigurationSnapshot snapshot = ConfigurationSnapshot.parse(data);
+            if (snapshot == null || snapshot.getNodeVersions().isEmpty()) {
+                return null;
+            }
+
+            if (!this.isCurrent(snapshot)) {
+                this.logger.info("The snapshot of '{}' is stale, reading the tree instead.", this.basePath);
+                return null;
+            }
+
+            ByteArrayOutputStream payload = new ByteArrayOutputStream();
+            payload.write(snapshot.getFirstChunk());
+            for (int i = 1; i < snapshot.getChunkCount(); i++) {
+                String chunkPath = combinePath(snapshotPath, getChunkName(snapshot.getGeneration(), snapshot.getPublisher(), i));
+                payload.write(this.execute(() -> this.getDataHedged(chunkPath, new Stat())));
+            }
+
+            Map<String, Object> result = decodeProperties(payload.toByteArray());
+            this.logger.info("Read {} property value(s) at '{}' from snapshot {}.", result.size(), this.basePath,
+                snapshot.getGeneration());
+            return result;
+        } catch (NoNodeException e) {
+            // there is no snapshot or it is being replaced right now
+            return null;
+        } catch (IOException e) {
+            this.logger.warn("Could not decode the snapshot of '{}', reading the tree instead.", this.basePath, e);
+            return null;
+        }
+    }
+
     private void readProperty(String propertyPath, Map<String, Object> properties) throws KeeperException {
         String propertyName = this.getRelativePath(propertyPath);
 
-        String propertyValue = this.getPropertyValue(propertyPath);
-        propertyValue = this.fillPlaceholders(propertyValue);
-        properties.put(propertyName, propertyValue);
+        properties.put(propertyName, this.resolvePropertyValue(propertyPath));
+    }
+
+    private String resolvePropertyValue(String path) throws KeeperException {
+        String propertyValue = this.getPropertyValue(path);
+        if (propertyValue == null) {
+            return null;
+        }
+
+        return this.fillPlaceholders(path, propertyValue);
     }
 }
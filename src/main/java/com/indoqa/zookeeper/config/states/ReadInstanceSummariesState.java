@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Indoqa Software Design und Beratung GmbH (Indoqa) under
+ * one or more contributor license agreements. See the NOTICE file distributed
+ * with this work for additional information regarding copyright ownership.
+ * Indoqa licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.indoqa.zookeeper.config.states;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.data.Stat;
+
+import com.indoqa.zookeeper.AbstractZooKeeperState;
+import com.indoqa.zookeeper.Execution;
+import com.indoqa.zookeeper.config.jfr.StateExecutionEvent;
+import com.indoqa.zookeeper.config.model.ServiceInstancesSummary;
+
+/**
+ * Counts the live sessions of services without reading any data. The hosts of all services and the number of nodes below
+ * their <code>instances</code> nodes are requested with pipelined asynchronous requests, then the session count of each
+ * host is taken from <code>Stat.numChildren</code> of its <code>sessions</code> node. This takes four round trips, no matter
+ * how many services, hosts and sessions exist.
+ */
+public class ReadInstanceSummariesState extends AbstractZooKeeperState {
+
+    private static final String SUMMARIES_KEY = "instance-summaries";
+    private static final String ZOOKEEPER_NODE = "zookeeper";
+
+    private final List<String> serviceIds;
+
+    /**
+     * @param serviceIds The services to summarize. If none are given, all service descriptions are summarized.
+     */
+    public ReadInstanceSummariesState(String... serviceIds) {
+        super("Read Instance Summaries");
+
+        this.serviceIds = Arrays.asList(serviceIds);
+    }
+
+    private static String getInstancesPath(String serviceId) {
+        return combinePath("/", serviceId, "instances");
+    }
+
+    public static Collection<ServiceInstancesSummary> getSummaries(Execution execution) {
+        return execution.getEnvironmentValues(SUMMARIES_KEY);
+    }
+
+    @Override
+    protected void onStart() throws KeeperException {
+        StateExecutionEvent.record(this, () -> {
+            super.onStart();
+            this.terminate();
+
+            List<String> summarizedServiceIds = this.serviceIds;
+            if (summarizedServiceIds.isEmpty()) {
+                summarizedServiceIds = new ArrayList<>(this.getChildren("/"));
+                summarizedServiceIds.remove(ZOOKEEPER_NODE);
+                summarizedServiceIds.remove(ConfigurationSnapshot.SNAPSHOTS_NODE);
+            }
+
+            List<String> instancesPaths = new ArrayList<>(summarizedServiceIds.size());
+            for (String eachServiceId : summarizedServiceIds) {
+                instancesPaths.add(getInstancesPath(eachServiceId));
+            }
+
+            Map<String, List<String>> hosts = PipelinedRequests.send(instancesPaths,
+                (path, callback) -> this.zooKeeper.getChildren(path, false,
+                    (resultCode, resultPath, context, children) -> callback.accept(resultCode, children), null));
+            Map<String, Integer> nodeCounts = PipelinedRequests.send(instancesPaths,
+                (path, callback) -> this.zooKeeper.getAllChildrenNumber(path,
+                    (resultCode, resultPath, context, number) -> callback.accept(resultCode, number), null));
+
+            List<String> sessionsPaths = new ArrayList<>();
+            for (Map.Entry<String, List<String>> eachEntry : hosts.entrySet()) {
+                for (String eachHost : eachEntry.getValue()) {
+                    sessionsPaths.add(combinePath(eachEntry.getKey(), eachHost, "sessions"));
+                }
+            }
+            Map<String, Stat> sessionsStats = PipelinedRequests.send(sessionsPaths,
+                (path, callback) -> this.zooKeeper.exists(path, false,
+                    (resultCode, resultPath, context, stat) -> callback.accept(resultCode, stat), null));
+
+            List<ServiceInstancesSummary> summaries = new ArrayList<>(summarizedServiceIds.size());
+            for (String eachServiceId : summarizedServiceIds) {
+                String instancesPath = getInstancesPath(eachServiceId);
+
+                Map<String, Integer> sessionCounts = new HashMap<>();
+                for (String eachHost : hosts.getOrDefault(instancesPath, new ArrayList<>())) {
+                    Stat stat = sessionsStats.get(combinePath(instancesPath, eachHost, "sessions"));
+                    sessionCounts.put(eachHost, stat == null ? 0 : stat.getNumChildren());
+                }
+
+                int nodeCount = nodeCounts.getOrDefault(instancesPath, -1);
+                summaries.add(new ServiceInstancesSummary(eachServiceId, sessionCounts, nodeCount));
+            }
+
+            this.logger.debug("Summarized the instances of {} service(s) with {} request(s).", summaries.size(),
+                2 * instancesPaths.size() + sessionsPaths.size());
+            this.setEnvironmentValues(SUMMARIES_KEY, summaries);
+        });
+    }
+}
@@ -16,23 +16,53 @@
  */
 package com.indoqa.zookeeper.config.states;
 
+import java.util.Collections;
+import java.util.List;
+
 import org.apache.zookeeper.KeeperException;
 
 import com.indoqa.zookeeper.Execution;
+import com.indoqa.zookeeper.config.jfr.StateExecutionEvent;
 import com.indoqa.zookeeper.config.model.AbstractServiceDescription;
+import com.indoqa.zookeeper.config.model.FieldProjection;
+import com.indoqa.zookeeper.config.utils.ReadDeadline;
+import com.indoqa.zookeeper.config.utils.ReadDeadlineExceededException;
 
 public class ReadServiceDescriptionState<T extends AbstractServiceDescription> extends AbstractReadServiceDescriptonZooKeeperState<T> {
 
     private static final String SERVICE_DESCRIPTION_KEY = "service-description";
+    private static final String MISSING_PATHS_KEY = "missing-paths";
 
     private final String serviceId;
     private final Class<T> resultType;
+    private final FieldProjection projection;
 
     public ReadServiceDescriptionState(String serviceId, Class<T> type) {
+        this(serviceId, type, FieldProjection.all());
+    }
+
+    /**
+     * Read only the fields selected by the given projection. All other fields keep their initial values.
+     */
+    public ReadServiceDescriptionState(String serviceId, Class<T> type, FieldProjection projection) {
         super("Read Service Description " + serviceId);
 
         this.serviceId = serviceId;
         this.resultType = type;
+        this.projection = projection;
+    }
+
+    /**
+     * @return The paths that could not be read before the {@link ReadDeadline} passed. Unless its policy is
+     *         {@link ReadDeadline.Policy#PARTIAL_RESULTS}, there is no service description in this case.
+     */
+    public static List<String> getMissingPaths(Execution execution) {
+        List<String> result = execution.getEnvironmentValue(MISSING_PATHS_KEY);
+        if (result == null) {
+            return Collections.emptyList();
+        }
+
+        return result;
     }
 
     @SuppressWarnings("unchecked")
@@ -42,10 +72,19 @@ public class ReadServiceDescriptionState<T extends AbstractServiceDescription> e
 
     @Override
     protected void onStart() throws KeeperException {
-        super.onStart();
-        this.terminate();
+        StateExecutionEvent.record(this, () -> {
+            super.onStart();
+            this.terminate();
+
+            try {
+                T serviceDescription = this.readServiceDescription(this.serviceId, this.resultType, this.projection);
+                this.setEnvironmentValue(SERVICE_DESCRIPTION_KEY, serviceDescription);
+            } catch (ReadDeadlineExceededException e) {
+                this.logger.error("Could not read service description '{}' before the deadline.", this.serviceId, e);
+                this.getMissingPaths().add(combinePath("/", this.serviceId));
+            }
 
-        T serviceDescription = this.readServiceDescription(this.serviceId, this.resultType);
-        this.setEnvironmentValue(SERVICE_DESCRIPTION_KEY, serviceDescription);
+            this.setEnvironmentValue(MISSING_PATHS_KEY, Collections.unmodifiableList(this.getMissingPaths()));
+        });
     }
 }
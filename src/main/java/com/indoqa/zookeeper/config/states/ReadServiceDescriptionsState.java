@@ -18,24 +18,58 @@ package com.indoqa.zookeeper.config.states;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 
 import org.apache.zookeeper.KeeperException;
 
 import com.indoqa.zookeeper.Execution;
+import com.indoqa.zookeeper.config.jfr.StateExecutionEvent;
 import com.indoqa.zookeeper.config.model.AbstractServiceDescription;
+import com.indoqa.zookeeper.config.model.FieldProjection;
+import com.indoqa.zookeeper.config.utils.ReadDeadline;
+import com.indoqa.zookeeper.config.utils.ReadDeadline.Policy;
+import com.indoqa.zookeeper.config.utils.ReadDeadlineExceededException;
 
+/**
+ * Read all service descriptions. If the {@link ReadDeadline} passes, the paths that could not be read are available from
+ * {@link #getMissingPaths(Execution)}. There are no local copies of service descriptions, so {@link Policy#USE_CACHE} behaves
+ * like {@link Policy#FAIL_FAST}.
+ */
 public class ReadServiceDescriptionsState<T extends AbstractServiceDescription>
         extends AbstractReadServiceDescriptonZooKeeperState<T> {
 
     private static final String SERVICE_DESCRIPTIONS_KEY = "service-descriptions";
+    private static final String MISSING_PATHS_KEY = "missing-paths";
 
     private final Class<T> resultType;
+    private final FieldProjection projection;
 
     public ReadServiceDescriptionsState(Class<T> type) {
+        this(type, FieldProjection.all());
+    }
+
+    /**
+     * Read only the fields selected by the given projection. All other fields keep their initial values.
+     */
+    public ReadServiceDescriptionsState(Class<T> type, FieldProjection projection) {
         super("Read Service Descriptions");
 
         this.resultType = type;
+        this.projection = projection;
+    }
+
+    /**
+     * @return The paths that could not be read before the {@link ReadDeadline} passed. Unless its policy is
+     *         {@link Policy#PARTIAL_RESULTS}, there are no service descriptions in this case.
+     */
+    public static List<String> getMissingPaths(Execution execution) {
+        List<String> result = execution.getEnvironmentValue(MISSING_PATHS_KEY);
+        if (result == null) {
+            return Collections.emptyList();
+        }
+
+        return result;
     }
 
     public static <T extends AbstractServiceDescription> Collection<T> getServiceDescriptions(Execution execution) {
@@ -44,14 +78,47 @@ public class ReadServiceDescriptionsState<T extends AbstractServiceDescription>
 
     @Override
     protected void onStart() throws KeeperException {
-        // terminate this execution as soon as this state is completed
-        this.terminate();
+        StateExecutionEvent.record(this, () -> {
+            // terminate this execution as soon as this state is completed
+            this.terminate();
+
+            List<T> serviceDescriptions = new ArrayList<>();
+            this.setEnvironmentValues(SERVICE_DESCRIPTIONS_KEY, serviceDescriptions);
 
-        List<T> serviceDescriptions = new ArrayList<>();
-        this.setEnvironmentValues(SERVICE_DESCRIPTIONS_KEY, serviceDescriptions);
+            try {
+                this.readServiceDescriptions(serviceDescriptions);
+            } catch (ReadDeadlineExceededException e) {
+                this.logger.error("Could not read all service descriptions before the deadline.", e);
+            }
+
+            if (!this.getMissingPaths().isEmpty() && this.getReadDeadline().getPolicy() != Policy.PARTIAL_RESULTS) {
+                serviceDescriptions.clear();
+            }
+
+            this.setEnvironmentValue(MISSING_PATHS_KEY, Collections.unmodifiableList(this.getMissingPaths()));
+        });
+    }
+
+    private void readServiceDescriptions(List<T> serviceDescriptions) throws KeeperException {
+        List<String> serviceIds;
+        try {
+            serviceIds = this.execute(() -> this.getChildrenHedged("/"));
+        } catch (ReadDeadlineExceededException e) {
+            this.getMissingPaths().add("/");
+            throw e;
+        }
 
-        for (String eachServiceId : this.getChildren("/")) {
-            T serviceDescription = this.readServiceDescription(eachServiceId, this.resultType);
+        for (int i = 0; i < serviceIds.size(); i++) {
+            T serviceDescription;
+            try {
+                serviceDescription = this.readServiceDescription(serviceIds.get(i), this.resultType, this.projection);
+            } catch (ReadDeadlineExceededException e) {
+                // the deadline has passed, so none of the remaining service descriptions can be read either
+                for (String eachServiceId : serviceIds.subList(i, serviceIds.size())) {
+                    this.getMissingPaths().add(combinePath("/", eachServiceId));
+                }
+                throw e;
+            }
 
             if (serviceDescription != null) {
                 serviceDescriptions.add(serviceDescription);
@@ -18,19 +18,20 @@ package com.indoqa.zookeeper.config.states;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 
-import java.net.InetAddress;
 import java.time.Instant;
-import java.util.UUID;
 
 import org.apache.zookeeper.CreateMode;
 import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.KeeperException.NoNodeException;
 import org.apache.zookeeper.KeeperException.NodeExistsException;
 
-import com.indoqa.zookeeper.AbstractZooKeeperState;
+import com.indoqa.zookeeper.config.jfr.StateExecutionEvent;
 import com.indoqa.zookeeper.config.utils.ReflectionHelper;
 import com.indoqa.zookeeper.config.utils.ZooKeeperRegistrationException;
 
-public class RegisterInstanceZooKeeperState extends AbstractZooKeeperState {
+public class RegisterInstanceZooKeeperState extends AbstractRegisterInstanceZooKeeperState {
+
+    private static final int MAX_ATTEMPTS = 3;
 
     private final String serviceId;
 
@@ -41,37 +42,42 @@ public class RegisterInstanceZooKeeperState extends AbstractZooKeeperState {
 
     @Override
     protected void onStart() throws KeeperException {
-        super.onStart();
-
-        String hostName = this.getHostName();
-        String sessionName = "0x" + Long.toHexString(this.zooKeeper.getSessionId());
-        this.logger.info("Registering instance '{}' @ session '{}' ...", hostName, sessionName);
+        StateExecutionEvent.record(this, () -> {
+            super.onStart();
 
-        String instancesPath = combinePath(this.serviceId, "instances");
-        if (!this.exists(instancesPath)) {
-            throw new ZooKeeperRegistrationException("The path '" + instancesPath
-                + "' does not exist. Check if ZooKeeper contains the service description '" + this.serviceId + "'.");
-        }
+            String hostName = this.getHostName();
+            String sessionName = this.getSessionName();
+            this.logger.info("Registering instance '{}' @ session '{}' ...", hostName, sessionName);
 
-        String instancePath = combinePath(instancesPath, hostName, "sessions");
-        this.ensureNodeExists(instancePath);
+            String instancesPath = combinePath(this.serviceId, "instances");
+            if (!this.exists(instancesPath)) {
+                throw new ZooKeeperRegistrationException("The path '" + instancesPath
+                    + "' does not exist. Check if ZooKeeper contains the service description '" + this.serviceId + "'.");
+            }
 
-        try {
-            String sessionNode = combinePath(instancePath, sessionName);
+            String hostPath = combinePath(instancesPath, hostName);
+            String sessionsPath = combinePath(hostPath, "sessions");
             byte[] value = ReflectionHelper.getSerializedValue(Instant.now()).getBytes(UTF_8);
-            this.createNode(sessionNode, value, CreateMode.EPHEMERAL);
-        } catch (NodeExistsException e) {
-            this.logger.debug("Session node already exists.", e);
-            // this can happen if we restarted without losing the session -> nothing to do
-        }
-    }
 
-    private String getHostName() {
-        try {
-            return InetAddress.getLocalHost().getHostName();
-        } catch (Exception e) {
-            this.logger.error("Could not determine host name.", e);
-            return "UNKNOWN-" + UUID.randomUUID().toString();
-        }
+            for (int attempt = 1;; attempt++) {
+                try {
+                    this.ensureContainerExists(hostPath);
+                    this.ensureContainerExists(sessionsPath);
+                    this.createNode(combinePath(sessionsPath, sessionName), value, CreateMode.EPHEMERAL);
+                    return;
+                } catch (NodeExistsException e) {
+                    this.logger.debug("Session node already exists.", e);
+                    // this can happen if we restarted without losing the session -> nothing to do
+                    return;
+                } catch (NoNodeException e) {
+                    // the last session of this host ended and ZooKeeper removed the container nodes in the meantime
+                    if (attempt == MAX_ATTEMPTS) {
+                        throw e;
+                    }
+
+                    this.logger.debug("The container nodes of host '{}' were removed concurrently. Retrying ...", hostName, e);
+                }
+            }
+        });
     }
 }
@@ -0,0 +1,178 @@
+/*
+ * Licensed to the Indoqa Software Design und Beratung GmbH (Indoqa) under
+ * one or more contributor license agreements. See the NOTICE file distributed
+ * with this work for additional information regarding copyright ownership.
+ * Indoqa licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.indoqa.zookeeper.config.states;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+import org.apache.zookeeper.CreateMode;
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.KeeperException.NoNodeException;
+import org.apache.zookeeper.KeeperException.NodeExistsException;
+import org.apache.zookeeper.Op;
+import org.apache.zookeeper.OpResult;
+import org.apache.zookeeper.OpResult.ErrorResult;
+import org.apache.zookeeper.ZooDefs.Ids;
+
+import com.indoqa.zookeeper.Execution;
+import com.indoqa.zookeeper.config.jfr.StateExecutionEvent;
+import com.indoqa.zookeeper.config.jfr.ZooKeeperOperationEvent;
+import com.indoqa.zookeeper.config.utils.ReflectionHelper;
+import com.indoqa.zookeeper.config.utils.ZooKeeperRegistrationException;
+
+/**
+ * Registers this instance for several services at once. The existence of all required nodes is checked with one read-only
+ * <code>multi</code> request and all missing nodes, including the ephemeral session nodes, are created with one
+ * <code>multi</code> transaction. Since registering only costs these two requests, a registration after a session was
+ * re-established is quick, no matter how many services are registered. The host nodes are created as container nodes, see
+ * {@link AbstractRegisterInstanceZooKeeperState}.
+ * <p>
+ * Services without a service description are skipped and reported by {@link #getSkippedServiceIds(Execution)}, so that they
+ * do not prevent the registration for all other services.
+ */
+public class RegisterInstancesZooKeeperState extends AbstractRegisterInstanceZooKeeperState {
+
+    private static final int MAX_ATTEMPTS = 3;
+    private static final int PATHS_PER_SERVICE = 4;
+    private static final String SKIPPED_SERVICE_IDS_KEY = "skipped-service-ids";
+
+    private final List<String> serviceIds;
+
+    public RegisterInstancesZooKeeperState(String... serviceIds) {
+        super("Register Instance for " + Arrays.toString(serviceIds) + ".");
+        // a service id given twice would create its session node twice in the same transaction
+        this.serviceIds = new ArrayList<>(new LinkedHashSet<>(Arrays.asList(serviceIds)));
+    }
+
+    /**
+     * @return The ids of the services that were not registered, because their service descriptions do not exist.
+     */
+    public static List<String> getSkippedServiceIds(Execution execution) {
+        List<String> result = execution.getEnvironmentValue(SKIPPED_SERVICE_IDS_KEY);
+        if (result == null) {
+            return Collections.emptyList();
+        }
+
+        return result;
+    }
+
+    private static boolean isMissing(OpResult result) {
+        return result instanceof ErrorResult;
+    }
+
+    @Override
+    protected void onStart() throws KeeperException {
+        StateExecutionEvent.record(this, () -> {
+            super.onStart();
+
+            String hostName = this.getHostName();
+            String sessionName = this.getSessionName();
+            this.logger.info("Registering instance '{}' @ session '{}' for {} service(s) ...", hostName, sessionName,
+                this.serviceIds.size());
+
+            for (int attempt = 1;; attempt++) {
+                try {
+                    this.register(hostName, sessionName);
+                    return;
+                } catch (NodeExistsException e) {
+                    // another process on this host created a node in the meantime
+                    if (attempt == MAX_ATTEMPTS) {
+                        throw e;
+                    }
+
+                    this.logger.debug("Registration conflicted with a concurrent registration. Retrying ...", e);
+                } catch (NoNodeException e) {
+                    // a service description was deleted, which the next attempt skips, or ZooKeeper removed a container
+                    if (attempt == MAX_ATTEMPTS) {
+                        throw new ZooKeeperRegistrationException("A node was deleted while registering the instance.", e);
+                    }
+
+                    this.logger.debug("A node was deleted while registering the instance. Retrying ...", e);
+                }
+            }
+        });
+    }
+
+    private List<String> getPaths(String serviceId, String hostName, String sessionName) {
+        String instancesPath = combinePath("/", serviceId, "instances");
+        String hostPath = combinePath(instancesPath, hostName);
+        String sessionsPath = combinePath(hostPath, "sessions");
+
+        return Arrays.asList(instancesPath, hostPath, sessionsPath, combinePath(sessionsPath, sessionName));
+    }
+
+    private List<OpResult> multi(List<Op> operations) throws KeeperException {
+        return ZooKeeperOperationEvent.record("multi", operations.get(0).getPath(), 0, () -> this.zooKeeper.multi(operations));
+    }
+
+    private void register(String hostName, String sessionName) throws KeeperException {
+        List<Op> reads = new ArrayList<>(this.serviceIds.size() * PATHS_PER_SERVICE);
+        for (String eachServiceId : this.serviceIds) {
+            for (String eachPath : this.getPaths(eachServiceId, hostName, sessionName)) {
+                reads.add(Op.getData(eachPath));
+            }
+        }
+
+        // a read-only multi reports missing nodes per operation instead of failing as a whole
+        List<OpResult> readResults = this.multi(reads);
+
+        byte[] value = ReflectionHelper.getSerializedValue(Instant.now()).getBytes(UTF_8);
+        List<Op> writes = new ArrayList<>();
+        List<String> registeredServiceIds = new ArrayList<>();
+        List<String> skippedServiceIds = new ArrayList<>();
+        for (int i = 0; i < this.serviceIds.size(); i++) {
+            String serviceId = this.serviceIds.get(i);
+            List<String> paths = this.getPaths(serviceId, hostName, sessionName);
+            List<OpResult> results = readResults.subList(i * PATHS_PER_SERVICE, (i + 1) * PATHS_PER_SERVICE);
+
+            if (isMissing(results.get(0))) {
+                this.logger.error("The path '{}' does not exist. Check if ZooKeeper contains the service description '{}'. "
+                    + "Skipping this service.", paths.get(0), serviceId);
+                skippedServiceIds.add(serviceId);
+                continue;
+            }
+            writes.add(Op.check(paths.get(0), -1));
+            registeredServiceIds.add(serviceId);
+
+            if (isMissing(results.get(1))) {
+                writes.add(Op.create(paths.get(1), new byte[0], Ids.OPEN_ACL_UNSAFE, CreateMode.CONTAINER));
+            }
+            if (isMissing(results.get(2))) {
+                writes.add(Op.create(paths.get(2), new byte[0], Ids.OPEN_ACL_UNSAFE, CreateMode.CONTAINER));
+            }
+            if (isMissing(results.get(3))) {
+                writes.add(Op.create(paths.get(3), value, Ids.OPEN_ACL_UNSAFE, CreateMode.EPHEMERAL));
+            } else {
+                // this can happen if we restarted without losing the session -> nothing to do
+                this.logger.debug("Session node for '{}' already exists.", serviceId);
+            }
+        }
+
+        if (!writes.isEmpty()) {
+            this.multi(writes);
+        }
+
+        this.setEnvironmentValue(SKIPPED_SERVICE_IDS_KEY, Collections.unmodifiableList(skippedServiceIds));
+        this.logger.info("Registered instance '{}' @ session '{}' for {}.", hostName, sessionName, registeredServiceIds);
+    }
+}
@@ -0,0 +1,237 @@
+/*
+ * Licensed to the Indoqa Software Design und Beratung GmbH (Indoqa) under
+ * one or more contributor license agreements. See the NOTICE file distributed
+ * with this work for additional information regarding copyright ownership.
+ * Indoqa licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.indoqa.zookeeper.config.states;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.apache.zookeeper.CreateMode;
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.KeeperException.NoNodeException;
+import org.apache.zookeeper.KeeperException.NodeExistsException;
+import org.apache.zookeeper.Op;
+
+import com.indoqa.zookeeper.config.jfr.StateExecutionEvent;
+import com.indoqa.zookeeper.config.jfr.ZooKeeperOperationEvent;
+import com.indoqa.zookeeper.config.model.InstanceLoad;
+import com.indoqa.zookeeper.config.utils.ZooKeeperRegistrationException;
+
+/**
+ * Periodically publishes the load of this instance as the ephemeral node
+ * <code>instances/&lt;host&gt;/loads/&lt;session&gt;</code> of each service, next to the session node of the registration.
+ * Samples taken within one interval are coalesced into a single write: only the latest sample is published, for all services
+ * with one <code>multi</code> request. A sample is not published at all if it does not differ significantly from the last
+ * published load, so a steady instance causes no writes. This state does not terminate until it is closed.
+ */
+public class ReportInstanceLoadState extends AbstractRegisterInstanceZooKeeperState implements AutoCloseable {
+
+    public static final String PROP_ENABLED = "zookeeper.load-reporter.enabled";
+    public static final String PROP_INTERVAL = "zookeeper.load-reporter.interval";
+    public static final String PROP_THRESHOLD = "zookeeper.load-reporter.threshold";
+
+    private static final long DEFAULT_INTERVAL = 5000;
+    private static final double DEFAULT_THRESHOLD = 0.1;
+
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "zookeeper-load-reporter");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final List<String> serviceIds;
+    private final Supplier<InstanceLoad> loadSupplier;
+    private final Duration interval;
+    private final double threshold;
+
+    private final AtomicLong publishedCount = new AtomicLong();
+    private final AtomicLong skippedCount = new AtomicLong();
+
+    private ScheduledFuture<?> reporting;
+    private volatile InstanceLoad publishedLoad;
+    private volatile boolean closed;
+
+    /**
+     * @param loadSupplier Samples the current load once per interval, e.g. an
+     *            {@link com.indoqa.zookeeper.config.InstanceLoadMeter}.
+     * @param threshold The relative change of the load that is published, see
+     *            {@link InstanceLoad#isSignificantlyDifferent(InstanceLoad, double)}.
+     */
+    public ReportInstanceLoadState(Supplier<InstanceLoad> loadSupplier, Duration interval, double threshold,
+            String... serviceIds) {
+        super("Report Instance Load for " + Arrays.toString(serviceIds) + ".");
+
+        if (interval.isNegative() || interval.isZero()) {
+            throw new IllegalArgumentException("The interval must be positive, but was " + interval + ".");
+        }
+
+        this.serviceIds = Arrays.asList(serviceIds);
+        this.loadSupplier = loadSupplier;
+        this.interval = interval;
+        this.threshold = threshold;
+    }
+
+    /**
+     * Create a load reporter from the properties <code>zookeeper.load-reporter.enabled</code>,
+     * <code>zookeeper.load-reporter.interval</code> (in milliseconds, default 5000) and
+     * <code>zookeeper.load-reporter.threshold</code> (default 0.1).
+     *
+     * @return The load reporter or <code>null</code> if reporting the load is not enabled.
+     */
+    public static ReportInstanceLoadState fromProperties(Supplier<InstanceLoad> loadSupplier, Function<String, String> properties,
+            String... serviceIds) {
+        if (!Boolean.parseBoolean(properties.apply(PROP_ENABLED))) {
+            return null;
+        }
+
+        String interval = properties.apply(PROP_INTERVAL);
+        String threshold = properties.apply(PROP_THRESHOLD);
+        try {
+            return new ReportInstanceLoadState(loadSupplier,
+                Duration.ofMillis(interval == null || interval.isBlank() ? DEFAULT_INTERVAL : Long.parseLong(interval.trim())),
+                threshold == null || threshold.isBlank() ? DEFAULT_THRESHOLD : Double.parseDouble(threshold.trim()), serviceIds);
+        } catch (IllegalArgumentException e) {
+            throw new ZooKeeperRegistrationException("Error while parsing the properties " + PROP_INTERVAL + " and "
+                + PROP_THRESHOLD, e);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (this.closed) {
+            return;
+        }
+
+        this.closed = true;
+        this.terminate();
+
+        if (this.reporting != null) {
+            this.reporting.cancel(false);
+        }
+    }
+
+    public long getPublishedCount() {
+        return this.publishedCount.get();
+    }
+
+    /**
+     * @return The number of samples that were not published, because they did not differ significantly from the last
+     *         published load.
+     */
+    public long getSkippedCount() {
+        return this.skippedCount.get();
+    }
+
+    @Override
+    protected synchronized void onStart() throws KeeperException {
+        StateExecutionEvent.record(this, () -> {
+            super.onStart();
+
+            if (this.closed) {
+                return;
+            }
+
+            // the session might have changed -> publish the next sample in any case
+            this.publishedLoad = null;
+
+            if (this.reporting != null) {
+                this.reporting.cancel(false);
+            }
+
+            String hostName = this.getHostName();
+            String sessionName = this.getSessionName();
+            long intervalMillis = this.interval.toMillis();
+            this.reporting = SCHEDULER.scheduleWithFixedDelay(() -> this.report(hostName, sessionName), 0, intervalMillis,
+                TimeUnit.MILLISECONDS);
+        });
+    }
+
+    private void create(String hostName, String sessionName, byte[] data) throws KeeperException {
+        for (String eachServiceId : this.serviceIds) {
+            String hostPath = combinePath("/", eachServiceId, "instances", hostName);
+            String loadsPath = combinePath(hostPath, "loads");
+            String loadPath = combinePath(loadsPath, sessionName);
+
+            this.ensureContainerExists(hostPath);
+            this.ensureContainerExists(loadsPath);
+
+            try {
+                this.createNode(loadPath, data, CreateMode.EPHEMERAL);
+            } catch (NodeExistsException e) {
+                this.setData(loadPath, data, -1);
+            }
+        }
+    }
+
+    private void publish(String hostName, String sessionName, InstanceLoad load) throws KeeperException {
+        byte[] data = load.toString().getBytes(UTF_8);
+
+        if (this.publishedLoad == null) {
+            this.create(hostName, sessionName, data);
+            return;
+        }
+
+        List<Op> operations = new ArrayList<>(this.serviceIds.size());
+        for (String eachServiceId : this.serviceIds) {
+            operations.add(Op.setData(combinePath("/", eachServiceId, "instances", hostName, "loads", sessionName), data, -1));
+        }
+
+        try {
+            ZooKeeperOperationEvent.record("multi", operations.get(0).getPath(), operations.size() * data.length,
+                () -> this.zooKeeper.multi(operations));
+        } catch (NoNodeException e) {
+            // ZooKeeper removed a load node, e.g. because the session expired
+            this.create(hostName, sessionName, data);
+        }
+    }
+
+    private void report(String hostName, String sessionName) {
+        if (this.closed) {
+            return;
+        }
+
+        try {
+            InstanceLoad load = this.loadSupplier.get();
+
+            InstanceLoad lastLoad = this.publishedLoad;
+            if (lastLoad != null && !load.isSignificantlyDifferent(lastLoad, this.threshold)) {
+                this.skippedCount.incrementAndGet();
+                return;
+            }
+
+            this.publish(hostName, sessionName, load);
+            this.publishedLoad = load;
+            this.publishedCount.incrementAndGet();
+            this.logger.debug("Published the load {} of '{}' @ session '{}'.", load, hostName, sessionName);
+        } catch (KeeperException e) {
+            // keep the last published load, so the next sample is published again
+            this.logger.warn("Could not publish the load of '{}' @ session '{}': {}", hostName, sessionName, e.getMessage());
+        } catch (RuntimeException e) {
+            this.logger.error("Could not publish the load of '{}' @ session '{}'.", hostName, sessionName, e);
+        }
+    }
+}
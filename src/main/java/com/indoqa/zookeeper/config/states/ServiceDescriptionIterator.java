@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Indoqa Software Design und Beratung GmbH (Indoqa) under
+ * one or more contributor license agreements. See the NOTICE file distributed
+ * with this work for additional information regarding copyright ownership.
+ * Indoqa licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.indoqa.zookeeper.config.states;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import com.indoqa.zookeeper.config.model.AbstractServiceDescription;
+
+/**
+ * Iterates the service descriptions read by a {@link StreamServiceDescriptionsState}. {@link #hasNext()} blocks until the
+ * next description has been read and fails if the state ended without reading all of them. Close the iterator to stop reading
+ * early.
+ */
+public final class ServiceDescriptionIterator<T extends AbstractServiceDescription> implements Iterator<T>, AutoCloseable {
+
+    static final Object END = new Object();
+
+    private static final long POLL_TIMEOUT = 100;
+
+    private final BlockingQueue<Object> queue;
+    private final Runnable cancellation;
+    private final BooleanSupplier finished;
+
+    private Object next;
+    private boolean closed;
+
+    ServiceDescriptionIterator(BlockingQueue<Object> queue, Runnable cancellation, BooleanSupplier finished) {
+        this.queue = queue;
+        this.cancellation = cancellation;
+        this.finished = finished;
+    }
+
+    @Override
+    public void close() {
+        if (this.closed) {
+            return;
+        }
+
+        this.closed = true;
+        this.next = END;
+        this.cancellation.run();
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (this.next == null) {
+            this.next = this.take();
+        }
+
+        if (this.next instanceof Failure) {
+            Throwable cause = ((Failure) this.next).cause;
+            this.next = END;
+            throw new IllegalStateException("Reading the service descriptions failed.", cause);
+        }
+
+        return this.next != END;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T next() {
+        if (!this.hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        T result = (T) this.next;
+        this.next = null;
+        return result;
+    }
+
+    private Object take() {
+        try {
+            while (true) {
+                Object result = this.queue.poll(POLL_TIMEOUT, TimeUnit.MILLISECONDS);
+                if (result != null) {
+                    return result;
+                }
+
+                if (this.finished.getAsBoolean()) {
+                    // the state queues the end or a failure before it finishes, unless it ended abnormally
+                    result = this.queue.poll();
+                    return result == null ? new Failure(new IllegalStateException("The state ended unexpectedly.")) : result;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the next service description.", e);
+        }
+    }
+
+    static final class Failure {
+
+        private final Throwable cause;
+
+        Failure(Throwable cause) {
+            this.cause = cause;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Licensed to the Indoqa Software Design und Beratung GmbH (Indoqa) under
+ * one or more contributor license agreements. See the NOTICE file distributed
+ * with this work for additional information regarding copyright ownership.
+ * Indoqa licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.indoqa.zookeeper.config.states;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.WatchedEvent;
+import org.apache.zookeeper.Watcher.Event.KeeperState;
+import org.apache.zookeeper.ZooKeeper;
+import org.slf4j.Logger;
+
+/**
+ * Restores a watching state after its ZooKeeper session expired. The watches of an expired session are gone and all changes
+ * since the expiry are lost, so as soon as the state has a connected session again, it adds its watches again and reads
+ * everything again. Until then, the session is checked periodically. The resynchronization never runs on the event thread of
+ * ZooKeeper.
+ */
+final class SessionRecovery {
+
+    private static final long RETRY_DELAY = 1000;
+
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "zookeeper-session-recovery");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Logger logger;
+    private final Supplier<ZooKeeper> session;
+    private final Resync resync;
+
+    private final AtomicBoolean expired = new AtomicBoolean();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private volatile boolean closed;
+
+    /**
+     * @param session Provides the current session of the state, which is replaced after the previous one expired.
+     */
+    public SessionRecovery(Logger logger, Supplier<ZooKeeper> session, Resync resync) {
+        this.logger = logger;
+        this.session = session;
+        this.resync = resync;
+    }
+
+    public void close() {
+        this.closed = true;
+    }
+
+    /**
+     * Handle an event of the type <code>None</code>, which reports a change of the connection state.
+     */
+    public void onSessionEvent(WatchedEvent event) {
+        if (event.getState() != KeeperState.Expired || this.closed) {
+            return;
+        }
+
+        this.logger.warn("The session expired. Resynchronizing as soon as a new session is connected.");
+        this.expired.set(true);
+        if (this.scheduled.compareAndSet(false, true)) {
+            this.schedule(0);
+        }
+    }
+
+    private void attempt() {
+        if (this.closed) {
+            return;
+        }
+
+        ZooKeeper currentSession = this.session.get();
+        if (currentSession == null || !currentSession.getState().isConnected()) {
+            // an expired session never connects again, wait for its replacement
+            this.schedule(RETRY_DELAY);
+            return;
+        }
+
+        this.expired.set(false);
+        try {
+            this.resync.resync();
+            this.logger.info("Resynchronized after the session expired.");
+        } catch (KeeperException | RuntimeException e) {
+            this.logger.warn("Could not resynchronize after the session expired. Retrying in {} ms.", RETRY_DELAY, e);
+            this.expired.set(true);
+            this.schedule(RETRY_DELAY);
+            return;
+        }
+
+        this.scheduled.set(false);
+        // the new session may have expired while resynchronizing
+        if (this.expired.get() && this.scheduled.compareAndSet(false, true)) {
+            this.schedule(0);
+        }
+    }
+
+    private void schedule(long delay) {
+        try {
+            SCHEDULER.schedule(this::attempt, delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            this.logger.error("Could not schedule the resynchronization.", e);
+        }
+    }
+
+    /**
+     * Adds all watches of a state again and reads everything again.
+     */
+    @FunctionalInterface
+    interface Resync {
+
+        void resync() throws KeeperException;
+    }
+}
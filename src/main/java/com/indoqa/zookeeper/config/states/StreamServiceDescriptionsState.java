@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Indoqa Software Design und Beratung GmbH (Indoqa) under
+ * one or more contributor license agreements. See the NOTICE file distributed
+ * with this work for additional information regarding copyright ownership.
+ * Indoqa licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.indoqa.zookeeper.config.states;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.zookeeper.KeeperException;
+
+import com.indoqa.zookeeper.config.jfr.StateExecutionEvent;
+import com.indoqa.zookeeper.config.model.AbstractServiceDescription;
+import com.indoqa.zookeeper.config.model.FieldProjection;
+
+/**
+ * Reads all service descriptions and hands each one over to the {@link ServiceDescriptionIterator} as soon as it has been
+ * read. At most <code>prefetch</code> descriptions are read ahead of the consumer. Closing the iterator stops reading.
+ */
+public class StreamServiceDescriptionsState<T extends AbstractServiceDescription>
+        extends AbstractReadServiceDescriptonZooKeeperState<T> {
+
+    private static final String ZOOKEEPER_NODE = "zookeeper";
+    private static final long OFFER_TIMEOUT = 100;
+
+    private final Class<T> resultType;
+    private final FieldProjection projection;
+    private final BlockingQueue<Object> queue;
+    private final ServiceDescriptionIterator<T> iterator;
+
+    private volatile boolean cancelled;
+    private volatile boolean finished;
+
+    public StreamServiceDescriptionsState(Class<T> type, int prefetch) {
+        this(type, prefetch, FieldProjection.all());
+    }
+
+    public StreamServiceDescriptionsState(Class<T> type, int prefetch, FieldProjection projection) {
+        super("Stream Service Descriptions");
+
+        if (prefetch < 1) {
+            throw new IllegalArgumentException("The prefetch must be positive, but was " + prefetch + ".");
+        }
+
+        this.resultType = type;
+        this.projection = projection;
+        // one additional slot for the end marker
+        this.queue = new ArrayBlockingQueue<>(prefetch + 1);
+        this.iterator = new ServiceDescriptionIterator<>(this.queue, this::cancel, () -> this.finished);
+    }
+
+    public ServiceDescriptionIterator<T> getIterator() {
+        return this.iterator;
+    }
+
+    @Override
+    protected void onStart() throws KeeperException {
+        StateExecutionEvent.record(this, () -> {
+            // terminate this execution as soon as this state is completed
+            this.terminate();
+
+            try {
+                for (String eachServiceId : this.execute(() -> this.getChildrenHedged("/"))) {
+                    if (this.cancelled) {
+                        this.logger.info("Reading service descriptions was cancelled.");
+                        return;
+                    }
+
+                    if (ZOOKEEPER_NODE.equals(eachServiceId) || ConfigurationSnapshot.SNAPSHOTS_NODE.equals(eachServiceId)) {
+                        continue;
+                    }
+
+                    T serviceDescription = this.readServiceDescription(eachServiceId, this.resultType, this.projection);
+                    if (serviceDescription != null && !this.offer(serviceDescription)) {
+                        return;
+                    }
+                }
+
+                this.offer(ServiceDescriptionIterator.END);
+            } catch (KeeperException | RuntimeException e) {
+                this.offer(new ServiceDescriptionIterator.Failure(e));
+                throw e;
+            } finally {
+                // lets the iterator fail instead of waiting forever if neither the end nor a failure could be queued
+                this.finished = true;
+            }
+        });
+    }
+
+    private void cancel() {
+        this.cancelled = true;
+        this.queue.clear();
+    }
+
+    private boolean offer(Object element) {
+        try {
+            while (!this.queue.offer(element, OFFER_TIMEOUT, TimeUnit.MILLISECONDS)) {
+                if (this.cancelled) {
+                    return false;
+                }
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the consumer.", e);
+        }
+    }
+}
@@ -0,0 +1,270 @@
+/*
+ * Licensed to the Indoqa Software Design und Beratung GmbH (Indoqa) under
+ * one or more contributor license agreements. See the NOTICE file distributed
+ * with this work for additional information regarding copyright ownership.
+ * Indoqa licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.indoqa.zookeeper.config.states;
+
+import static com.indoqa.zookeeper.config.states.ZooKeeperWatches.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.apache.zookeeper.AddWatchMode;
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.WatchedEvent;
+import org.apache.zookeeper.Watcher;
+import org.apache.zookeeper.Watcher.Event.EventType;
+
+import com.indoqa.zookeeper.config.utils.PropertyFilter;
+
+/**
+ * Reads all properties below a base path like {@link ReadConfigurationState} and keeps them current through a persistent,
+ * recursive watch. Every created, changed or deleted node is re-read individually and reported to the {@link Listener},
+ * together with all properties whose placeholders refer to it. Placeholder targets outside of the base path are watched as
+ * well. Events are processed on a separate thread, never on the event thread of ZooKeeper. After the session expired, the
+ * watches are added again and all properties are read again as soon as a new session is connected.
+ * <p>
+ * This state does not terminate until it is closed.
+ */
+public class WatchConfigurationState extends ReadConfigurationState implements AutoCloseable {
+
+    private static final ExecutorService UPDATE_EXECUTOR = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "zookeeper-configuration-updates");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Listener listener;
+    private final Watcher watcher = this::onWatchedEvent;
+    private final Object lock = new Object();
+    private final SessionRecovery sessionRecovery = new SessionRecovery(this.logger, () -> this.zooKeeper, this::watchAll);
+
+    // placeholder path -> paths of the properties using it and the other way round
+    private final Map<String, Set<String>> dependentPropertyPaths = new HashMap<>();
+    private final Map<String, Set<String>> placeholderPaths = new HashMap<>();
+    private final Set<String> watchedPlaceholderPaths = new HashSet<>();
+
+    private volatile boolean closed;
+
+    public WatchConfigurationState(String basePath, Listener listener) {
+        this(basePath, PropertyFilter.getDefault(), listener);
+    }
+
+    public WatchConfigurationState(String basePath, PropertyFilter propertyFilter, Listener listener) {
+        super("Watch properties at " + basePath, basePath, false, propertyFilter);
+
+        this.listener = listener;
+    }
+
+    private static String getParentPath(String path) {
+        return path.substring(0, path.lastIndexOf('/'));
+    }
+
+    @Override
+    public void close() {
+        if (this.closed) {
+            return;
+        }
+
+        this.closed = true;
+        this.sessionRecovery.close();
+        this.terminate();
+
+        try {
+            removeWatches(this.zooKeeper, this.basePath, this.watcher);
+
+            synchronized (this.lock) {
+                for (String eachPath : this.watchedPlaceholderPaths) {
+                    removeWatches(this.zooKeeper, eachPath, this.watcher);
+                }
+                this.watchedPlaceholderPaths.clear();
+            }
+        } catch (KeeperException e) {
+            this.logger.warn("Could not remove watches.", e);
+        }
+    }
+
+    @Override
+    protected boolean isWatching() {
+        return true;
+    }
+
+    @Override
+    protected void onPlaceholderResolved(String propertyPath, String placeholderPath) {
+        this.placeholderPaths.computeIfAbsent(propertyPath, key -> new HashSet<>()).add(placeholderPath);
+        this.dependentPropertyPaths.computeIfAbsent(placeholderPath, key -> new HashSet<>()).add(propertyPath);
+    }
+
+    @Override
+    protected void onPropertiesRead(Map<String, Object> properties) throws KeeperException {
+        super.onPropertiesRead(properties);
+
+        this.watchPlaceholderPaths();
+        this.listener.onPropertiesRead(properties);
+    }
+
+    @Override
+    protected void onStart() throws KeeperException {
+        // watch before reading, so that no change gets lost
+        addWatch(this.zooKeeper, this.basePath, this.watcher, AddWatchMode.PERSISTENT_RECURSIVE);
+
+        // events are applied either before or after the complete read, never in between
+        synchronized (this.lock) {
+            super.onStart();
+        }
+    }
+
+    private void onNodeChanged(String path, EventType eventType) throws KeeperException {
+        if (path.startsWith(this.basePath + "/")) {
+            if (this.isAccepted(path)) {
+                this.updateProperty(path, eventType == EventType.NodeDeleted);
+            }
+
+            // a parent without data only has a value while it is a leaf
+            String parentPath = getParentPath(path);
+            if (eventType != EventType.NodeDataChanged && !parentPath.equals(this.basePath) && this.isAccepted(parentPath)) {
+                this.updateProperty(parentPath, false);
+                this.updateDependentProperties(parentPath);
+            }
+        }
+
+        this.updateDependentProperties(path);
+    }
+
+    private void onWatchedEvent(WatchedEvent event) {
+        if (this.closed) {
+            return;
+        }
+
+        if (event.getType() == EventType.None) {
+            this.sessionRecovery.onSessionEvent(event);
+            return;
+        }
+
+        // reading may be retried with a backoff, which must not block the event thread
+        try {
+            UPDATE_EXECUTOR.execute(() -> this.processEvent(event));
+        } catch (RejectedExecutionException e) {
+            this.logger.error("Could not update properties after event {}.", event, e);
+        }
+    }
+
+    private void processEvent(WatchedEvent event) {
+        if (this.closed) {
+            return;
+        }
+
+        try {
+            synchronized (this.lock) {
+                this.onNodeChanged(event.getPath(), event.getType());
+            }
+        } catch (KeeperException | RuntimeException e) {
+            this.logger.error("Could not update properties after event {}.", event, e);
+        }
+    }
+
+    private void removePlaceholderPaths(String propertyPath) {
+        Set<String> paths = this.placeholderPaths.remove(propertyPath);
+        if (paths == null) {
+            return;
+        }
+
+        for (String eachPath : paths) {
+            Set<String> dependentPaths = this.dependentPropertyPaths.get(eachPath);
+            dependentPaths.remove(propertyPath);
+            if (dependentPaths.isEmpty()) {
+                this.dependentPropertyPaths.remove(eachPath);
+            }
+        }
+    }
+
+    private void updateDependentProperties(String placeholderPath) throws KeeperException {
+        Set<String> dependentPaths = this.dependentPropertyPaths.get(placeholderPath);
+        if (dependentPaths == null) {
+            return;
+        }
+
+        // the dependent properties contain the placeholders of their placeholders, so there is no need to recurse
+        for (String eachPath : new ArrayList<>(dependentPaths)) {
+            this.updateProperty(eachPath, false);
+        }
+    }
+
+    private void updateProperty(String path, boolean deleted) throws KeeperException {
+        this.removePlaceholderPaths(path);
+        String value = deleted ? null : this.readPropertyValue(path);
+        this.watchPlaceholderPaths();
+
+        this.listener.onPropertyChanged(this.getRelativePath(path), value);
+    }
+
+    private void watchAll() throws KeeperException {
+        addWatch(this.zooKeeper, this.basePath, this.watcher, AddWatchMode.PERSISTENT_RECURSIVE);
+
+        synchronized (this.lock) {
+            // the watches of the expired session are gone
+            this.watchedPlaceholderPaths.clear();
+            this.placeholderPaths.clear();
+            this.dependentPropertyPaths.clear();
+
+            this.onPropertiesRead(this.readAllProperties());
+        }
+    }
+
+    /**
+     * Watch all placeholder paths outside of the base path that are in use and stop watching those no longer in use.
+     */
+    private void watchPlaceholderPaths() throws KeeperException {
+        for (String eachPath : this.dependentPropertyPaths.keySet()) {
+            if (!eachPath.startsWith(this.basePath + "/") && !this.watchedPlaceholderPaths.contains(eachPath)) {
+                addWatch(this.zooKeeper, eachPath, this.watcher, AddWatchMode.PERSISTENT);
+                this.watchedPlaceholderPaths.add(eachPath);
+            }
+        }
+
+        for (Iterator<String> iterator = this.watchedPlaceholderPaths.iterator(); iterator.hasNext();) {
+            String path = iterator.next();
+            if (!this.dependentPropertyPaths.containsKey(path)) {
+                removeWatches(this.zooKeeper, path, this.watcher);
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Receives the properties of a {@link WatchConfigurationState}.
+     */
+    public interface Listener {
+
+        /**
+         * Called with all properties, after they have been read. This happens once after starting and again whenever all
+         * properties have been read again, because the session expired.
+         */
+        void onPropertiesRead(Map<String, Object> properties);
+
+        /**
+         * Called for every property that has been created, changed or deleted. Deleted properties have the value
+         * <code>null</code>.
+         */
+        void onPropertyChanged(String name, Object value);
+    }
+}
@@ -0,0 +1,220 @@
+/*
+ * Licensed to the Indoqa Software Design und Beratung GmbH (Indoqa) under
+ * one or more contributor license agreements. See the NOTICE file distributed
+ * with this work for additional information regarding copyright ownership.
+ * Indoqa licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.indoqa.zookeeper.config.states;
+
+import static com.indoqa.zookeeper.config.states.ZooKeeperWatches.*;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.apache.zookeeper.AddWatchMode;
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.WatchedEvent;
+import org.apache.zookeeper.Watcher;
+import org.apache.zookeeper.Watcher.Event.EventType;
+
+import com.indoqa.zookeeper.config.jfr.StateExecutionEvent;
+import com.indoqa.zookeeper.config.model.AbstractServiceDescription;
+
+/**
+ * Reads all service descriptions and keeps them current through a persistent watch on the root node and a persistent,
+ * recursive watch on each service subtree (which includes its instances). Every change is published to the listener as a
+ * new immutable snapshot of frozen descriptions. After the session expired, the watches are added again and all descriptions
+ * are read again as soon as a new session is connected. This state does not terminate until it is closed.
+ */
+public class WatchServiceDescriptionsState<T extends AbstractServiceDescription>
+        extends AbstractReadServiceDescriptonZooKeeperState<T> implements AutoCloseable {
+
+    private static final String ZOOKEEPER_NODE = "zookeeper";
+    private static final long RELOAD_DELAY = 100;
+
+    private final Class<T> resultType;
+    private final Consumer<Map<String, T>> listener;
+
+    private final Map<String, T> serviceDescriptions = new HashMap<>();
+    private final Set<String> watchedServiceIds = new HashSet<>();
+    private final Set<String> pendingServiceIds = ConcurrentHashMap.newKeySet();
+    private final Watcher watcher = this::onWatchedEvent;
+    private final SessionRecovery sessionRecovery = new SessionRecovery(this.logger, () -> this.zooKeeper, this::watchAll);
+    private final ScheduledExecutorService reloadExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "service-description-reload");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile boolean closed;
+
+    public WatchServiceDescriptionsState(Class<T> type, Consumer<Map<String, T>> listener) {
+        super("Watch Service Descriptions");
+
+        this.resultType = type;
+        this.listener = listener;
+
+        // the published descriptions are shared by all threads
+        this.setFreezeResults(true);
+    }
+
+    @Override
+    public void close() {
+        if (this.closed) {
+            return;
+        }
+
+        this.closed = true;
+        this.sessionRecovery.close();
+        this.reloadExecutor.shutdownNow();
+        this.terminate();
+
+        try {
+            synchronized (this.serviceDescriptions) {
+                for (String eachServiceId : this.watchedServiceIds) {
+                    removeWatches(this.zooKeeper, combinePath("/", eachServiceId), this.watcher);
+                }
+            }
+            removeWatches(this.zooKeeper, "/", this.watcher);
+        } catch (KeeperException e) {
+            this.logger.warn("Could not remove watches.", e);
+        }
+    }
+
+    @Override
+    protected void onStart() throws KeeperException {
+        StateExecutionEvent.record(this, () -> {
+            super.onStart();
+
+            this.watchAll();
+        });
+    }
+
+    private void loadServiceDescription(String serviceId) throws KeeperException {
+        T serviceDescription;
+        try {
+            serviceDescription = this.readServiceDescription(serviceId, this.resultType);
+        } catch (RuntimeException e) {
+            this.logger.error("Could not read service description '{}'. Keeping the previous version.", serviceId, e);
+            return;
+        }
+
+        if (serviceDescription == null) {
+            this.serviceDescriptions.remove(serviceId);
+        } else {
+            this.serviceDescriptions.put(serviceId, serviceDescription);
+        }
+    }
+
+    private void onWatchedEvent(WatchedEvent event) {
+        if (this.closed) {
+            return;
+        }
+
+        if (event.getType() == EventType.None) {
+            this.sessionRecovery.onSessionEvent(event);
+            return;
+        }
+
+        if ("/".equals(event.getPath())) {
+            if (event.getType() == EventType.NodeChildrenChanged) {
+                this.reloadExecutor.execute(this::updateServiceIds);
+            }
+            return;
+        }
+
+        // coalesce all events of one service that arrive within the reload delay into a single reload
+        String serviceId = getServiceId(event.getPath());
+        if (this.pendingServiceIds.add(serviceId)) {
+            this.reloadExecutor.schedule(() -> this.reload(serviceId), RELOAD_DELAY, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void publish() {
+        this.listener.accept(Map.copyOf(this.serviceDescriptions));
+    }
+
+    private void reload(String serviceId) {
+        this.pendingServiceIds.remove(serviceId);
+
+        try {
+            synchronized (this.serviceDescriptions) {
+                this.loadServiceDescription(serviceId);
+                this.publish();
+            }
+        } catch (KeeperException e) {
+            this.logger.error("Could not reload service description '{}'.", serviceId, e);
+        }
+    }
+
+    private void updateServiceIds() {
+        try {
+            List<String> children = this.execute(() -> this.getChildrenHedged("/"));
+
+            synchronized (this.serviceDescriptions) {
+                Set<String> removedServiceIds = new HashSet<>(this.watchedServiceIds);
+                removedServiceIds.removeAll(children);
+
+                for (String eachServiceId : removedServiceIds) {
+                    removeWatches(this.zooKeeper, combinePath("/", eachServiceId), this.watcher);
+                    this.watchedServiceIds.remove(eachServiceId);
+                    this.serviceDescriptions.remove(eachServiceId);
+                }
+
+                for (String eachServiceId : children) {
+                    if (!this.watchedServiceIds.contains(eachServiceId)) {
+                        this.watchServiceDescription(eachServiceId);
+                    }
+                }
+
+                this.publish();
+            }
+        } catch (KeeperException e) {
+            this.logger.error("Could not update the list of service descriptions.", e);
+        }
+    }
+
+    private void watchAll() throws KeeperException {
+        addWatch(this.zooKeeper, "/", this.watcher, AddWatchMode.PERSISTENT);
+
+        synchronized (this.serviceDescriptions) {
+            this.serviceDescriptions.clear();
+            this.watchedServiceIds.clear();
+
+            for (String eachServiceId : this.execute(() -> this.getChildrenHedged("/"))) {
+                this.watchServiceDescription(eachServiceId);
+            }
+
+            this.publish();
+        }
+    }
+
+    private void watchServiceDescription(String serviceId) throws KeeperException {
+        if (ZOOKEEPER_NODE.equals(serviceId) || ConfigurationSnapshot.SNAPSHOTS_NODE.equals(serviceId)) {
+            return;
+        }
+
+        addWatch(this.zooKeeper, combinePath("/", serviceId), this.watcher, AddWatchMode.PERSISTENT_RECURSIVE);
+        this.watchedServiceIds.add(serviceId);
+
+        this.loadServiceDescription(serviceId);
+    }
+}
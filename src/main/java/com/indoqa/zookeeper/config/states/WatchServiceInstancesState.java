@@ -0,0 +1,268 @@
+/*
+ * Licensed to the Indoqa Software Design und Beratung GmbH (Indoqa) under
+ * one or more contributor license agreements. See the NOTICE file distributed
+ * with this work for additional information regarding copyright ownership.
+ * Indoqa licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.indoqa.zookeeper.config.states;
+
+import static com.indoqa.zookeeper.config.states.ZooKeeperWatches.*;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import org.apache.zookeeper.AddWatchMode;
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.KeeperException.NoNodeException;
+import org.apache.zookeeper.WatchedEvent;
+import org.apache.zookeeper.Watcher;
+import org.apache.zookeeper.Watcher.Event.EventType;
+
+import com.indoqa.zookeeper.AbstractZooKeeperState;
+import com.indoqa.zookeeper.config.jfr.StateExecutionEvent;
+import com.indoqa.zookeeper.config.jfr.ZooKeeperOperationEvent;
+import com.indoqa.zookeeper.config.model.InstanceLoad;
+import com.indoqa.zookeeper.config.model.ServiceInstance;
+import com.indoqa.zookeeper.config.utils.ReflectionHelper;
+
+/**
+ * Reads the live instances of one service and keeps them current through a persistent, recursive watch on its
+ * <code>instances</code> node. Session nodes that are created or deleted and the loads published by
+ * {@link ReportInstanceLoadState} are applied incrementally. Every change is
+ * published to the listener as a new list of frozen instances that have at least one session. After the session expired, the
+ * watch is added again and all instances are read again as soon as a new session is connected. This state does not terminate
+ * until it is closed.
+ */
+public class WatchServiceInstancesState extends AbstractZooKeeperState implements AutoCloseable {
+
+    private static final String LOADS = "loads";
+    private static final String SESSIONS = "sessions";
+
+    private final String serviceId;
+    private final String instancesPath;
+    private final Consumer<List<ServiceInstance>> listener;
+
+    private final Map<String, ServiceInstance> instances = new HashMap<>();
+    private final Watcher watcher = this::onWatchedEvent;
+    private final SessionRecovery sessionRecovery = new SessionRecovery(this.logger, () -> this.zooKeeper, this::watchInstances);
+
+    private volatile boolean closed;
+
+    public WatchServiceInstancesState(String serviceId, Consumer<List<ServiceInstance>> listener) {
+        super("Watch Service Instances of '" + serviceId + "'");
+
+        this.serviceId = serviceId;
+        this.instancesPath = combinePath("/", serviceId, "instances");
+        this.listener = listener;
+    }
+
+    @Override
+    public void close() {
+        if (this.closed) {
+            return;
+        }
+
+        this.closed = true;
+        this.sessionRecovery.close();
+        this.terminate();
+
+        try {
+            removeWatches(this.zooKeeper, this.instancesPath, this.watcher);
+        } catch (KeeperException e) {
+            this.logger.warn("Could not remove watches.", e);
+        }
+    }
+
+    @Override
+    protected void onStart() throws KeeperException {
+        StateExecutionEvent.record(this, () -> {
+            super.onStart();
+
+            this.watchInstances();
+        });
+    }
+
+    private void onLoadChanged(String host, String session, EventType eventType) throws KeeperException {
+        synchronized (this.instances) {
+            if (eventType == EventType.NodeDeleted) {
+                ServiceInstance instance = this.instances.get(host);
+                if (instance == null || instance.getLoads().remove(session) == null) {
+                    return;
+                }
+            } else {
+                this.readLoad(host, session);
+            }
+
+            this.publish();
+        }
+    }
+
+    private void onSessionChanged(String host, String session, EventType eventType) throws KeeperException {
+        synchronized (this.instances) {
+            if (eventType == EventType.NodeDeleted) {
+                ServiceInstance instance = this.instances.get(host);
+                if (instance == null || instance.getSessions().remove(session) == null) {
+                    return;
+                }
+            } else {
+                this.readSession(host, session);
+            }
+
+            this.publish();
+        }
+    }
+
+    private void onWatchedEvent(WatchedEvent event) {
+        if (this.closed) {
+            return;
+        }
+
+        if (event.getType() == EventType.None) {
+            this.sessionRecovery.onSessionEvent(event);
+            return;
+        }
+
+        // only events of <instances>/<host>/sessions/<session> and <instances>/<host>/loads/<session> are relevant
+        String[] pathElements = event.getPath().substring(this.instancesPath.length()).split("/");
+        if (pathElements.length != 4) {
+            return;
+        }
+
+        try {
+            if (SESSIONS.equals(pathElements[2])) {
+                this.onSessionChanged(pathElements[1], pathElements[3], event.getType());
+            } else if (LOADS.equals(pathElements[2])) {
+                this.onLoadChanged(pathElements[1], pathElements[3], event.getType());
+            }
+        } catch (KeeperException e) {
+            this.logger.error("Could not update instances after event {}.", event, e);
+        }
+    }
+
+    private void publish() {
+        List<ServiceInstance> result = new ArrayList<>(this.instances.size());
+
+        for (ServiceInstance eachInstance : this.instances.values()) {
+            if (eachInstance.getSessions().isEmpty()) {
+                continue;
+            }
+
+            // publish frozen copies, because the instances in this state are modified by later events
+            ServiceInstance copy = new ServiceInstance();
+            copy.setName(eachInstance.getName());
+            copy.setSessions(eachInstance.getSessions());
+            copy.setLoads(eachInstance.getLoads());
+            copy.freeze();
+            result.add(copy);
+        }
+
+        this.listener.accept(result);
+    }
+
+    private ServiceInstance getInstance(String host) {
+        return this.instances.computeIfAbsent(host, key -> {
+            ServiceInstance instance = new ServiceInstance();
+            instance.setName(key);
+            return instance;
+        });
+    }
+
+    private void readLoad(String host, String session) throws KeeperException {
+        String loadPath = combinePath(this.instancesPath, host, LOADS, session);
+
+        InstanceLoad load;
+        try {
+            byte[] data = ZooKeeperOperationEvent.record("getData", loadPath, 0, () -> this.getData(loadPath, null));
+            if (data == null || data.length == 0) {
+                return;
+            }
+            load = InstanceLoad.parse(new String(data, UTF_8));
+        } catch (NoNodeException e) {
+            // the session ended in the meantime
+            return;
+        }
+
+        this.getInstance(host).setLoad(session, load);
+    }
+
+    private void readSession(String host, String session) throws KeeperException {
+        String sessionPath = combinePath(this.instancesPath, host, SESSIONS, session);
+
+        Instant startDate;
+        try {
+            byte[] data = ZooKeeperOperationEvent.record("getData", sessionPath, 0, () -> this.getData(sessionPath, null));
+            if (data == null || data.length == 0) {
+                startDate = null;
+            } else {
+                startDate = (Instant) ReflectionHelper.getDeserializedValue(new String(data, UTF_8), Instant.class);
+            }
+        } catch (NoNodeException e) {
+            // the session ended in the meantime
+            return;
+        }
+
+        this.getInstance(host).setSession(session, startDate);
+    }
+
+    private void readSessions(String host) throws KeeperException {
+        List<String> sessions;
+        try {
+            String sessionsPath = combinePath(this.instancesPath, host, SESSIONS);
+            sessions = ZooKeeperOperationEvent.record("getChildren", sessionsPath, 0, () -> this.getChildren(sessionsPath));
+        } catch (NoNodeException e) {
+            return;
+        }
+
+        for (String eachSession : sessions) {
+            this.readSession(host, eachSession);
+        }
+
+        List<String> loads;
+        try {
+            String loadsPath = combinePath(this.instancesPath, host, LOADS);
+            loads = ZooKeeperOperationEvent.record("getChildren", loadsPath, 0, () -> this.getChildren(loadsPath));
+        } catch (NoNodeException e) {
+            return;
+        }
+
+        for (String eachLoad : loads) {
+            this.readLoad(host, eachLoad);
+        }
+    }
+
+    private void watchInstances() throws KeeperException {
+        addWatch(this.zooKeeper, this.instancesPath, this.watcher, AddWatchMode.PERSISTENT_RECURSIVE);
+
+        synchronized (this.instances) {
+            this.instances.clear();
+
+            if (ZooKeeperOperationEvent.record("exists", this.instancesPath, 0, () -> this.exists(this.instancesPath))) {
+                List<String> hosts = ZooKeeperOperationEvent.record("getChildren", this.instancesPath, 0,
+                    () -> this.getChildren(this.instancesPath));
+                for (String eachHost : hosts) {
+                    this.readSessions(eachHost);
+                }
+            } else {
+                this.logger.warn("The path '{}' does not exist. Waiting for instances of '{}' to be registered.",
+                    this.instancesPath, this.serviceId);
+            }
+
+            this.publish();
+        }
+    }
+}
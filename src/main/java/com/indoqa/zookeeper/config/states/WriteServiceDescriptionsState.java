@@ -16,22 +16,15 @@
  */
 package com.indoqa.zookeeper.config.states;
 
-import static com.indoqa.zookeeper.config.utils.ReflectionHelper.*;
-import static java.nio.charset.StandardCharsets.UTF_8;
-
-import java.lang.reflect.Array;
-import java.lang.reflect.Field;
-import java.lang.reflect.ParameterizedType;
-import java.lang.reflect.Type;
 import java.util.Collection;
-import java.util.Map;
-import java.util.Map.Entry;
 
 import org.apache.zookeeper.KeeperException;
 
 import com.indoqa.zookeeper.AbstractZooKeeperState;
+import com.indoqa.zookeeper.config.jfr.StateExecutionEvent;
 import com.indoqa.zookeeper.config.model.AbstractServiceDescription;
-import com.indoqa.zookeeper.config.utils.ReflectionHelper;
+import com.indoqa.zookeeper.config.store.ServiceDescriptionWriter;
+import com.indoqa.zookeeper.config.store.ZooKeeperNodeStore;
 
 public class WriteServiceDescriptionsState<T extends AbstractServiceDescription> extends AbstractZooKeeperState {
 
@@ -44,115 +37,15 @@ public class WriteServiceDescriptionsState<T extends AbstractServiceDescription>
 
     @Override
     protected void onStart() throws KeeperException {
-        this.terminate();
-        this.ensureNodeExists("/");
-
-        for (AbstractServiceDescription eachServiceDescription : this.serviceDescriptions) {
-            this.create(eachServiceDescription);
-        }
-    }
-
-    private void create(AbstractServiceDescription serviceDescription) throws KeeperException {
-        this.logger.info("Creating service description '{}' ...", serviceDescription.getId());
-
-        String servicePath = combinePath("/", serviceDescription.getId());
-        this.write(servicePath, serviceDescription, serviceDescription.getClass());
-    }
-
-    @SuppressWarnings("unchecked")
-    private void write(String path, Object object, Type type) throws KeeperException {
-        this.ensureNodeExists(path);
-
-        if (object == null) {
-            this.writeNull(path);
-            return;
-        }
-
-        if (isSimpleType(type)) {
-            this.writeSimpleValue(path, object);
-            return;
-        }
-
-        if (Map.class.isInstance(object)) {
-            this.writeMapValue(path, (Map<String, ?>) object, type);
-            return;
-        }
-
-        if (Collection.class.isInstance(object)) {
-            this.writeCollectionValue(path, (Collection<?>) object, type);
-            return;
-        }
-
-        if (isArray(type)) {
-            this.writeArray(path, object, type);
-            return;
-        }
-
-        this.writeObject(path, object);
-    }
-
-    private void writeArray(String path, Object value, Type type) throws KeeperException {
-        Type valueType = ((Class<?>) type).getComponentType();
-
-        int length = Array.getLength(value);
-        for (int i = 0; i < length; i++) {
-            Object eachValue = Array.get(value, i);
-
-            String valuePath = combinePath(path, String.valueOf(i));
-            this.write(valuePath, eachValue, valueType);
-        }
-    }
-
-    private void writeCollectionValue(String path, Collection<?> value, Type type) throws KeeperException {
-        ParameterizedType parameterizedType = (ParameterizedType) type;
-        Type valueType = parameterizedType.getActualTypeArguments()[0];
-
-        int index = 0;
-        for (Object eachValue : value) {
-            String valuePath = combinePath(path, String.valueOf(index));
-            this.write(valuePath, eachValue, valueType);
-
-            index++;
-        }
-    }
-
-    private void writeMapValue(String path, Map<String, ?> value, Type type) throws KeeperException {
-        if (!isCompatibleMap(type)) {
-            throw new IllegalArgumentException("Incompatible map type " + type);
-        }
-
-        ParameterizedType parameterizedType = (ParameterizedType) type;
-        Type valueType = parameterizedType.getActualTypeArguments()[1];
-
-        for (Entry<String, ?> eachEntry : value.entrySet()) {
-            String valuePath = combinePath(path, eachEntry.getKey());
-            this.write(valuePath, eachEntry.getValue(), valueType);
-        }
-    }
-
-    private void writeNull(String targetPath) throws KeeperException {
-        this.writeValue(targetPath, "");
-    }
-
-    private void writeObject(String path, Object object) throws KeeperException {
-        Class<?> currentClass = object.getClass();
-        while (currentClass != null) {
-            for (Field eachDeclaredField : currentClass.getDeclaredFields()) {
-                String valuePath = combinePath(path, eachDeclaredField.getName());
-                Object value = getFieldValue(eachDeclaredField, object);
-                this.write(valuePath, value, eachDeclaredField.getGenericType());
+        StateExecutionEvent.record(this, () -> {
+            this.terminate();
+            this.ensureNodeExists("/");
+
+            ServiceDescriptionWriter writer = new ServiceDescriptionWriter(new ZooKeeperNodeStore(this.zooKeeper));
+            for (AbstractServiceDescription eachServiceDescription : this.serviceDescriptions) {
+                this.logger.info("Creating service description '{}' ...", eachServiceDescription.getId());
+                writer.write(eachServiceDescription);
             }
-
-            currentClass = currentClass.getSuperclass();
-        }
-    }
-
-    private void writeSimpleValue(String targetPath, Object value) throws KeeperException {
-        String serializedValue = ReflectionHelper.getSerializedValue(value);
-        this.writeValue(targetPath, serializedValue);
-    }
-
-    private void writeValue(String path, String value) throws KeeperException {
-        this.setData(path, value.getBytes(UTF_8), -1);
+        });
     }
 }
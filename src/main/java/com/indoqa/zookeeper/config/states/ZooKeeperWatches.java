@@ -0,0 +1,62 @@
+/*
+ * Licensed to the Indoqa Software Design und Beratung GmbH (Indoqa) under
+ * one or more contributor license agreements. See the NOTICE file distributed
+ * with this work for additional information regarding copyright ownership.
+ * Indoqa licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.indoqa.zookeeper.config.states;
+
+import org.apache.zookeeper.AddWatchMode;
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.Watcher;
+import org.apache.zookeeper.Watcher.WatcherType;
+import org.apache.zookeeper.ZooKeeper;
+
+/**
+ * Helper for states that keep their results current through persistent watches.
+ */
+final class ZooKeeperWatches {
+
+    private ZooKeeperWatches() {
+        // hide utility class constructor
+    }
+
+    public static void addWatch(ZooKeeper zooKeeper, String path, Watcher watcher, AddWatchMode mode) throws KeeperException {
+        try {
+            zooKeeper.addWatch(path, watcher, mode);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while adding a watch for '" + path + "'.", e);
+        }
+    }
+
+    public static void removeWatches(ZooKeeper zooKeeper, String path, Watcher watcher) throws KeeperException {
+        try {
+            zooKeeper.removeWatches(path, watcher, WatcherType.Any, true);
+        } catch (KeeperException.NoWatcherException e) {
+            // the watch is already gone -> nothing to do
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while removing the watches for '" + path + "'.", e);
+        }
+    }
+
+    public static String getServiceId(String path) {
+        int endIndex = path.indexOf('/', 1);
+        if (endIndex == -1) {
+            return path.substring(1);
+        }
+
+        return path.substring(1, endIndex);
+    }
+}
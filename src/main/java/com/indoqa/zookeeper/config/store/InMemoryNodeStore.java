@@ -0,0 +1,140 @@
+/*
+ * Licensed to the Indoqa Software Design und Beratung GmbH (Indoqa) under
+ * one or more contributor license agreements. See the NOTICE file distributed
+ * with this work for additional information regarding copyright ownership.
+ * Indoqa licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.indoqa.zookeeper.config.store;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.KeeperException.NoNodeException;
+
+/**
+ * A concurrent {@link NodeStore} that keeps all nodes in memory. Each operation can be delayed by a fixed, simulated latency,
+ * so that the effect of saving round trips can be measured deterministically without a ZooKeeper ensemble.
+ */
+public class InMemoryNodeStore implements NodeStore {
+
+    private static final String ROOT = "/";
+
+    private final long latencyNanos;
+    private final Map<String, Node> nodes = new ConcurrentHashMap<>();
+
+    public InMemoryNodeStore() {
+        this(Duration.ZERO);
+    }
+
+    public InMemoryNodeStore(Duration latency) {
+        this.latencyNanos = latency.toNanos();
+        this.nodes.put(ROOT, new Node());
+    }
+
+    private static String getParentPath(String path) {
+        int index = path.lastIndexOf('/');
+        if (index == 0) {
+            return ROOT;
+        }
+
+        return path.substring(0, index);
+    }
+
+    @Override
+    public void ensureNodeExists(String path) {
+        this.simulateLatency();
+        this.createNode(path);
+    }
+
+    @Override
+    public boolean exists(String path) {
+        this.simulateLatency();
+        return this.nodes.containsKey(path);
+    }
+
+    @Override
+    public List<String> getChildren(String path) throws KeeperException {
+        this.simulateLatency();
+        return new ArrayList<>(this.getNode(path).children);
+    }
+
+    @Override
+    public byte[] getData(String path) throws KeeperException {
+        this.simulateLatency();
+        return this.getNode(path).data.clone();
+    }
+
+    /**
+     * @return The number of nodes in this store, including the root node.
+     */
+    public int getNodeCount() {
+        return this.nodes.size();
+    }
+
+    @Override
+    public void setData(String path, byte[] data) throws KeeperException {
+        this.simulateLatency();
+        this.getNode(path).data = data.clone();
+    }
+
+    private Node createNode(String path) {
+        Node node = this.nodes.get(path);
+        if (node != null) {
+            return node;
+        }
+
+        Node parent = this.createNode(getParentPath(path));
+        Node result = this.nodes.computeIfAbsent(path, key -> new Node());
+        parent.children.add(path.substring(path.lastIndexOf('/') + 1));
+        return result;
+    }
+
+    private Node getNode(String path) throws NoNodeException {
+        Node result = this.nodes.get(path);
+        if (result == null) {
+            throw new NoNodeException(path);
+        }
+
+        return result;
+    }
+
+    private void simulateLatency() {
+        if (this.latencyNanos <= 0) {
+            return;
+        }
+
+        long deadline = System.nanoTime() + this.latencyNanos;
+        long remaining = this.latencyNanos;
+        while (remaining > 0) {
+            LockSupport.parkNanos(remaining);
+            if (Thread.interrupted()) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while simulating latency.");
+            }
+            remaining = deadline - System.nanoTime();
+        }
+    }
+
+    private static class Node {
+
+        private final NavigableSet<String> children = new ConcurrentSkipListSet<>();
+        private volatile byte[] data = new byte[0];
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Licensed to the Indoqa Software Design und Beratung GmbH (Indoqa) under
+ * one or more contributor license agreements. See the NOTICE file distributed
+ * with this work for additional information regarding copyright ownership.
+ * Indoqa licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.indoqa.zookeeper.config.store;
+
+import java.util.List;
+
+import org.apache.zookeeper.KeeperException;
+
+/**
+ * The operations on a tree of nodes that are needed to map service descriptions. Implementations are thread-safe and report
+ * missing nodes with {@link org.apache.zookeeper.KeeperException.NoNodeException}, just like ZooKeeper does.
+ */
+public interface NodeStore {
+
+    static String combinePath(String parent, String child) {
+        if (parent.endsWith("/")) {
+            return parent + child;
+        }
+
+        return parent + "/" + child;
+    }
+
+    /**
+     * Create the node at <code>path</code> and all of its missing ancestors.
+     */
+    void ensureNodeExists(String path) throws KeeperException;
+
+    boolean exists(String path) throws KeeperException;
+
+    List<String> getChildren(String path) throws KeeperException;
+
+    /**
+     * @return The data of the node at <code>path</code>, never <code>null</code>.
+     */
+    byte[] getData(String path) throws KeeperException;
+
+    void setData(String path, byte[] data) throws KeeperException;
+}
@@ -0,0 +1,214 @@
+/*
+ * Licensed to the Indoqa Software Design und Beratung GmbH (Indoqa) under
+ * one or more contributor license agreements. See the NOTICE file distributed
+ * with this work for additional information regarding copyright ownership.
+ * Indoqa licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.indoqa.zookeeper.config.store;
+
+import static com.indoqa.zookeeper.config.store.NodeStore.combinePath;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.KeeperException.NoNodeException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.indoqa.zookeeper.config.jfr.DescriptionMappingEvent;
+import com.indoqa.zookeeper.config.model.AbstractServiceDescription;
+import com.indoqa.zookeeper.config.model.FieldProjection;
+import com.indoqa.zookeeper.config.utils.ReadDeadlineExceededException;
+import com.indoqa.zookeeper.config.utils.ReflectionHelper;
+
+/**
+ * Maps the nodes below <code>/&lt;serviceId&gt;</code> of a {@link NodeStore} to a service description.
+ */
+public class ServiceDescriptionReader {
+
+    private static final String ID_FIELD = "id";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ServiceDescriptionReader.class);
+
+    private final NodeStore nodeStore;
+    private final List<String> missingPaths;
+
+    public ServiceDescriptionReader(NodeStore nodeStore) {
+        this(nodeStore, null);
+    }
+
+    /**
+     * @param missingPaths If not <code>null</code>, the paths of fields that could not be read before the deadline of the
+     *            node store are added to this list and the fields are left empty, instead of failing the whole read.
+     */
+    public ServiceDescriptionReader(NodeStore nodeStore, List<String> missingPaths) {
+        this.nodeStore = nodeStore;
+        this.missingPaths = missingPaths;
+    }
+
+    /**
+     * @return The service description or <code>null</code> if there is no service description with the given id.
+     */
+    public <T extends AbstractServiceDescription> T read(String serviceId, Class<T> resultType, FieldProjection projection)
+            throws KeeperException {
+        DescriptionMappingEvent event = DescriptionMappingEvent.startRead(serviceId, resultType);
+
+        try {
+            String path = combinePath("/", serviceId);
+            if (!this.nodeStore.exists(path)) {
+                return null;
+            }
+
+            // the id is always required to recognize a service description
+            T result = resultType.cast(this.readValue(path, resultType, projection.with(ID_FIELD)));
+            if (result.getId() == null) {
+                return null;
+            }
+
+            result.onRead();
+            return result;
+        } finally {
+            event.commit();
+        }
+    }
+
+    private Object readArray(String path, Type type, FieldProjection projection) throws KeeperException {
+        Class<?> valueType = ((Class<?>) type).getComponentType();
+
+        List<String> children = this.nodeStore.getChildren(path);
+        Object result = Array.newInstance(valueType, children.size());
+
+        int index = 0;
+        for (String eachChild : children) {
+            Object childValue = this.readValue(combinePath(path, eachChild), valueType, projection);
+            Array.set(result, index, childValue);
+            index++;
+        }
+
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Object readCollection(String path, Type type, FieldProjection projection) throws KeeperException {
+        Collection<Object> result = (Collection<Object>) ReflectionHelper.createInstance(type);
+
+        Type valueType = ((ParameterizedType) type).getActualTypeArguments()[0];
+
+        List<String> children = this.nodeStore.getChildren(path);
+        for (String eachChild : children) {
+            Object childValue = this.readValue(combinePath(path, eachChild), valueType, projection);
+            result.add(childValue);
+        }
+
+        return result;
+    }
+
+    private byte[] readData(String path) throws KeeperException {
+        try {
+            return this.nodeStore.getData(path);
+        } catch (NoNodeException e) {
+            LOGGER.error("Could not find node '{}'.", path, e);
+            return null;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Object readMap(String path, Type type, FieldProjection projection) throws KeeperException {
+        Map<String, Object> result = (Map<String, Object>) ReflectionHelper.createInstance(type);
+
+        Type valueType = ((ParameterizedType) type).getActualTypeArguments()[1];
+
+        List<String> children = this.nodeStore.getChildren(path);
+        for (String eachChild : children) {
+            Object childValue = this.readValue(combinePath(path, eachChild), valueType, projection);
+            result.put(eachChild, childValue);
+        }
+
+        return result;
+    }
+
+    private Object readObject(String path, Type type, FieldProjection projection) throws KeeperException {
+        LOGGER.debug("ReadObject {} {}", path, type.getTypeName());
+        Object result = ReflectionHelper.createInstance(type);
+
+        Class<?> currentClass = result.getClass();
+        while (currentClass != null) {
+            for (Field eachDeclaredField : currentClass.getDeclaredFields()) {
+                if (!ReflectionHelper.isStoredField(eachDeclaredField)) {
+                    continue;
+                }
+
+                FieldProjection fieldProjection = projection.getFieldProjection(eachDeclaredField.getName());
+                if (fieldProjection == null) {
+                    continue;
+                }
+
+                String valuePath = combinePath(path, eachDeclaredField.getName());
+                Object value;
+                try {
+                    value = this.readValue(valuePath, eachDeclaredField.getGenericType(), fieldProjection);
+                } catch (ReadDeadlineExceededException e) {
+                    if (this.missingPaths == null) {
+                        throw e;
+                    }
+                    this.missingPaths.add(valuePath);
+                    continue;
+                }
+                ReflectionHelper.setFieldValue(eachDeclaredField, result, value);
+            }
+
+            currentClass = currentClass.getSuperclass();
+        }
+
+        return result;
+    }
+
+    private Object readSimpleValue(String path, Type type) throws KeeperException {
+        byte[] data = this.readData(path);
+        if (data == null) {
+            return null;
+        }
+
+        return ReflectionHelper.getDeserializedValue(data, type);
+    }
+
+    private Object readValue(String path, Type type, FieldProjection projection) throws KeeperException {
+        if (!this.nodeStore.exists(path)) {
+            return null;
+        }
+
+        if (ReflectionHelper.isSimpleType(type)) {
+            return this.readSimpleValue(path, type);
+        }
+
+        if (ReflectionHelper.isMap(type)) {
+            return this.readMap(path, type, projection);
+        }
+
+        if (ReflectionHelper.isCollection(type)) {
+            return this.readCollection(path, type, projection);
+        }
+
+        if (ReflectionHelper.isArray(type)) {
+            return this.readArray(path, type, projection);
+        }
+
+        return this.readObject(path, type, projection);
+    }
+}
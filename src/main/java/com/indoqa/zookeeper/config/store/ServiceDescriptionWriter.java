@@ -0,0 +1,159 @@
+/*
+ * Licensed to the Indoqa Software Design und Beratung GmbH (Indoqa) under
+ * one or more contributor license agreements. See the NOTICE file distributed
+ * with this work for additional information regarding copyright ownership.
+ * Indoqa licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.indoqa.zookeeper.config.store;
+
+import static com.indoqa.zookeeper.config.store.NodeStore.combinePath;
+import static com.indoqa.zookeeper.config.utils.ReflectionHelper.*;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.apache.zookeeper.KeeperException;
+
+import com.indoqa.zookeeper.config.jfr.DescriptionMappingEvent;
+import com.indoqa.zookeeper.config.model.AbstractServiceDescription;
+import com.indoqa.zookeeper.config.utils.ReflectionHelper;
+
+/**
+ * Maps a service description to the nodes below <code>/&lt;serviceId&gt;</code> of a {@link NodeStore}.
+ */
+public class ServiceDescriptionWriter {
+
+    private final NodeStore nodeStore;
+
+    public ServiceDescriptionWriter(NodeStore nodeStore) {
+        this.nodeStore = nodeStore;
+    }
+
+    public void write(AbstractServiceDescription serviceDescription) throws KeeperException {
+        String serviceId = serviceDescription.getId();
+        DescriptionMappingEvent event = DescriptionMappingEvent.startWrite(serviceId, serviceDescription.getClass());
+
+        try {
+            String servicePath = combinePath("/", serviceId);
+            this.write(servicePath, serviceDescription, serviceDescription.getClass());
+        } finally {
+            event.commit();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void write(String path, Object object, Type type) throws KeeperException {
+        this.nodeStore.ensureNodeExists(path);
+
+        if (object == null) {
+            this.writeNull(path);
+            return;
+        }
+
+        if (isSimpleType(type)) {
+            this.writeSimpleValue(path, object, type);
+            return;
+        }
+
+        if (Map.class.isInstance(object)) {
+            this.writeMapValue(path, (Map<String, ?>) object, type);
+            return;
+        }
+
+        if (Collection.class.isInstance(object)) {
+            this.writeCollectionValue(path, (Collection<?>) object, type);
+            return;
+        }
+
+        if (isArray(type)) {
+            this.writeArray(path, object, type);
+            return;
+        }
+
+        this.writeObject(path, object);
+    }
+
+    private void writeArray(String path, Object value, Type type) throws KeeperException {
+        Type valueType = ((Class<?>) type).getComponentType();
+
+        int length = Array.getLength(value);
+        for (int i = 0; i < length; i++) {
+            Object eachValue = Array.get(value, i);
+
+            String valuePath = combinePath(path, String.valueOf(i));
+            this.write(valuePath, eachValue, valueType);
+        }
+    }
+
+    private void writeCollectionValue(String path, Collection<?> value, Type type) throws KeeperException {
+        ParameterizedType parameterizedType = (ParameterizedType) type;
+        Type valueType = parameterizedType.getActualTypeArguments()[0];
+
+        int index = 0;
+        for (Object eachValue : value) {
+            String valuePath = combinePath(path, String.valueOf(index));
+            this.write(valuePath, eachValue, valueType);
+
+            index++;
+        }
+    }
+
+    private void writeMapValue(String path, Map<String, ?> value, Type type) throws KeeperException {
+        if (!isCompatibleMap(type)) {
+            throw new IllegalArgumentException("Incompatible map type " + type);
+        }
+
+        ParameterizedType parameterizedType = (ParameterizedType) type;
+        Type valueType = parameterizedType.getActualTypeArguments()[1];
+
+        for (Entry<String, ?> eachEntry : value.entrySet()) {
+            String valuePath = combinePath(path, eachEntry.getKey());
+            this.write(valuePath, eachEntry.getValue(), valueType);
+        }
+    }
+
+    private void writeNull(String targetPath) throws KeeperException {
+        this.writeValue(targetPath, "");
+    }
+
+    private void writeObject(String path, Object object) throws KeeperException {
+        Class<?> currentClass = object.getClass();
+        while (currentClass != null) {
+            for (Field eachDeclaredField : currentClass.getDeclaredFields()) {
+                if (!isStoredField(eachDeclaredField)) {
+                    continue;
+                }
+
+                String valuePath = combinePath(path, eachDeclaredField.getName());
+                Object value = getFieldValue(eachDeclaredField, object);
+                this.write(valuePath, value, eachDeclaredField.getGenericType());
+            }
+
+            currentClass = currentClass.getSuperclass();
+        }
+    }
+
+    private void writeSimpleValue(String targetPath, Object value, Type type) throws KeeperException {
+        this.nodeStore.setData(targetPath, ReflectionHelper.getSerializedData(value, type));
+    }
+
+    private void writeValue(String path, String value) throws KeeperException {
+        this.nodeStore.setData(path, value.getBytes(UTF_8));
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Indoqa Software Design und Beratung GmbH (Indoqa) under
+ * one or more contributor license agreements. See the NOTICE file distributed
+ * with this work for additional information regarding copyright ownership.
+ * Indoqa licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.indoqa.zookeeper.config.store;
+
+import java.util.List;
+
+import org.apache.zookeeper.CreateMode;
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.KeeperException.NodeExistsException;
+import org.apache.zookeeper.ZooDefs.Ids;
+import org.apache.zookeeper.ZooKeeper;
+
+import com.indoqa.zookeeper.config.jfr.ZooKeeperOperationEvent;
+import com.indoqa.zookeeper.config.utils.ZooKeeperRequestPolicy;
+
+/**
+ * A {@link NodeStore} backed by a ZooKeeper session. All operations are executed according to a
+ * {@link ZooKeeperRequestPolicy}.
+ */
+public class ZooKeeperNodeStore implements NodeStore {
+
+    private static final byte[] EMPTY_DATA = new byte[0];
+
+    private final ZooKeeper zooKeeper;
+    private final ZooKeeperRequestPolicy requestPolicy;
+
+    public ZooKeeperNodeStore(ZooKeeper zooKeeper) {
+        this(zooKeeper, ZooKeeperRequestPolicy.getDefault());
+    }
+
+    public ZooKeeperNodeStore(ZooKeeper zooKeeper, ZooKeeperRequestPolicy requestPolicy) {
+        this.zooKeeper = zooKeeper;
+        this.requestPolicy = requestPolicy;
+    }
+
+    @Override
+    public void ensureNodeExists(String path) throws KeeperException {
+        if (this.exists(path)) {
+            return;
+        }
+
+        int index = path.indexOf('/', 1);
+        while (index != -1) {
+            this.create(path.substring(0, index));
+            index = path.indexOf('/', index + 1);
+        }
+        this.create(path);
+    }
+
+    @Override
+    public boolean exists(String path) throws KeeperException {
+        return this.requestPolicy.execute(this.zooKeeper,
+            () -> ZooKeeperOperationEvent.record("exists", path, 0, () -> this.zooKeeper.exists(path, false)) != null);
+    }
+
+    @Override
+    public List<String> getChildren(String path) throws KeeperException {
+        return this.requestPolicy.execute(this.zooKeeper,
+            () -> ZooKeeperOperationEvent.record("getChildren", path, 0, () -> this.zooKeeper.getChildren(path, false)));
+    }
+
+    @Override
+    public byte[] getData(String path) throws KeeperException {
+        byte[] result = this.requestPolicy.execute(this.zooKeeper,
+            () -> ZooKeeperOperationEvent.record("getData", path, 0, () -> this.zooKeeper.getData(path, false, null)));
+        if (result == null) {
+            return EMPTY_DATA;
+        }
+
+        return result;
+    }
+
+    @Override
+    public void setData(String path, byte[] data) throws KeeperException {
+        this.requestPolicy.execute(this.zooKeeper,
+            () -> ZooKeeperOperationEvent.record("setData", path, data == null ? 0 : data.length,
+                () -> this.zooKeeper.setData(path, data, -1)));
+    }
+
+    private void create(String path) throws KeeperException {
+        try {
+            this.requestPolicy.execute(this.zooKeeper, () -> ZooKeeperOperationEvent.record("create", path, 0,
+                () -> this.zooKeeper.create(path, EMPTY_DATA, Ids.OPEN_ACL_UNSAFE, CreateMode.PERSISTENT)));
+        } catch (NodeExistsException e) {
+            // created concurrently or by a retry
+        }
+    }
+}
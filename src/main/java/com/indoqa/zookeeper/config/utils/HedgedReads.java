@@ -0,0 +1,315 @@
+/*
+ * Licensed to the Indoqa Software Design und Beratung GmbH (Indoqa) under
+ * one or more contributor license agreements. See the NOTICE file distributed
+ * with this work for additional information regarding copyright ownership.
+ * Indoqa licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.indoqa.zookeeper.config.utils;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.KeeperException.Code;
+import org.apache.zookeeper.ZooKeeper;
+import org.apache.zookeeper.data.Stat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Hedges reads with a second session to a different member of the ensemble. A read is sent on the session of the state first.
+ * If it has not been answered after a delay, the same read is sent on the second session. A successful reply of the second
+ * session is used if it arrives first, all other outcomes are left to the reply of the first session. The delay is a
+ * percentile of the recent read latencies, bounded by a maximum delay, so that only the slowest reads are hedged.
+ * <p>
+ * The second session is opened with the first hedged read and opened again after it expired. Like every session it connects
+ * to a random member of the ensemble, which may lag behind the one of the first session by a few transactions, like any other
+ * follower.
+ */
+public final class HedgedReads implements AutoCloseable {
+
+    public static final String PROP_ENABLED = "zookeeper.hedged-reads.enabled";
+    public static final String PROP_PERCENTILE = "zookeeper.hedged-reads.percentile";
+    public static final String PROP_MAX_DELAY = "zookeeper.hedged-reads.max-delay";
+
+    private static final double DEFAULT_PERCENTILE = 95;
+    private static final long DEFAULT_MAX_DELAY = 50;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(HedgedReads.class);
+
+    private final String connectString;
+    private final int sessionTimeout;
+    private final long maxDelay;
+    private final LatencyPercentile latencies;
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder hedgedRequests = new LongAdder();
+    private final LongAdder hedgeWins = new LongAdder();
+
+    private ZooKeeper hedgeSession;
+
+    public HedgedReads(String connectString, int sessionTimeout) {
+        this(connectString, sessionTimeout, DEFAULT_PERCENTILE, Duration.ofMillis(DEFAULT_MAX_DELAY));
+    }
+
+    /**
+     * @param percentile The percentile of the recent read latencies after which a read is hedged.
+     * @param maxDelay The delay until enough latencies have been recorded and the upper bound of the delay.
+     */
+    public HedgedReads(String connectString, int sessionTimeout, double percentile, Duration maxDelay) {
+        if (percentile <= 0 || percentile > 100 || maxDelay.isNegative()) {
+            throw new IllegalArgumentException("Invalid hedged reads " + percentile + "/" + maxDelay + ".");
+        }
+
+        this.connectString = connectString;
+        this.sessionTimeout = sessionTimeout;
+        this.latencies = new LatencyPercentile(percentile);
+        this.maxDelay = maxDelay.toNanos();
+    }
+
+    /**
+     * Create hedged reads from the <code>zookeeper.hedged-reads.*</code> properties.
+     *
+     * @return The hedged reads or <code>null</code> if <code>zookeeper.hedged-reads.enabled</code> is not <code>true</code>.
+     */
+    public static HedgedReads fromProperties(String connectString, int sessionTimeout, Function<String, String> properties) {
+        if (!Boolean.parseBoolean(properties.apply(PROP_ENABLED))) {
+            return null;
+        }
+
+        String percentile = properties.apply(PROP_PERCENTILE);
+        String maxDelay = properties.apply(PROP_MAX_DELAY);
+        try {
+            return new HedgedReads(connectString, sessionTimeout,
+                percentile == null || percentile.isBlank() ? DEFAULT_PERCENTILE : Double.parseDouble(percentile.trim()),
+                Duration.ofMillis(maxDelay == null || maxDelay.isBlank() ? DEFAULT_MAX_DELAY : Long.parseLong(maxDelay.trim())));
+        } catch (IllegalArgumentException e) {
+            throw new ZooKeeperRegistrationException("Error while parsing the properties " + PROP_PERCENTILE + " and "
+                + PROP_MAX_DELAY, e);
+        }
+    }
+
+    private static <T> void complete(CompletableFuture<T> future, int resultCode, String path, T value) {
+        if (resultCode == Code.OK.intValue()) {
+            future.complete(value);
+        } else {
+            future.completeExceptionally(KeeperException.create(Code.get(resultCode), path));
+        }
+    }
+
+    private static void copyStat(Stat source, Stat target) {
+        target.setCzxid(source.getCzxid());
+        target.setMzxid(source.getMzxid());
+        target.setCtime(source.getCtime());
+        target.setMtime(source.getMtime());
+        target.setVersion(source.getVersion());
+        target.setCversion(source.getCversion());
+        target.setAversion(source.getAversion());
+        target.setEphemeralOwner(source.getEphemeralOwner());
+        target.setDataLength(source.getDataLength());
+        target.setNumChildren(source.getNumChildren());
+        target.setPzxid(source.getPzxid());
+    }
+
+    @Override
+    public synchronized void close() {
+        LOGGER.info("Hedged reads: {}", this);
+
+        this.closeHedgeSession();
+    }
+
+    public List<String> getChildren(ZooKeeper zooKeeper, String path) throws KeeperException {
+        return this.execute(zooKeeper, session -> {
+            CompletableFuture<List<String>> result = new CompletableFuture<>();
+            session.getChildren(path, false, (resultCode, resultPath, context, children) -> complete(result, resultCode, path,
+                children), null);
+            return result;
+        });
+    }
+
+    public byte[] getData(ZooKeeper zooKeeper, String path, Stat stat) throws KeeperException {
+        DataReply reply = this.execute(zooKeeper, session -> {
+            CompletableFuture<DataReply> result = new CompletableFuture<>();
+            session.getData(path, false, (resultCode, resultPath, context, data, dataStat) -> complete(result, resultCode, path,
+                new DataReply(data, dataStat)), null);
+            return result;
+        });
+
+        if (stat != null) {
+            copyStat(reply.stat, stat);
+        }
+        return reply.data;
+    }
+
+    /**
+     * @return The number of reads that were sent on the second session, too.
+     */
+    public long getHedgedRequestCount() {
+        return this.hedgedRequests.sum();
+    }
+
+    /**
+     * @return The number of hedged reads that were answered on the second session first.
+     */
+    public long getHedgeWinCount() {
+        return this.hedgeWins.sum();
+    }
+
+    public long getRequestCount() {
+        return this.requests.sum();
+    }
+
+    @Override
+    public String toString() {
+        return this.getRequestCount() + " read(s), " + this.getHedgedRequestCount() + " hedged, " + this.getHedgeWinCount()
+            + " answered by the hedge, current delay " + TimeUnit.NANOSECONDS.toMillis(this.getDelay()) + " ms";
+    }
+
+    private <T> T await(CompletableFuture<T> future) throws KeeperException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for ZooKeeper.", e);
+        } catch (ExecutionException e) {
+            throw this.unwrap(e);
+        }
+    }
+
+    private void closeHedgeSession() {
+        if (this.hedgeSession == null) {
+            return;
+        }
+
+        try {
+            this.hedgeSession.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            this.hedgeSession = null;
+        }
+    }
+
+    private <T> void completeWith(CompletableFuture<T> result, T value, Throwable error, long start, boolean hedge) {
+        boolean completed = error == null ? result.complete(value) : result.completeExceptionally(error);
+        if (!completed) {
+            return;
+        }
+
+        this.latencies.record(System.nanoTime() - start);
+        if (hedge && error == null) {
+            this.hedgeWins.increment();
+        }
+    }
+
+    private <T> T execute(ZooKeeper zooKeeper, Function<ZooKeeper, CompletableFuture<T>> request) throws KeeperException {
+        this.requests.increment();
+        long start = System.nanoTime();
+
+        CompletableFuture<T> reply = request.apply(zooKeeper);
+        try {
+            T result = reply.get(this.getDelay(), TimeUnit.NANOSECONDS);
+            this.latencies.record(System.nanoTime() - start);
+            return result;
+        } catch (TimeoutException e) {
+            // hedge below
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for ZooKeeper.", e);
+        } catch (ExecutionException e) {
+            throw this.unwrap(e);
+        }
+
+        ZooKeeper session = this.getHedgeSession();
+        if (session == null) {
+            return this.await(reply);
+        }
+
+        this.hedgedRequests.increment();
+        CompletableFuture<T> hedgeReply = request.apply(session);
+
+        // errors of the hedge, e.g. a missing node on a lagging member, must not override the reply of the first session
+        CompletableFuture<T> result = new CompletableFuture<>();
+        reply.whenComplete((value, error) -> this.completeWith(result, value, error, start, false));
+        hedgeReply.whenComplete((value, error) -> {
+            if (error == null) {
+                this.completeWith(result, value, null, start, true);
+            }
+        });
+
+        return this.await(result);
+    }
+
+    private long getDelay() {
+        long percentile = this.latencies.get();
+        if (percentile == -1) {
+            return this.maxDelay;
+        }
+
+        return Math.min(percentile, this.maxDelay);
+    }
+
+    /**
+     * @return The second session, which is opened again if it has expired, or <code>null</code> if it cannot be opened.
+     */
+    private synchronized ZooKeeper getHedgeSession() {
+        if (this.hedgeSession != null && this.hedgeSession.getState().isAlive()) {
+            return this.hedgeSession;
+        }
+
+        if (this.hedgeSession != null) {
+            LOGGER.warn("The session for hedged reads has expired, opening a new one.");
+            this.closeHedgeSession();
+        }
+
+        try {
+            this.hedgeSession = new ZooKeeper(this.connectString, this.sessionTimeout, event -> {
+                // the hedge session does not watch any nodes
+            });
+            LOGGER.info("Opened a session to '{}' for hedged reads.", this.connectString);
+        } catch (IOException e) {
+            LOGGER.error("Could not open a session to '{}' for hedged reads.", this.connectString, e);
+        }
+
+        return this.hedgeSession;
+    }
+
+    private KeeperException unwrap(ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof KeeperException) {
+            return (KeeperException) cause;
+        }
+        if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+        }
+        throw new IllegalStateException("ZooKeeper read failed.", cause);
+    }
+
+    private static final class DataReply {
+
+        private final byte[] data;
+        private final Stat stat;
+
+        private DataReply(byte[] data, Stat stat) {
+            this.data = data;
+            this.stat = stat;
+        }
+    }
+}
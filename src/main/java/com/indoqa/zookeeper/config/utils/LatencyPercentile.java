@@ -0,0 +1,67 @@
+/*
+ * Licensed to the Indoqa Software Design und Beratung GmbH (Indoqa) under
+ * one or more contributor license agreements. See the NOTICE file distributed
+ * with this work for additional information regarding copyright ownership.
+ * Indoqa licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.indoqa.zookeeper.config.utils;
+
+import java.util.Arrays;
+
+/**
+ * A percentile of the most recent latencies. The percentile is only recalculated every few samples, so that reading it costs
+ * nothing.
+ */
+final class LatencyPercentile {
+
+    private static final int SAMPLES = 128;
+    private static final int MIN_SAMPLES = 16;
+    private static final int UPDATE_INTERVAL = 16;
+
+    private final double percentile;
+    private final long[] samples = new long[SAMPLES];
+
+    // the count saturates at the number of samples and the write index wraps around, so neither can overflow
+    private int count;
+    private int nextIndex;
+    private int recordsSinceUpdate;
+    private volatile long value = -1;
+
+    LatencyPercentile(double percentile) {
+        this.percentile = percentile;
+    }
+
+    /**
+     * @return The percentile in nanoseconds or <code>-1</code> if there are not enough samples yet.
+     */
+    public long get() {
+        return this.value;
+    }
+
+    public synchronized void record(long latency) {
+        this.samples[this.nextIndex] = latency;
+        this.nextIndex = (this.nextIndex + 1) % SAMPLES;
+        if (this.count < SAMPLES) {
+            this.count++;
+        }
+
+        this.recordsSinceUpdate++;
+        if (this.count >= MIN_SAMPLES && this.recordsSinceUpdate >= UPDATE_INTERVAL) {
+            this.recordsSinceUpdate = 0;
+
+            long[] sortedSamples = Arrays.copyOf(this.samples, this.count);
+            Arrays.sort(sortedSamples);
+            this.value = sortedSamples[(int) Math.ceil(this.percentile / 100 * sortedSamples.length) - 1];
+        }
+    }
+}
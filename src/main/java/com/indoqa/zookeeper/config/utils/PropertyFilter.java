@@ -0,0 +1,298 @@
+/*
+ * Licensed to the Indoqa Software Design und Beratung GmbH (Indoqa) under
+ * one or more contributor license agreements. See the NOTICE file distributed
+ * with this work for additional information regarding copyright ownership.
+ * Indoqa licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.indoqa.zookeeper.config.utils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import org.springframework.util.StringUtils;
+
+/**
+ * Selects the nodes below a base path that are read as properties. Patterns are matched against the path relative to the base
+ * path, e.g. <code>db/url</code>, and are globs unless they start with <code>regex:</code>. In globs <code>*</code> and
+ * <code>?</code> do not match <code>/</code>, while <code>**</code> does.
+ * <p>
+ * A node that matches an exclude pattern or lies deeper than the maximum depth is skipped together with its whole subtree. If
+ * include patterns are given, only matching nodes are read and only subtrees that can contain matching nodes are listed.
+ */
+public final class PropertyFilter {
+
+    public static final String PROP_INCLUDE = "zookeeper.properties.include";
+    public static final String PROP_EXCLUDE = "zookeeper.properties.exclude";
+    public static final String PROP_MAX_DEPTH = "zookeeper.properties.max-depth";
+
+    private static final String REGEX_PREFIX = "regex:";
+    private static final String GLOB_PREFIX = "glob:";
+
+    private static final PropertyFilter DEFAULT = new PropertyFilter(Collections.emptyList(), Collections.emptyList(), 0);
+
+    private final Collection<String> includePatterns;
+    private final Collection<String> excludePatterns;
+    private final List<Pattern> includes = new ArrayList<>();
+    private final List<String> includeLiterals = new ArrayList<>();
+    private final List<String> includePrefixes = new ArrayList<>();
+    private final List<Pattern> excludes = new ArrayList<>();
+    private final int maxDepth;
+
+    /**
+     * @param includes The patterns of the nodes to be read or an empty collection to read all nodes.
+     * @param excludes The patterns of the nodes to be skipped together with their subtrees.
+     * @param maxDepth The maximum number of path segments below the base path or <code>0</code> for no limit.
+     */
+    public PropertyFilter(Collection<String> includes, Collection<String> excludes, int maxDepth) {
+        if (maxDepth < 0) {
+            throw new IllegalArgumentException("Invalid maximum depth " + maxDepth + ".");
+        }
+
+        this.includePatterns = List.copyOf(includes);
+        this.excludePatterns = List.copyOf(excludes);
+        for (String eachInclude : includes) {
+            this.includes.add(compile(eachInclude));
+
+            String literal = getLiteral(eachInclude);
+            if (literal == null) {
+                this.includePrefixes.add(getLiteralPrefix(eachInclude));
+            } else {
+                this.includeLiterals.add(literal);
+            }
+        }
+        for (String eachExclude : excludes) {
+            this.excludes.add(compile(eachExclude));
+        }
+        this.maxDepth = maxDepth;
+    }
+
+    /**
+     * Create a filter from the comma separated patterns in <code>zookeeper.properties.include</code> and
+     * <code>zookeeper.properties.exclude</code> and the depth in <code>zookeeper.properties.max-depth</code>.
+     */
+    public static PropertyFilter fromProperties(Function<String, String> properties) {
+        List<String> includes = getPatterns(properties, PROP_INCLUDE);
+        List<String> excludes = getPatterns(properties, PROP_EXCLUDE);
+        int maxDepth = getMaxDepth(properties);
+        if (includes.isEmpty() && excludes.isEmpty() && maxDepth == 0) {
+            return DEFAULT;
+        }
+
+        try {
+            return new PropertyFilter(includes, excludes, maxDepth);
+        } catch (IllegalArgumentException e) {
+            throw new ZooKeeperRegistrationException("Error while parsing the patterns of property " + PROP_INCLUDE + " or "
+                + PROP_EXCLUDE, e);
+        }
+    }
+
+    /**
+     * @return A filter that reads all nodes.
+     */
+    public static PropertyFilter getDefault() {
+        return DEFAULT;
+    }
+
+    private static Pattern compile(String pattern) {
+        if (pattern.startsWith(REGEX_PREFIX)) {
+            return Pattern.compile(pattern.substring(REGEX_PREFIX.length()));
+        }
+
+        String glob = pattern.startsWith(GLOB_PREFIX) ? pattern.substring(GLOB_PREFIX.length()) : pattern;
+        StringBuilder result = new StringBuilder();
+        for (int i = 0; i < glob.length(); i++) {
+            char character = glob.charAt(i);
+            if (character == '*' && i + 1 < glob.length() && glob.charAt(i + 1) == '*') {
+                result.append(".*");
+                i++;
+            } else if (character == '*') {
+                result.append("[^/]*");
+            } else if (character == '?') {
+                result.append("[^/]");
+            } else {
+                result.append(Pattern.quote(String.valueOf(character)));
+            }
+        }
+
+        try {
+            return Pattern.compile(result.toString());
+        } catch (PatternSyntaxException e) {
+            throw new IllegalArgumentException("Invalid glob '" + pattern + "'.", e);
+        }
+    }
+
+    private static int getDepth(String relativePath) {
+        int result = 1;
+        for (int i = 0; i < relativePath.length(); i++) {
+            if (relativePath.charAt(i) == '/') {
+                result++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return The path matched by a glob without wildcards or <code>null</code> if the pattern can match several paths.
+     */
+    private static String getLiteral(String pattern) {
+        if (pattern.startsWith(REGEX_PREFIX)) {
+            return null;
+        }
+
+        String glob = pattern.startsWith(GLOB_PREFIX) ? pattern.substring(GLOB_PREFIX.length()) : pattern;
+        if (indexOfWildcard(glob) != -1) {
+            return null;
+        }
+
+        return glob;
+    }
+
+    /**
+     * @return The complete path segments in front of the first wildcard, followed by a <code>/</code>. Only nodes on this path
+     *         or below it can match the pattern.
+     */
+    private static String getLiteralPrefix(String pattern) {
+        if (pattern.startsWith(REGEX_PREFIX)) {
+            return "";
+        }
+
+        String glob = pattern.startsWith(GLOB_PREFIX) ? pattern.substring(GLOB_PREFIX.length()) : pattern;
+        return glob.substring(0, glob.lastIndexOf('/', indexOfWildcard(glob)) + 1);
+    }
+
+    private static int getMaxDepth(Function<String, String> properties) {
+        String value = properties.apply(PROP_MAX_DEPTH);
+        if (value == null || value.isBlank()) {
+            return 0;
+        }
+
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new ZooKeeperRegistrationException("Error while parsing the value of property " + PROP_MAX_DEPTH, e);
+        }
+    }
+
+    private static List<String> getPatterns(Function<String, String> properties, String name) {
+        String value = properties.apply(name);
+        if (value == null || value.isBlank()) {
+            return Collections.emptyList();
+        }
+
+        return List.of(StringUtils.trimArrayElements(StringUtils.commaDelimitedListToStringArray(value)));
+    }
+
+    private static int indexOfWildcard(String glob) {
+        for (int i = 0; i < glob.length(); i++) {
+            if (glob.charAt(i) == '*' || glob.charAt(i) == '?') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean matches(List<Pattern> patterns, String relativePath) {
+        for (Pattern eachPattern : patterns) {
+            if (eachPattern.matcher(relativePath).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return <code>true</code> if the node and all of its ancestors pass this filter and the node is read as a property.
+     */
+    public boolean accepts(String relativePath) {
+        for (int index = relativePath.indexOf('/'); index != -1; index = relativePath.indexOf('/', index + 1)) {
+            if (this.isSkipped(relativePath.substring(0, index))) {
+                return false;
+            }
+        }
+
+        return !this.isSkipped(relativePath) && this.isIncluded(relativePath);
+    }
+
+    /**
+     * @return <code>true</code> if this filter reads all nodes.
+     */
+    public boolean isEmpty() {
+        return this.includes.isEmpty() && this.excludes.isEmpty() && this.maxDepth == 0;
+    }
+
+    /**
+     * @return <code>true</code> if the children of a node that is not {@link #isSkipped(String) skipped} must be listed.
+     */
+    public boolean isDescended(String relativePath) {
+        if (this.maxDepth > 0 && getDepth(relativePath) >= this.maxDepth) {
+            return false;
+        }
+
+        return this.includes.isEmpty() || this.mayContainIncludedBelow(relativePath);
+    }
+
+    /**
+     * @return <code>true</code> if a node that is not {@link #isSkipped(String) skipped} is read as a property.
+     */
+    public boolean isIncluded(String relativePath) {
+        return this.includes.isEmpty() || matches(this.includes, relativePath);
+    }
+
+    /**
+     * @return <code>true</code> if neither the node nor its subtree must be listed or read. The ancestors of the node are not
+     *         checked.
+     */
+    public boolean isSkipped(String relativePath) {
+        if (this.maxDepth > 0 && getDepth(relativePath) > this.maxDepth) {
+            return true;
+        }
+
+        if (matches(this.excludes, relativePath)) {
+            return true;
+        }
+
+        return !this.includes.isEmpty() && !this.mayContainIncluded(relativePath);
+    }
+
+    @Override
+    public String toString() {
+        return "includes " + this.includePatterns + ", excludes " + this.excludePatterns + ", max depth " + this.maxDepth;
+    }
+
+    private boolean mayContainIncluded(String relativePath) {
+        return this.includeLiterals.contains(relativePath) || this.mayContainIncludedBelow(relativePath);
+    }
+
+    private boolean mayContainIncludedBelow(String relativePath) {
+        String path = relativePath + "/";
+
+        // a literal only matches itself, so only its ancestors have to be listed
+        for (String eachLiteral : this.includeLiterals) {
+            if (eachLiteral.startsWith(path)) {
+                return true;
+            }
+        }
+
+        for (String eachPrefix : this.includePrefixes) {
+            if (path.startsWith(eachPrefix) || eachPrefix.startsWith(path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Licensed to the Indoqa Software Design und Beratung GmbH (Indoqa) under
+ * one or more contributor license agreements. See the NOTICE file distributed
+ * with this work for additional information regarding copyright ownership.
+ * Indoqa licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.indoqa.zookeeper.config.utils;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.function.Function;
+
+/**
+ * An upper bound for the time that a state may spend on all of its read operations, together with the {@link Policy} that
+ * applies when it is exceeded. The deadline starts with the first operation of the state. Each operation waits at most for
+ * the remaining time, so a slow ensemble member cannot stretch a read up to the session timeout.
+ * <p>
+ * {@link Policy#USE_CACHE} requires a cache directory owned by the application. The local copies contain the configuration,
+ * so the directory is created with permissions for its owner only and there is no shared default location.
+ */
+public final class ReadDeadline {
+
+    public static final String PROP_TIMEOUT = "zookeeper.deadline.timeout";
+    public static final String PROP_POLICY = "zookeeper.deadline.policy";
+    public static final String PROP_CACHE_DIRECTORY = "zookeeper.deadline.cache-directory";
+
+    private static final ReadDeadline NONE = new ReadDeadline(null, Policy.FAIL_FAST, null);
+
+    private final Duration timeout;
+    private final Policy policy;
+    private final Path cacheDirectory;
+
+    /**
+     * Create a deadline without a cache directory, which is not possible for {@link Policy#USE_CACHE}.
+     */
+    public ReadDeadline(Duration timeout, Policy policy) {
+        this(timeout, policy, null);
+    }
+
+    /**
+     * @param timeout The time for all read operations of a state or <code>null</code> for no deadline.
+     * @param policy What to do with the results of a state that exceeded the deadline.
+     * @param cacheDirectory The directory of the local copies, which is required for {@link Policy#USE_CACHE}.
+     */
+    public ReadDeadline(Duration timeout, Policy policy, Path cacheDirectory) {
+        if (timeout != null && (timeout.isNegative() || timeout.isZero())) {
+            throw new IllegalArgumentException("Invalid deadline " + timeout + ".");
+        }
+
+        if (policy == Policy.USE_CACHE && cacheDirectory == null) {
+            throw new IllegalArgumentException("The policy " + policy + " requires a cache directory.");
+        }
+
+        this.timeout = timeout;
+        this.policy = policy;
+        this.cacheDirectory = cacheDirectory;
+    }
+
+    /**
+     * Create a deadline from <code>zookeeper.deadline.timeout</code> in milliseconds, <code>zookeeper.deadline.policy</code>
+     * (<code>fail-fast</code>, <code>use-cache</code> or <code>partial-results</code>) and
+     * <code>zookeeper.deadline.cache-directory</code>, which is required for <code>use-cache</code>. Without a timeout there is
+     * no deadline.
+     */
+    public static ReadDeadline fromProperties(Function<String, String> properties) {
+        String timeout = properties.apply(PROP_TIMEOUT);
+        if (timeout == null || timeout.isBlank()) {
+            return NONE;
+        }
+
+        Policy policy = getPolicy(properties);
+        String cacheDirectory = properties.apply(PROP_CACHE_DIRECTORY);
+        if (cacheDirectory == null || cacheDirectory.isBlank()) {
+            if (policy == Policy.USE_CACHE) {
+                throw new ZooKeeperRegistrationException("The property " + PROP_CACHE_DIRECTORY + " is required for the policy "
+                    + "use-cache.");
+            }
+            cacheDirectory = null;
+        }
+
+        try {
+            return new ReadDeadline(Duration.ofMillis(Long.parseLong(timeout.trim())), policy,
+                cacheDirectory == null ? null : Paths.get(cacheDirectory.trim()));
+        } catch (IllegalArgumentException e) {
+            throw new ZooKeeperRegistrationException("Error while parsing the value of property " + PROP_TIMEOUT, e);
+        }
+    }
+
+    /**
+     * @return No deadline.
+     */
+    public static ReadDeadline getDefault() {
+        return NONE;
+    }
+
+    private static Policy getPolicy(Function<String, String> properties) {
+        String value = properties.apply(PROP_POLICY);
+        if (value == null || value.isBlank()) {
+            return Policy.FAIL_FAST;
+        }
+
+        try {
+            return Policy.valueOf(value.trim().replace('-', '_').toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new ZooKeeperRegistrationException("Error while parsing the value of property " + PROP_POLICY, e);
+        }
+    }
+
+    /**
+     * @return The directory of the local copies or <code>null</code> if the policy is not {@link Policy#USE_CACHE}.
+     */
+    public Path getCacheDirectory() {
+        return this.cacheDirectory;
+    }
+
+    /**
+     * @return The {@link System#nanoTime()} at which this deadline passes, if it starts now.
+     */
+    public long getDeadlineFromNow() {
+        return System.nanoTime() + this.timeout.toNanos();
+    }
+
+    public Policy getPolicy() {
+        return this.policy;
+    }
+
+    public Duration getTimeout() {
+        return this.timeout;
+    }
+
+    public boolean isEnabled() {
+        return this.timeout != null;
+    }
+
+    @Override
+    public String toString() {
+        if (!this.isEnabled()) {
+            return "no deadline";
+        }
+
+        return this.timeout.toMillis() + " ms, " + this.policy.name().toLowerCase(Locale.ROOT).replace('_', '-');
+    }
+
+    public enum Policy {
+        /**
+         * Fail, if not everything could be read.
+         */
+        FAIL_FAST,
+        /**
+         * Use the local copy of the last complete read, if not everything could be read.
+         */
+        USE_CACHE,
+        /**
+         * Use everything that could be read and report the paths that are missing.
+         */
+        PARTIAL_RESULTS
+    }
+}
@@ -16,70 +16,24 @@
  */
 package com.indoqa.zookeeper.config.utils;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
+
 import java.lang.reflect.Field;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
-import java.time.Instant;
 import java.util.*;
-import java.util.function.Function;
 import java.util.function.Supplier;
 
-public final class ReflectionHelper {
-
-    private static final Set<String> SIMPLE_TYPE_NAMES = new HashSet<>();
-    static {
-        SIMPLE_TYPE_NAMES.add(String.class.getName());
-
-        SIMPLE_TYPE_NAMES.add(boolean.class.getName());
-        SIMPLE_TYPE_NAMES.add(char.class.getName());
-        SIMPLE_TYPE_NAMES.add(short.class.getName());
-        SIMPLE_TYPE_NAMES.add(int.class.getName());
-        SIMPLE_TYPE_NAMES.add(long.class.getName());
-        SIMPLE_TYPE_NAMES.add(float.class.getName());
-        SIMPLE_TYPE_NAMES.add(double.class.getName());
+import org.springframework.util.ClassUtils;
 
-        SIMPLE_TYPE_NAMES.add(Boolean.class.getName());
-        SIMPLE_TYPE_NAMES.add(Character.class.getName());
-        SIMPLE_TYPE_NAMES.add(Short.class.getName());
-        SIMPLE_TYPE_NAMES.add(Integer.class.getName());
-        SIMPLE_TYPE_NAMES.add(Long.class.getName());
-        SIMPLE_TYPE_NAMES.add(Float.class.getName());
-        SIMPLE_TYPE_NAMES.add(Double.class.getName());
-
-        SIMPLE_TYPE_NAMES.add(Date.class.getName());
-        SIMPLE_TYPE_NAMES.add(Instant.class.getName());
-    }
-
-    private static final Map<String, Supplier<Object>> CREATORS = new HashMap<>();
-    static {
-        CREATORS.put(List.class.getName(), ArrayList::new);
-        CREATORS.put(Set.class.getName(), HashSet::new);
-        CREATORS.put(Collection.class.getName(), ArrayList::new);
-        CREATORS.put(Map.class.getName(), HashMap::new);
-    }
+public final class ReflectionHelper {
 
-    private static final Map<String, Function<String, ? extends Object>> DESERIALIZERS = new HashMap<>();
+    private static final Map<Class<?>, Supplier<Object>> CREATORS = new HashMap<>();
     static {
-        DESERIALIZERS.put(boolean.class.getName(), Boolean::valueOf);
-        DESERIALIZERS.put(char.class.getName(), value -> value.charAt(0));
-        DESERIALIZERS.put(short.class.getName(), Short::valueOf);
-        DESERIALIZERS.put(int.class.getName(), Integer::valueOf);
-        DESERIALIZERS.put(long.class.getName(), Long::valueOf);
-        DESERIALIZERS.put(float.class.getName(), Float::valueOf);
-        DESERIALIZERS.put(double.class.getName(), Double::valueOf);
-
-        DESERIALIZERS.put(Boolean.class.getName(), Boolean::valueOf);
-        DESERIALIZERS.put(Character.class.getName(), value -> value.charAt(0));
-        DESERIALIZERS.put(Short.class.getName(), Short::valueOf);
-        DESERIALIZERS.put(Integer.class.getName(), Integer::valueOf);
-        DESERIALIZERS.put(Long.class.getName(), Long::valueOf);
-        DESERIALIZERS.put(Float.class.getName(), Float::valueOf);
-        DESERIALIZERS.put(Double.class.getName(), Double::valueOf);
-
-        DESERIALIZERS.put(Date.class.getName(), value -> Date.from(Instant.parse(value)));
-        DESERIALIZERS.put(Instant.class.getName(), value -> Instant.parse(value));
-
-        DESERIALIZERS.put(String.class.getName(), Function.identity());
+        CREATORS.put(List.class, ArrayList::new);
+        CREATORS.put(Set.class, HashSet::new);
+        CREATORS.put(Collection.class, ArrayList::new);
+        CREATORS.put(Map.class, HashMap::new);
     }
 
     private ReflectionHelper() {
@@ -94,7 +48,7 @@ public final class ReflectionHelper {
 
         if (type instanceof Class) {
             Class<?> classType = (Class<?>) type;
-            Supplier<Object> supplier = CREATORS.get(classType.getName());
+            Supplier<Object> supplier = CREATORS.get(classType);
             if (supplier != null) {
                 return supplier.get();
             }
@@ -109,21 +63,68 @@ public final class ReflectionHelper {
         throw new IllegalArgumentException("Cannot instantiate type " + type);
     }
 
+    /**
+     * @param data The data of a node. Empty data is converted to an empty String or <code>null</code> for all other types.
+     */
+    public static Object getDeserializedValue(byte[] data, Type type) {
+        ValueCodec<?> codec = getCodec(type);
+        if (codec == null) {
+            throw new IllegalArgumentException("Cannot convert data to type " + type);
+        }
+
+        if (data == null || data.length == 0) {
+            return String.class.equals(getRawType(type)) ? "" : null;
+        }
+
+        return codec.decode(data);
+    }
+
     public static Object getDeserializedValue(String value, Type type) {
-        if (type instanceof ParameterizedType) {
-            return getDeserializedValue(value, ((ParameterizedType) type).getRawType());
+        if (getCodec(type) == null) {
+            throw new IllegalArgumentException("Cannot convert value '" + value + "' to type " + type);
         }
 
-        if (type instanceof Class) {
-            Class<?> classType = (Class<?>) type;
+        return getDeserializedValue(value.getBytes(UTF_8), type);
+    }
+
+    /**
+     * Create an immutable copy of the given map or collection. Sorted and insertion-ordered containers keep their order.
+     * All other values are returned unchanged.
+     */
+    public static Object getImmutableCopy(Object value) {
+        if (value instanceof SortedMap) {
+            return Collections.unmodifiableSortedMap(new TreeMap<>((SortedMap<?, ?>) value));
+        }
+
+        if (value instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) value;
+            if (map instanceof LinkedHashMap || containsNull(map.keySet()) || containsNull(map.values())) {
+                return Collections.unmodifiableMap(new LinkedHashMap<>(map));
+            }
+            return Map.copyOf(map);
+        }
 
-            Function<String, ? extends Object> converter = DESERIALIZERS.get(classType.getName());
-            if (converter != null) {
-                return converter.apply(value);
+        if (value instanceof SortedSet) {
+            return Collections.unmodifiableSortedSet(new TreeSet<>((SortedSet<?>) value));
+        }
+
+        if (value instanceof Set) {
+            Set<?> set = (Set<?>) value;
+            if (set instanceof LinkedHashSet || containsNull(set)) {
+                return Collections.unmodifiableSet(new LinkedHashSet<>(set));
             }
+            return Set.copyOf(set);
         }
 
-        throw new IllegalArgumentException("Cannot convert value '" + value + "' to type " + type);
+        if (value instanceof Collection) {
+            Collection<?> collection = (Collection<?>) value;
+            if (containsNull(collection)) {
+                return Collections.unmodifiableList(new ArrayList<>(collection));
+            }
+            return List.copyOf(collection);
+        }
+
+        return value;
     }
 
     public static Type getFieldType(Object object, String fieldName) {
@@ -145,16 +146,30 @@ public final class ReflectionHelper {
         }
     }
 
+    /**
+     * @param value The value to be serialized, never <code>null</code>.
+     * @param type The declared type of the value. The codec of this type is preferred over the codec of the value's class.
+     */
+    @SuppressWarnings("unchecked")
+    public static byte[] getSerializedData(Object value, Type type) {
+        ValueCodec<Object> codec = (ValueCodec<Object>) getCodec(type);
+        if (codec == null) {
+            codec = (ValueCodec<Object>) getValueCodec(value);
+        }
+
+        if (codec == null) {
+            return String.valueOf(value).getBytes(UTF_8);
+        }
+
+        return codec.encode(value);
+    }
+
     public static String getSerializedValue(Object value) {
         if (value instanceof String) {
             return (String) value;
         }
 
-        if (value instanceof Date) {
-            return getSerializedValue(((Date) value).toInstant());
-        }
-
-        return String.valueOf(value);
+        return new String(getSerializedData(value, null), UTF_8);
     }
 
     public static boolean isArray(Type type) {
@@ -186,7 +201,7 @@ public final class ReflectionHelper {
             throw new IllegalArgumentException("Expected 1 generic parameter, but found " + actualTypeArguments.length);
         }
 
-        return isSimpleType(actualTypeArguments[0].getTypeName());
+        return isSimpleType(actualTypeArguments[0]);
     }
 
     public static boolean isCompatibleMap(Type type) {
@@ -225,12 +240,31 @@ public final class ReflectionHelper {
         return false;
     }
 
+    /**
+     * @deprecated Resolving a type by its name is slow. Use {@link #isSimpleType(Type)} instead.
+     */
+    @Deprecated
     public static boolean isSimpleType(String typeName) {
-        return SIMPLE_TYPE_NAMES.contains(typeName);
+        try {
+            return isSimpleType(ClassUtils.forName(typeName, ReflectionHelper.class.getClassLoader()));
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
     }
 
+    /**
+     * @return <code>true</code> if values of this type are stored as the data of a single node.
+     */
     public static boolean isSimpleType(Type type) {
-        return isSimpleType(type.getTypeName());
+        return getCodec(type) != null;
+    }
+
+    /**
+     * @return <code>true</code> if the value of the field is stored in ZooKeeper, i.e. the field is not annotated with
+     *         {@link NotStored}.
+     */
+    public static boolean isStoredField(Field field) {
+        return !field.isAnnotationPresent(NotStored.class);
     }
 
     public static void setFieldValue(Field field, Object object, Object value) {
@@ -243,4 +277,48 @@ public final class ReflectionHelper {
             field.setAccessible(false);
         }
     }
+
+    private static boolean containsNull(Collection<?> collection) {
+        for (Object eachElement : collection) {
+            if (eachElement == null) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static ValueCodec<?> getCodec(Type type) {
+        Class<?> rawType = getRawType(type);
+        if (rawType == null) {
+            return null;
+        }
+
+        return ValueCodecs.getCodec(rawType);
+    }
+
+    private static Class<?> getRawType(Type type) {
+        if (type instanceof ParameterizedType) {
+            return getRawType(((ParameterizedType) type).getRawType());
+        }
+
+        if (type instanceof Class) {
+            return (Class<?>) type;
+        }
+
+        return null;
+    }
+
+    private static ValueCodec<?> getValueCodec(Object value) {
+        if (value instanceof Enum) {
+            // constants with a body are instances of an anonymous subclass
+            return ValueCodecs.getCodec(((Enum<?>) value).getDeclaringClass());
+        }
+
+        if (value instanceof Date) {
+            return ValueCodecs.getCodec(Date.class);
+        }
+
+        return ValueCodecs.getCodec(value.getClass());
+    }
 }
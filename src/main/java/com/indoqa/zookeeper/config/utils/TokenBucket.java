@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Indoqa Software Design und Beratung GmbH (Indoqa) under
+ * one or more contributor license agreements. See the NOTICE file distributed
+ * with this work for additional information regarding copyright ownership.
+ * Indoqa licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.indoqa.zookeeper.config.utils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A token bucket that hands out <code>permitsPerSecond</code> permits per second and allows bursts of up to
+ * <code>burst</code> permits.
+ */
+final class TokenBucket {
+
+    private final double permitsPerNano;
+    private final double burst;
+
+    private double permits;
+    private long lastRefill = System.nanoTime();
+
+    TokenBucket(double permitsPerSecond, int burst) {
+        this.permitsPerNano = permitsPerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.burst = burst;
+        this.permits = burst;
+    }
+
+    private static void sleep(long waitNanos) {
+        if (waitNanos <= 0) {
+            return;
+        }
+
+        try {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a permit.", e);
+        }
+    }
+
+    /**
+     * Take one permit, waiting until it is available.
+     */
+    public void acquire() {
+        sleep(this.reserve(Long.MAX_VALUE));
+    }
+
+    /**
+     * Take one permit, if it becomes available within <code>timeoutNanos</code>, and wait for it.
+     *
+     * @return <code>false</code> if the permit is not available in time. No permit is taken then.
+     */
+    public boolean tryAcquire(long timeoutNanos) {
+        long waitNanos = this.reserve(timeoutNanos);
+        if (waitNanos < 0) {
+            return false;
+        }
+
+        sleep(waitNanos);
+        return true;
+    }
+
+    /**
+     * @return The time to wait for the reserved permit or <code>-1</code> if it would take longer than
+     *         <code>maxWaitNanos</code>.
+     */
+    private synchronized long reserve(long maxWaitNanos) {
+        long now = System.nanoTime();
+        this.permits = Math.min(this.burst, this.permits + (now - this.lastRefill) * this.permitsPerNano);
+        this.lastRefill = now;
+
+        // permits may become negative, so that waiting callers are served in the order of their reservations
+        double remainingPermits = this.permits - 1;
+        long waitNanos = remainingPermits >= 0 ? 0 : (long) (-remainingPermits / this.permitsPerNano);
+        if (waitNanos > maxWaitNanos) {
+            return -1;
+        }
+
+        this.permits = remainingPermits;
+        return waitNanos;
+    }
+}
@@ -0,0 +1,258 @@
+/*
+ * Licensed to the Indoqa Software Design und Beratung GmbH (Indoqa) under
+ * one or more contributor license agreements. See the NOTICE file distributed
+ * with this work for additional information regarding copyright ownership.
+ * Indoqa licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.indoqa.zookeeper.config.utils;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.net.URI;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Registry of the {@link ValueCodec}s for all types that are stored as the data of a single node. The codec of a type is
+ * resolved once per {@link Class} and cached in a {@link ClassValue}. Enums are supported without registration, all other
+ * types need a codec registered with {@link #register(Class, ValueCodec)}.
+ */
+public final class ValueCodecs {
+
+    private static final Map<Class<?>, ValueCodec<?>> REGISTERED_CODECS = new ConcurrentHashMap<>();
+
+    private static final ClassValue<ValueCodec<?>> CODECS = new ClassValue<ValueCodec<?>>() {
+
+        @Override
+        protected ValueCodec<?> computeValue(Class<?> type) {
+            return resolveCodec(type);
+        }
+    };
+
+    static {
+        registerDefault(String.class, new StringCodec());
+
+        registerDefault(boolean.class, Boolean.class, new TextCodec<>(Boolean::valueOf, String::valueOf));
+        registerDefault(char.class, Character.class, new TextCodec<>(value -> value.charAt(0), String::valueOf));
+        registerDefault(short.class, Short.class, new TextCodec<>(Short::valueOf, String::valueOf));
+        registerDefault(int.class, Integer.class, new IntegerCodec());
+        registerDefault(long.class, Long.class, new LongCodec());
+        registerDefault(float.class, Float.class, new TextCodec<>(Float::valueOf, String::valueOf));
+        registerDefault(double.class, Double.class, new TextCodec<>(Double::valueOf, String::valueOf));
+
+        registerDefault(Date.class, new TextCodec<>(value -> Date.from(Instant.parse(value)), value -> value.toInstant().toString()));
+        registerDefault(Instant.class, new TextCodec<>(Instant::parse, Instant::toString));
+        registerDefault(LocalDate.class, new TextCodec<>(LocalDate::parse, LocalDate::toString));
+        registerDefault(LocalDateTime.class, new TextCodec<>(LocalDateTime::parse, LocalDateTime::toString));
+        registerDefault(Duration.class, new TextCodec<>(Duration::parse, Duration::toString));
+
+        registerDefault(UUID.class, new TextCodec<>(UUID::fromString, UUID::toString));
+        registerDefault(BigDecimal.class, new TextCodec<>(BigDecimal::new, BigDecimal::toString));
+        registerDefault(BigInteger.class, new TextCodec<>(BigInteger::new, BigInteger::toString));
+        registerDefault(URI.class, new TextCodec<>(URI::create, URI::toString));
+    }
+
+    private ValueCodecs() {
+        // hide utility class constructor
+    }
+
+    /**
+     * @return The codec for the given type or <code>null</code> if values of this type are not stored in a single node.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> ValueCodec<T> getCodec(Class<T> type) {
+        return (ValueCodec<T>) CODECS.get(type);
+    }
+
+    public static boolean hasCodec(Class<?> type) {
+        return CODECS.get(type) != null;
+    }
+
+    /**
+     * Register a codec for the given type. This replaces the codec that was used for this type before.
+     */
+    public static <T> void register(Class<T> type, ValueCodec<T> codec) {
+        REGISTERED_CODECS.put(type, codec);
+        CODECS.remove(type);
+    }
+
+    private static <T> void registerDefault(Class<T> primitiveType, Class<T> wrapperType, ValueCodec<T> codec) {
+        registerDefault(primitiveType, codec);
+        registerDefault(wrapperType, codec);
+    }
+
+    private static <T> void registerDefault(Class<T> type, ValueCodec<T> codec) {
+        REGISTERED_CODECS.put(type, codec);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static ValueCodec<?> resolveCodec(Class<?> type) {
+        ValueCodec<?> result = REGISTERED_CODECS.get(type);
+        if (result != null) {
+            return result;
+        }
+
+        if (type.isEnum()) {
+            return new EnumCodec(type);
+        }
+
+        return null;
+    }
+
+    private static final class EnumCodec<T extends Enum<T>> implements ValueCodec<T> {
+
+        private final Class<T> type;
+
+        private EnumCodec(Class<T> type) {
+            this.type = type;
+        }
+
+        @Override
+        public T decode(byte[] data) {
+            return Enum.valueOf(this.type, new String(data, UTF_8));
+        }
+
+        @Override
+        public byte[] encode(T value) {
+            return value.name().getBytes(UTF_8);
+        }
+    }
+
+    /**
+     * Encodes integers as decimal digits without creating intermediate strings.
+     */
+    private static final class IntegerCodec implements ValueCodec<Integer> {
+
+        @Override
+        public Integer decode(byte[] data) {
+            long result = LongCodec.parse(data);
+            if (result < Integer.MIN_VALUE || result > Integer.MAX_VALUE) {
+                throw new NumberFormatException("Value out of range: " + new String(data, UTF_8));
+            }
+            return (int) result;
+        }
+
+        @Override
+        public byte[] encode(Integer value) {
+            return LongCodec.format(value.longValue());
+        }
+    }
+
+    /**
+     * Encodes longs as decimal digits without creating intermediate strings.
+     */
+    private static final class LongCodec implements ValueCodec<Long> {
+
+        private static final int MAX_SAFE_DIGITS = 18;
+
+        private static byte[] format(long value) {
+            if (value == Long.MIN_VALUE) {
+                return Long.toString(value).getBytes(UTF_8);
+            }
+
+            boolean negative = value < 0;
+            long remaining = negative ? -value : value;
+
+            int length = negative ? 1 : 0;
+            long digits = remaining;
+            do {
+                length++;
+                digits /= 10;
+            } while (digits != 0);
+
+            byte[] result = new byte[length];
+            int index = length;
+            do {
+                result[--index] = (byte) ('0' + remaining % 10);
+                remaining /= 10;
+            } while (remaining != 0);
+
+            if (negative) {
+                result[0] = '-';
+            }
+            return result;
+        }
+
+        private static long parse(byte[] data) {
+            int start = data[0] == '-' ? 1 : 0;
+            if (data.length == start || data.length - start > MAX_SAFE_DIGITS) {
+                // leave signs, overflow handling and error messages to the JDK
+                return Long.parseLong(new String(data, UTF_8));
+            }
+
+            long result = 0;
+            for (int i = start; i < data.length; i++) {
+                int digit = data[i] - '0';
+                if (digit < 0 || digit > 9) {
+                    return Long.parseLong(new String(data, UTF_8));
+                }
+                result = result * 10 + digit;
+            }
+
+            return start == 0 ? result : -result;
+        }
+
+        @Override
+        public Long decode(byte[] data) {
+            return parse(data);
+        }
+
+        @Override
+        public byte[] encode(Long value) {
+            return format(value);
+        }
+    }
+
+    private static final class StringCodec implements ValueCodec<String> {
+
+        @Override
+        public String decode(byte[] data) {
+            return new String(data, UTF_8);
+        }
+
+        @Override
+        public byte[] encode(String value) {
+            return value.getBytes(UTF_8);
+        }
+    }
+
+    private static final class TextCodec<T> implements ValueCodec<T> {
+
+        private final Function<String, T> parser;
+        private final Function<T, String> formatter;
+
+        private TextCodec(Function<String, T> parser, Function<T, String> formatter) {
+            this.parser = parser;
+            this.formatter = formatter;
+        }
+
+        @Override
+        public T decode(byte[] data) {
+            return this.parser.apply(new String(data, UTF_8));
+        }
+
+        @Override
+        public byte[] encode(T value) {
+            return this.formatter.apply(value).getBytes(UTF_8);
+        }
+    }
+}
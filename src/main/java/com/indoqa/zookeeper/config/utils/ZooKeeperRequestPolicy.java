@@ -0,0 +1,254 @@
+/*
+ * Licensed to the Indoqa Software Design und Beratung GmbH (Indoqa) under
+ * one or more contributor license agreements. See the NOTICE file distributed
+ * with this work for additional information regarding copyright ownership.
+ * Indoqa licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.indoqa.zookeeper.config.utils;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.KeeperException.ConnectionLossException;
+import org.apache.zookeeper.KeeperException.OperationTimeoutException;
+import org.apache.zookeeper.ZooKeeper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Limits the rate of read operations per ZooKeeper session with a token bucket and retries operations that failed because
+ * of a lost connection with an exponential backoff with decorrelated jitter. A policy {@link #withDeadline(long) with a
+ * deadline} additionally bounds the time of all operations together.
+ */
+public final class ZooKeeperRequestPolicy {
+
+    public static final String PROP_RATE_LIMIT = "zookeeper.rate-limit.operations-per-second";
+    public static final String PROP_RATE_LIMIT_BURST = "zookeeper.rate-limit.burst";
+    public static final String PROP_RETRY_MAX_RETRIES = "zookeeper.retry.max-retries";
+    public static final String PROP_RETRY_BASE_DELAY = "zookeeper.retry.base-delay";
+    public static final String PROP_RETRY_MAX_DELAY = "zookeeper.retry.max-delay";
+
+    private static final int DEFAULT_RATE_LIMIT = 0;
+    private static final int DEFAULT_MAX_RETRIES = 5;
+    private static final long DEFAULT_BASE_DELAY = 50;
+    private static final long DEFAULT_MAX_DELAY = 5000;
+
+    private static final ZooKeeperRequestPolicy DEFAULT = new ZooKeeperRequestPolicy(DEFAULT_RATE_LIMIT, DEFAULT_RATE_LIMIT,
+        DEFAULT_MAX_RETRIES, DEFAULT_BASE_DELAY, DEFAULT_MAX_DELAY);
+
+    private static final ExecutorService DEADLINE_EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "zookeeper-deadline");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ZooKeeperRequestPolicy.class);
+
+    private final int rateLimit;
+    private final int burst;
+    private final int maxRetries;
+    private final long baseDelay;
+    private final long maxDelay;
+    private final Long deadline;
+
+    private final Map<ZooKeeper, TokenBucket> tokenBuckets;
+
+    /**
+     * @param rateLimit The number of operations per second and session or <code>0</code> for no limit.
+     * @param burst The number of operations that may be issued at once, before the rate limit applies.
+     * @param maxRetries The number of retries after the connection has been lost.
+     * @param baseDelay The minimum delay before a retry in milliseconds.
+     * @param maxDelay The maximum delay before a retry in milliseconds.
+     */
+    public ZooKeeperRequestPolicy(int rateLimit, int burst, int maxRetries, long baseDelay, long maxDelay) {
+        if (rateLimit < 0 || burst < 0 || maxRetries < 0 || baseDelay <= 0 || maxDelay < baseDelay) {
+            throw new IllegalArgumentException("Invalid request policy " + rateLimit + "/" + burst + "/" + maxRetries + "/"
+                + baseDelay + "/" + maxDelay + ".");
+        }
+
+        this.rateLimit = rateLimit;
+        this.burst = Math.max(1, burst == 0 ? rateLimit : burst);
+        this.maxRetries = maxRetries;
+        this.baseDelay = baseDelay;
+        this.maxDelay = maxDelay;
+        this.deadline = null;
+        this.tokenBuckets = Collections.synchronizedMap(new WeakHashMap<>());
+    }
+
+    private ZooKeeperRequestPolicy(ZooKeeperRequestPolicy requestPolicy, long deadline) {
+        this.rateLimit = requestPolicy.rateLimit;
+        this.burst = requestPolicy.burst;
+        this.maxRetries = requestPolicy.maxRetries;
+        this.baseDelay = requestPolicy.baseDelay;
+        this.maxDelay = requestPolicy.maxDelay;
+        this.deadline = deadline;
+        this.tokenBuckets = requestPolicy.tokenBuckets;
+    }
+
+    /**
+     * @return A policy without rate limit, that retries 5 times with delays between 50 ms and 5 s.
+     */
+    public static ZooKeeperRequestPolicy getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Create a policy from the <code>zookeeper.rate-limit.*</code> and <code>zookeeper.retry.*</code> properties. Missing
+     * properties keep their {@link #getDefault() default}.
+     */
+    public static ZooKeeperRequestPolicy fromProperties(Function<String, String> properties) {
+        int rateLimit = (int) getValue(properties, PROP_RATE_LIMIT, DEFAULT_RATE_LIMIT);
+
+        return new ZooKeeperRequestPolicy(rateLimit, (int) getValue(properties, PROP_RATE_LIMIT_BURST, rateLimit),
+            (int) getValue(properties, PROP_RETRY_MAX_RETRIES, DEFAULT_MAX_RETRIES),
+            getValue(properties, PROP_RETRY_BASE_DELAY, DEFAULT_BASE_DELAY),
+            getValue(properties, PROP_RETRY_MAX_DELAY, DEFAULT_MAX_DELAY));
+    }
+
+    private static long getValue(Function<String, String> properties, String name, long defaultValue) {
+        String value = properties.apply(name);
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            throw new ZooKeeperRegistrationException("Error while parsing the value of property " + name, e);
+        }
+    }
+
+    private static void sleep(long milliseconds) {
+        try {
+            Thread.sleep(milliseconds);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting to retry.", e);
+        }
+    }
+
+    /**
+     * Execute a read <code>operation</code> on the session of <code>zooKeeper</code>.
+     */
+    public <T> T execute(ZooKeeper zooKeeper, Operation<T> operation) throws KeeperException {
+        TokenBucket tokenBucket = this.getTokenBucket(zooKeeper);
+        long delay = this.baseDelay;
+
+        for (int retries = 0;; retries++) {
+            if (tokenBucket != null) {
+                this.acquire(tokenBucket);
+            }
+
+            try {
+                return this.invoke(operation);
+            } catch (ConnectionLossException | OperationTimeoutException e) {
+                if (retries >= this.maxRetries) {
+                    throw e;
+                }
+
+                delay = Math.min(this.maxDelay, ThreadLocalRandom.current().nextLong(this.baseDelay, delay * 3 + 1));
+                if (this.deadline != null && TimeUnit.MILLISECONDS.toNanos(delay) >= this.deadline - System.nanoTime()) {
+                    throw new ReadDeadlineExceededException("The deadline passes before the next retry.", e);
+                }
+
+                LOGGER.warn("ZooKeeper operation failed with '{}', retrying in {} ms.", e.code(), delay);
+                sleep(delay);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "rate limit " + this.rateLimit + "/s (burst " + this.burst + "), " + this.maxRetries + " retries with "
+            + this.baseDelay + " - " + this.maxDelay + " ms";
+    }
+
+    /**
+     * @return A policy with the same limits that fails all operations with a {@link ReadDeadlineExceededException} once
+     *         {@link System#nanoTime()} passes <code>deadline</code>. It shares the rate limit with this policy.
+     */
+    public ZooKeeperRequestPolicy withDeadline(long deadline) {
+        return new ZooKeeperRequestPolicy(this, deadline);
+    }
+
+    private void acquire(TokenBucket tokenBucket) {
+        if (this.deadline == null) {
+            tokenBucket.acquire();
+            return;
+        }
+
+        if (!tokenBucket.tryAcquire(this.deadline - System.nanoTime())) {
+            throw new ReadDeadlineExceededException("The deadline passes before the rate limit permits the operation.");
+        }
+    }
+
+    private TokenBucket getTokenBucket(ZooKeeper zooKeeper) {
+        if (this.rateLimit == 0) {
+            return null;
+        }
+
+        return this.tokenBuckets.computeIfAbsent(zooKeeper, key -> new TokenBucket(this.rateLimit, this.burst));
+    }
+
+    private <T> T invoke(Operation<T> operation) throws KeeperException {
+        if (this.deadline == null) {
+            return operation.execute();
+        }
+
+        long remaining = this.deadline - System.nanoTime();
+        if (remaining <= 0) {
+            throw new ReadDeadlineExceededException("The deadline has passed.");
+        }
+
+        // synchronous ZooKeeper operations only give up after the session timeout, so wait for them on another thread
+        Future<T> future = DEADLINE_EXECUTOR.submit(operation::execute);
+        try {
+            return future.get(remaining, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new ReadDeadlineExceededException("The deadline passed while waiting for ZooKeeper.", e);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for ZooKeeper.", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof KeeperException) {
+                throw (KeeperException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException("ZooKeeper operation failed.", cause);
+        }
+    }
+
+    @FunctionalInterface
+    public interface Operation<T> {
+
+        T execute() throws KeeperException;
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Indoqa Software Design und Beratung GmbH (Indoqa) under
+ * one or more contributor license agreements. See the NOTICE file distributed
+ * with this work for additional information regarding copyright ownership.
+ * Indoqa licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.indoqa.zookeeper.config;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class PropertyAccessProfilerTest {
+
+    private static ProfilingZooKeeperPropertySource createPropertySource() {
+        Map<String, Object> properties = Map.of("a", "1", "b", "2", "c", "3", "d", "4,5");
+        return new ProfilingZooKeeperPropertySource(new ZooKeeperPropertySource("/profiled", properties), 2);
+    }
+
+    @Test
+    void testJmx() throws JMException {
+        ProfilingZooKeeperPropertySource propertySource = createPropertySource();
+        PropertyAccessProfiler profiler = propertySource.getProfiler();
+        propertySource.getProperty("a");
+
+        ObjectName objectName = new ObjectName("com.indoqa.zookeeper.config:type=PropertyAccessProfiler,name="
+            + ObjectName.quote(propertySource.getName()));
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+
+        profiler.register();
+        try {
+            Assertions.assertThat(mBeanServer.getAttribute(objectName, "ReadPropertyCount")).isEqualTo(1);
+            Assertions.assertThat((String[]) mBeanServer.getAttribute(objectName, "HotProperties")).containsExactly("a=1");
+        } finally {
+            profiler.close();
+        }
+
+        Assertions.assertThat(mBeanServer.isRegistered(objectName)).isFalse();
+    }
+
+    @Test
+    void testRecord() {
+        ProfilingZooKeeperPropertySource propertySource = createPropertySource();
+        PropertyAccessProfiler profiler = propertySource.getProfiler();
+
+        for (int i = 0; i < 3; i++) {
+            Assertions.assertThat(propertySource.getProperty("a")).isEqualTo("1");
+        }
+        Assertions.assertThat(propertySource.getProperty("b", Integer.class)).isEqualTo(2);
+        Assertions.assertThat(propertySource.getPropertyList("d", Integer.class)).containsExactly(4, 5);
+        Assertions.assertThat(propertySource.getProperty("d")).isEqualTo("4,5");
+        Assertions.assertThat(propertySource.getProperty("unknown")).isNull();
+        Assertions.assertThat(propertySource.containsProperty("c")).isTrue();
+
+        Assertions.assertThat(profiler.getReadCount("a")).isEqualTo(3);
+        Assertions.assertThat(profiler.getReadCount("c")).isZero();
+        Assertions.assertThat(profiler.getReadCount("unknown")).isEqualTo(-1);
+        Assertions.assertThat(profiler.getTotalReadCount()).isEqualTo(6);
+        Assertions.assertThat(profiler.getReadPropertyCount()).isEqualTo(3);
+        Assertions.assertThat(profiler.getHotProperties()).containsExactly("a=3", "d=2");
+        Assertions.assertThat(profiler.listHotProperties(5)).containsExactly("a=3", "d=2", "b=1");
+        Assertions.assertThat(profiler.getUnreadPropertyNames()).containsExactly("c");
+
+        profiler.reset();
+        Assertions.assertThat(profiler.getTotalReadCount()).isZero();
+        Assertions.assertThat(profiler.getUnreadPropertyNames()).containsExactly("a", "b", "c", "d");
+
+        // the lookups inherited from ZooKeeperPropertySource are recorded as well
+        Assertions.assertThat(propertySource.getProperty("c", Integer.class, 0)).isEqualTo(3);
+        Assertions.assertThat(propertySource.getProperty("unknown", Integer.class, 0)).isZero();
+        Assertions.assertThat(propertySource.getProperties("c")).containsOnly(Assertions.entry("c", "3"));
+        Assertions.assertThat(propertySource.getPropertyNames("d")).containsExactly("d");
+        Assertions.assertThat(propertySource.getMissingPaths()).isEmpty();
+        Assertions.assertThat(profiler.getReadCount("c")).isEqualTo(2);
+        Assertions.assertThat(profiler.getTotalReadCount()).isEqualTo(2);
+    }
+}
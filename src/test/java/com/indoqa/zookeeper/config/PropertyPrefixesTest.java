@@ -0,0 +1,44 @@
+/*
+ * Licensed to the Indoqa Software Design und Beratung GmbH (Indoqa) under
+ * one or more contributor license agreements. See the NOTICE file distributed
+ * with this work for additional information regarding copyright ownership.
+ * Indoqa licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.indoqa.zookeeper.config;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class PropertyPrefixesTest {
+
+    private static final TreeMap<String, Object> PROPERTIES = new TreeMap<>(Map.of("a", 1, "app.name", "test", "app.port", 8080,
+        "apps", 2, "b", 3, "z\uffff", 4, "z\uffff.x", 5));
+
+    @Test
+    void testGetProperties() {
+        Assertions.assertThat(PropertyPrefixes.getProperties(PROPERTIES, "app.")).containsOnlyKeys("app.name", "app.port");
+        Assertions.assertThat(PropertyPrefixes.getProperties(PROPERTIES, "app")).containsOnlyKeys("app.name", "app.port", "apps");
+        Assertions.assertThat(PropertyPrefixes.getProperties(PROPERTIES, "c")).isEmpty();
+        Assertions.assertThat(PropertyPrefixes.getProperties(PROPERTIES, "")).hasSize(PROPERTIES.size());
+        Assertions.assertThat(PropertyPrefixes.getProperties(PROPERTIES, "z\uffff")).containsOnlyKeys("z\uffff", "z\uffff.x");
+        Assertions.assertThat(PropertyPrefixes.getProperties(PROPERTIES, "\uffff")).isEmpty();
+    }
+
+    @Test
+    void testGetPropertyNames() {
+        Assertions.assertThat(PropertyPrefixes.getPropertyNames(PROPERTIES, "app")).containsExactly("app.name", "app.port", "apps");
+    }
+}
@@ -16,6 +16,7 @@
  */
 package com.indoqa.zookeeper.config;
 
+import java.time.Duration;
 import java.util.*;
 
 import com.indoqa.zookeeper.config.model.AbstractServiceDescription;
@@ -29,6 +30,8 @@ public class ServiceDescription extends AbstractServiceDescription {
     private Map<String, String> links = new HashMap<>();
 
     private int totalCount;
+    private Duration timeout;
+    private Level level;
 
     private Date lastAccess;
 
@@ -40,19 +43,27 @@ public class ServiceDescription extends AbstractServiceDescription {
     }
 
     public boolean[] getFolds() {
-        return this.folds;
+        return this.folds == null ? null : this.folds.clone();
     }
 
     public Date getLastAccess() {
         return this.lastAccess;
     }
 
+    public Level getLevel() {
+        return this.level;
+    }
+
     public Map<String, String> getLinks() {
         return this.links;
     }
 
     public Setting[] getSettings() {
-        return this.settings;
+        return this.settings == null ? null : this.settings.clone();
+    }
+
+    public Duration getTimeout() {
+        return this.timeout;
     }
 
     public int getTotalCount() {
@@ -68,37 +79,59 @@ public class ServiceDescription extends AbstractServiceDescription {
     }
 
     public void setDependencies(Set<String> dependencies) {
+        this.checkNotFrozen();
         this.dependencies = dependencies;
     }
 
     public void setFolds(boolean[] folds) {
+        this.checkNotFrozen();
         this.folds = folds;
     }
 
     public void setLastAccess(Date lastAccess) {
+        this.checkNotFrozen();
         this.lastAccess = lastAccess;
     }
 
+    public void setLevel(Level level) {
+        this.checkNotFrozen();
+        this.level = level;
+    }
+
     public void setLinks(Map<String, String> links) {
+        this.checkNotFrozen();
         this.links = links;
     }
 
     public void setSettings(Setting[] settings) {
+        this.checkNotFrozen();
         this.settings = settings;
     }
 
+    public void setTimeout(Duration timeout) {
+        this.checkNotFrozen();
+        this.timeout = timeout;
+    }
+
     public void setTotalCount(int totalCount) {
+        this.checkNotFrozen();
         this.totalCount = totalCount;
     }
 
     public void setType(String type) {
+        this.checkNotFrozen();
         this.type = type;
     }
 
     public void setUrl(String url) {
+        this.checkNotFrozen();
         this.url = url;
     }
 
+    public enum Level {
+        LOW, HIGH
+    }
+
     public static class Setting {
 
         private String name;
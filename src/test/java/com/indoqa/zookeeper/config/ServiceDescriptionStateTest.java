@@ -16,28 +16,87 @@
  */
 package com.indoqa.zookeeper.config;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.reflect.Field;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
 
 import org.apache.curator.test.TestingCluster;
+import org.apache.zookeeper.CreateMode;
 import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.Watcher.Event.KeeperState;
+import org.apache.zookeeper.ZooDefs.Ids;
+import org.apache.zookeeper.ZooKeeper;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.Environment;
 
 import com.indoqa.zookeeper.AbstractZooKeeperState;
 import com.indoqa.zookeeper.Execution;
 import com.indoqa.zookeeper.StateExecutor;
+import com.indoqa.zookeeper.config.ServiceDescription.Level;
 import com.indoqa.zookeeper.config.ServiceDescription.Setting;
+import com.indoqa.zookeeper.config.ServiceInstanceSelector.Strategy;
+import com.indoqa.zookeeper.config.jfr.DescriptionMappingEvent;
+import com.indoqa.zookeeper.config.jfr.PlaceholderResolutionEvent;
+import com.indoqa.zookeeper.config.jfr.StateExecutionEvent;
+import com.indoqa.zookeeper.config.jfr.ZooKeeperOperationEvent;
 import com.indoqa.zookeeper.config.model.AbstractServiceDescription;
+import com.indoqa.zookeeper.config.model.ConfigurationTreeProfile;
+import com.indoqa.zookeeper.config.model.ConfigurationTreeProfile.Subtree;
+import com.indoqa.zookeeper.config.model.FieldProjection;
+import com.indoqa.zookeeper.config.model.InstanceLoad;
 import com.indoqa.zookeeper.config.model.ServiceInstance;
+import com.indoqa.zookeeper.config.model.ServiceInstancesSummary;
+import com.indoqa.zookeeper.config.states.CompactServiceInstancesState;
+import com.indoqa.zookeeper.config.states.DeleteServiceDescriptionsState;
+import com.indoqa.zookeeper.config.states.ProfileConfigurationTreeState;
+import com.indoqa.zookeeper.config.states.PublishConfigurationSnapshotState;
+import com.indoqa.zookeeper.config.states.ReadConfigurationState;
+import com.indoqa.zookeeper.config.states.ReadInstanceSummariesState;
 import com.indoqa.zookeeper.config.states.ReadServiceDescriptionState;
+import com.indoqa.zookeeper.config.states.ReadServiceDescriptionsState;
+import com.indoqa.zookeeper.config.states.RegisterInstanceZooKeeperState;
+import com.indoqa.zookeeper.config.states.RegisterInstancesZooKeeperState;
+import com.indoqa.zookeeper.config.states.ReportInstanceLoadState;
+import com.indoqa.zookeeper.config.states.ServiceDescriptionIterator;
+import com.indoqa.zookeeper.config.states.StreamServiceDescriptionsState;
+import com.indoqa.zookeeper.config.states.WatchConfigurationState;
+import com.indoqa.zookeeper.config.states.WatchServiceDescriptionsState;
+import com.indoqa.zookeeper.config.states.WatchServiceInstancesState;
 import com.indoqa.zookeeper.config.states.WriteServiceDescriptionsState;
+import com.indoqa.zookeeper.config.utils.HedgedReads;
+import com.indoqa.zookeeper.config.utils.PropertyFilter;
+import com.indoqa.zookeeper.config.utils.ReadDeadline;
+import com.indoqa.zookeeper.config.utils.ReadDeadline.Policy;
+import com.indoqa.zookeeper.config.utils.ZooKeeperRegistrationException;
+import com.indoqa.zookeeper.config.utils.ZooKeeperRequestPolicy;
 
 class ServiceDescriptionStateTest {
 
@@ -62,6 +121,27 @@ class ServiceDescriptionStateTest {
         wait(1000);
     }
 
+    /**
+     * Expire the session of a running state and hand it a new session, like a reconnecting {@link StateExecutor} does.
+     */
+    private static ZooKeeper expireSession(AbstractZooKeeperState state) throws Exception {
+        CountDownLatch connected = new CountDownLatch(1);
+        ZooKeeper newSession = new ZooKeeper(testingCluster.getConnectString(), CONNECT_TIMEOUT, event -> {
+            if (event.getState() == KeeperState.SyncConnected) {
+                connected.countDown();
+            }
+        });
+        Assertions.assertThat(connected.await(10, TimeUnit.SECONDS)).isTrue();
+
+        Field sessionField = AbstractZooKeeperState.class.getDeclaredField("zooKeeper");
+        sessionField.setAccessible(true);
+        ZooKeeper expiredSession = (ZooKeeper) sessionField.get(state);
+        sessionField.set(state, newSession);
+        expiredSession.getTestable().injectSessionExpiration();
+
+        return newSession;
+    }
+
     private static void wait(int milliseconds) {
         try {
             Thread.sleep(milliseconds);
@@ -96,6 +176,774 @@ class ServiceDescriptionStateTest {
         }
     }
 
+    @Test
+    void testBulkDelete() {
+        ServiceDescription serviceDescription = this.createServiceDescription();
+
+        try (StateExecutor stateExecutor = new StateExecutor(testingCluster.getConnectString(), CONNECT_TIMEOUT)) {
+            Execution execution = stateExecutor.executeState(new WriteServiceDescriptionsState<>(Arrays.asList(serviceDescription)));
+            stateExecutor.waitForTermination(execution);
+
+            execution = stateExecutor.executeState(new DeleteServiceDescriptionsState(true, 3));
+            stateExecutor.waitForTermination(execution);
+
+            execution = stateExecutor
+                .executeState(new ReadServiceDescriptionState<>(serviceDescription.getId(), ServiceDescription.class));
+            stateExecutor.waitForTermination(execution);
+
+            ServiceDescription readServiceDescription = ReadServiceDescriptionState.getServiceDescription(execution);
+            Assertions.assertThat(readServiceDescription).isNull();
+        }
+    }
+
+    @Test
+    void testCompactServiceInstances() {
+        ServiceDescription serviceDescription = this.createServiceDescription();
+
+        ServiceInstance staleInstance = new ServiceInstance();
+        staleInstance.setName("instance-2");
+        serviceDescription.addInstance(staleInstance);
+
+        try (StateExecutor stateExecutor = new StateExecutor(testingCluster.getConnectString(), CONNECT_TIMEOUT)) {
+            Execution execution = stateExecutor.executeState(new WriteServiceDescriptionsState<>(Arrays.asList(serviceDescription)));
+            stateExecutor.waitForTermination(execution);
+
+            // the session node is removed when the registering session is closed, leaving an empty host node
+            try (StateExecutor registeringStateExecutor = new StateExecutor(testingCluster.getConnectString(), CONNECT_TIMEOUT)) {
+                registeringStateExecutor.executeState(new RegisterInstanceZooKeeperState(serviceDescription.getId()));
+                wait(1000);
+            }
+
+            execution = stateExecutor.executeState(new CompactServiceInstancesState());
+            stateExecutor.waitForTermination(execution);
+            Assertions.assertThat(CompactServiceInstancesState.getCompactedHostCount(execution)).isGreaterThanOrEqualTo(1);
+
+            execution = stateExecutor
+                .executeState(new ReadServiceDescriptionState<>(serviceDescription.getId(), ServiceDescription.class));
+            stateExecutor.waitForTermination(execution);
+
+            ServiceDescription readServiceDescription = ReadServiceDescriptionState.getServiceDescription(execution);
+            Assertions.assertThat(readServiceDescription.getInstances()).containsOnlyKeys("instance-1");
+        }
+    }
+
+    @Test
+    void testConfigDataImport() {
+        ServiceDescription serviceDescription = this.createServiceDescription();
+        ServiceDescription otherServiceDescription = this.createServiceDescription();
+        otherServiceDescription.setId("other-id");
+        otherServiceDescription.getProperties().put("property-1", "other-value-1");
+        otherServiceDescription.getProperties().put("property-4", "other-value-4");
+
+        try (StateExecutor stateExecutor = new StateExecutor(testingCluster.getConnectString(), CONNECT_TIMEOUT)) {
+            Execution execution = stateExecutor
+                .executeState(new WriteServiceDescriptionsState<>(Arrays.asList(serviceDescription, otherServiceDescription)));
+            stateExecutor.waitForTermination(execution);
+        }
+
+        SpringApplication application = new SpringApplication(ServiceDescriptionStateTest.class);
+        application.setWebApplicationType(WebApplicationType.NONE);
+
+        try (ConfigurableApplicationContext applicationContext = application.run(
+            "--zookeeper.connect-string=" + testingCluster.getConnectString(),
+            "--spring.config.import=zookeeper:/id/properties;/other-id/properties")) {
+            Environment environment = applicationContext.getEnvironment();
+
+            Assertions.assertThat(environment.getProperty("property-1")).isEqualTo("other-value-1");
+            Assertions.assertThat(environment.getProperty("property-2")).isEqualTo("value-2");
+            Assertions.assertThat(environment.getProperty("property-4")).isEqualTo("other-value-4");
+        }
+    }
+
+    @Test
+    void testConfigurationSnapshot() throws Exception {
+        ServiceDescription serviceDescription = this.createServiceDescription();
+
+        try (StateExecutor stateExecutor = new StateExecutor(testingCluster.getConnectString(), CONNECT_TIMEOUT)) {
+            Execution execution = stateExecutor.executeState(new WriteServiceDescriptionsState<>(Arrays.asList(serviceDescription)));
+            stateExecutor.waitForTermination(execution);
+
+            execution = stateExecutor.executeState(new PublishConfigurationSnapshotState("/id/properties", 16));
+            stateExecutor.waitForTermination(execution);
+
+            Assertions.assertThat(this.readConfiguration(stateExecutor, "/id/properties", true)).containsOnly(
+                Assertions.entry("property-1", "value-1"), Assertions.entry("property-2", "value-2"),
+                Assertions.entry("property-3", "value-3"));
+
+            // the snapshot is stored outside of the configuration tree
+            Assertions.assertThat(this.readConfiguration(stateExecutor, "/id")).allSatisfy(
+                (name, value) -> Assertions.assertThat(name).doesNotContain("snapshot"));
+
+            // snapshots are opt-in, so changed values are visible right away by default
+            serviceDescription.getProperties().put("property-1", "changed-value-1");
+            execution = stateExecutor.executeState(new WriteServiceDescriptionsState<>(Arrays.asList(serviceDescription)));
+            stateExecutor.waitForTermination(execution);
+            Assertions.assertThat(this.readConfiguration(stateExecutor, "/id/properties")).containsEntry("property-1",
+                "changed-value-1");
+
+            execution = stateExecutor.executeState(new PublishConfigurationSnapshotState("/id/properties", 16));
+            stateExecutor.waitForTermination(execution);
+            Assertions.assertThat(this.readConfiguration(stateExecutor, "/id/properties", true)).containsEntry("property-1",
+                "changed-value-1");
+
+            // changing a value makes the snapshot stale
+            serviceDescription.getProperties().put("property-2", "changed-value-2");
+            execution = stateExecutor.executeState(new WriteServiceDescriptionsState<>(Arrays.asList(serviceDescription)));
+            stateExecutor.waitForTermination(execution);
+            Assertions.assertThat(this.readConfiguration(stateExecutor, "/id/properties", true)).containsEntry("property-2",
+                "changed-value-2");
+
+            // so does adding a child to a former leaf
+            execution = stateExecutor.executeState(new PublishConfigurationSnapshotState("/id/properties", 16));
+            stateExecutor.waitForTermination(execution);
+            ZooKeeper zooKeeper = new ZooKeeper(testingCluster.getConnectString(), CONNECT_TIMEOUT, event -> {});
+            try {
+                zooKeeper.create("/id/properties/property-3/child", "child-value".getBytes(StandardCharsets.UTF_8), Ids.OPEN_ACL_UNSAFE,
+                    CreateMode.PERSISTENT);
+            } finally {
+                zooKeeper.close();
+            }
+            Assertions.assertThat(this.readConfiguration(stateExecutor, "/id/properties", true)).containsEntry("property-3/child",
+                "child-value");
+
+            // adding a property makes the snapshot stale
+            serviceDescription.getProperties().put("property-4", "value-4");
+            execution = stateExecutor.executeState(new WriteServiceDescriptionsState<>(Arrays.asList(serviceDescription)));
+            stateExecutor.waitForTermination(execution);
+            Assertions.assertThat(this.readConfiguration(stateExecutor, "/id/properties", true)).containsEntry("property-1",
+                "changed-value-1").containsEntry("property-4", "value-4");
+        }
+    }
+
+    @Test
+    void testFlightRecorderEvents(@TempDir Path recordingDirectory) throws IOException {
+        ServiceDescription serviceDescription = this.createServiceDescription();
+        serviceDescription.getProperties().put("property-4", "${zk:/id/properties/property-1}-4");
+
+        try (StateExecutor stateExecutor = new StateExecutor(testingCluster.getConnectString(), CONNECT_TIMEOUT);
+                Recording recording = new Recording()) {
+            recording.enable(StateExecutionEvent.class);
+            recording.enable(ZooKeeperOperationEvent.class);
+            recording.enable(PlaceholderResolutionEvent.class);
+            recording.enable(DescriptionMappingEvent.class);
+            recording.start();
+
+            Execution execution = stateExecutor.executeState(new WriteServiceDescriptionsState<>(Arrays.asList(serviceDescription)));
+            stateExecutor.waitForTermination(execution);
+            Assertions.assertThat(this.readConfiguration(stateExecutor, "/id/properties")).containsEntry("property-4", "value-1-4");
+
+            // validating a snapshot reads the tree with one multi request
+            execution = stateExecutor.executeState(new PublishConfigurationSnapshotState("/id/properties"));
+            stateExecutor.waitForTermination(execution);
+            Assertions.assertThat(this.readConfiguration(stateExecutor, "/id/properties", true)).containsEntry("property-4", "value-1-4");
+
+            recording.stop();
+            Path recordingFile = recordingDirectory.resolve("recording.jfr");
+            recording.dump(recordingFile);
+
+            List<RecordedEvent> events = RecordingFile.readAllEvents(recordingFile);
+            Assertions.assertThat(events).extracting(eachEvent -> eachEvent.getEventType().getName()).contains(
+                "com.indoqa.zookeeper.config.StateExecution", "com.indoqa.zookeeper.config.ZooKeeperOperation",
+                "com.indoqa.zookeeper.config.PlaceholderResolution", "com.indoqa.zookeeper.config.DescriptionMapping");
+
+            Assertions.assertThat(events)
+                .filteredOn(eachEvent -> "com.indoqa.zookeeper.config.ZooKeeperOperation".equals(eachEvent.getEventType().getName()))
+                .anySatisfy(eachEvent -> {
+                    Assertions.assertThat(eachEvent.getString("operation")).isEqualTo("getData");
+                    Assertions.assertThat(eachEvent.getString("path")).isEqualTo("/id/properties/property-1");
+                    Assertions.assertThat(eachEvent.getLong("bytes")).isEqualTo("value-1".length());
+                })
+                .anySatisfy(eachEvent -> {
+                    Assertions.assertThat(eachEvent.getString("operation")).isEqualTo("multi");
+                    Assertions.assertThat(eachEvent.getString("path")).isEqualTo("/id/properties");
+                });
+        }
+    }
+
+    @Test
+    void testHedgedReads() throws Exception {
+        ServiceDescription serviceDescription = this.createServiceDescription();
+
+        try (StateExecutor stateExecutor = new StateExecutor(testingCluster.getConnectString(), CONNECT_TIMEOUT);
+                HedgedReads hedgedReads = new HedgedReads(testingCluster.getConnectString(), CONNECT_TIMEOUT, 95, Duration.ZERO)) {
+            Execution execution = stateExecutor.executeState(new WriteServiceDescriptionsState<>(Arrays.asList(serviceDescription)));
+            stateExecutor.waitForTermination(execution);
+
+            // without a delay, every read that is not answered immediately is hedged
+            ZooKeeperPropertySource propertySource = new ZooKeeperPropertySource(stateExecutor, "/id/properties",
+                ZooKeeperRequestPolicy.getDefault(), PropertyFilter.getDefault(), ReadDeadline.getDefault(), hedgedReads);
+            Assertions.assertThat(propertySource.getSource()).containsOnly(Assertions.entry("property-1", "value-1"),
+                Assertions.entry("property-2", "value-2"), Assertions.entry("property-3", "value-3"));
+
+            // the children of the base path and of each property and the value of each property
+            Assertions.assertThat(hedgedReads.getRequestCount()).isEqualTo(7);
+            Assertions.assertThat(hedgedReads.getHedgedRequestCount()).isPositive();
+            Assertions.assertThat(hedgedReads.getHedgeWinCount()).isBetween(0L, hedgedReads.getHedgedRequestCount());
+
+            // an expired hedge session is replaced with the next hedged read
+            Field hedgeSessionField = HedgedReads.class.getDeclaredField("hedgeSession");
+            hedgeSessionField.setAccessible(true);
+            ZooKeeper hedgeSession = (ZooKeeper) hedgeSessionField.get(hedgedReads);
+            hedgeSession.getTestable().injectSessionExpiration();
+
+            for (int i = 0; i < 50 && hedgeSessionField.get(hedgedReads) == hedgeSession; i++) {
+                new ZooKeeperPropertySource(stateExecutor, "/id/properties", ZooKeeperRequestPolicy.getDefault(),
+                    PropertyFilter.getDefault(), ReadDeadline.getDefault(), hedgedReads);
+            }
+            Assertions.assertThat(hedgeSessionField.get(hedgedReads)).isNotSameAs(hedgeSession);
+        }
+    }
+
+    @Test
+    void testInstanceSummaries() throws UnknownHostException {
+        ServiceDescription serviceDescription = this.createServiceDescription();
+
+        ServiceInstance staleInstance = new ServiceInstance();
+        staleInstance.setName("instance-2");
+        serviceDescription.addInstance(staleInstance);
+
+        String hostName = InetAddress.getLocalHost().getHostName();
+
+        try (StateExecutor stateExecutor = new StateExecutor(testingCluster.getConnectString(), CONNECT_TIMEOUT)) {
+            Execution execution = stateExecutor.executeState(new WriteServiceDescriptionsState<>(Arrays.asList(serviceDescription)));
+            stateExecutor.waitForTermination(execution);
+
+            try (StateExecutor registeringStateExecutor = new StateExecutor(testingCluster.getConnectString(), CONNECT_TIMEOUT)) {
+                registeringStateExecutor.executeState(new RegisterInstancesZooKeeperState(serviceDescription.getId()));
+                wait(1000);
+
+                ServiceInstancesSummary summary = this.readInstanceSummary(stateExecutor, serviceDescription.getId());
+                Assertions.assertThat(summary.getSessionCount()).isEqualTo(2);
+                Assertions.assertThat(summary.getLiveHostCount()).isEqualTo(2);
+                Assertions.assertThat(summary.getSessionCounts()).hasSize(3).containsEntry(hostName, 1).containsEntry("instance-2", 0);
+                Assertions.assertThat(summary.getNodeCount()).isGreaterThan(
+                    summary.getSessionCounts().size() + summary.getSessionCount());
+            }
+
+            // the session of the registered instance ended, only the stored session of instance-1 remains
+            ServiceInstancesSummary summary = this.readInstanceSummary(stateExecutor, serviceDescription.getId());
+            Assertions.assertThat(summary.getSessionCount()).isEqualTo(1);
+            Assertions.assertThat(summary.getSessionCounts().getOrDefault(hostName, 0)).isZero();
+        }
+    }
+
+    @Test
+    void testLayeredPropertySource() {
+        ServiceDescription serviceDescription = this.createServiceDescription();
+        ServiceDescription otherServiceDescription = this.createServiceDescription();
+        otherServiceDescription.setId("other-id");
+        otherServiceDescription.getProperties().put("property-1", "other-value-1");
+        otherServiceDescription.getProperties().remove("property-2");
+
+        try (StateExecutor stateExecutor = new StateExecutor(testingCluster.getConnectString(), CONNECT_TIMEOUT)) {
+            Execution execution = stateExecutor
+                .executeState(new WriteServiceDescriptionsState<>(Arrays.asList(serviceDescription, otherServiceDescription)));
+            stateExecutor.waitForTermination(execution);
+
+            try (LayeredZooKeeperPropertySource propertySource = new LayeredZooKeeperPropertySource(stateExecutor,
+                "/id/properties", "/other-id/properties")) {
+                Assertions.assertThat(propertySource.getProperty("property-1")).isEqualTo("other-value-1");
+                Assertions.assertThat(propertySource.getProperty("property-2")).isEqualTo("value-2");
+                Assertions.assertThat(propertySource.getPropertyNames()).containsExactlyInAnyOrder("property-1", "property-2",
+                    "property-3");
+
+                otherServiceDescription.getProperties().put("property-2", "other-value-2");
+                execution = stateExecutor.executeState(new WriteServiceDescriptionsState<>(Arrays.asList(otherServiceDescription)));
+                stateExecutor.waitForTermination(execution);
+
+                for (int i = 0; i < 50 && !"other-value-2".equals(propertySource.getProperty("property-2")); i++) {
+                    wait(100);
+                }
+                Assertions.assertThat(propertySource.getProperty("property-2")).isEqualTo("other-value-2");
+            }
+        }
+    }
+
+    @Test
+    void testPrefetch() {
+        ServiceDescription serviceDescription = this.createServiceDescription();
+
+        try (StateExecutor stateExecutor = new StateExecutor(testingCluster.getConnectString(), CONNECT_TIMEOUT)) {
+            Execution execution = stateExecutor.executeState(new WriteServiceDescriptionsState<>(Arrays.asList(serviceDescription)));
+            stateExecutor.waitForTermination(execution);
+        }
+
+        try (ZooKeeperPrefetch prefetch = ZooKeeperPrefetch.start(testingCluster.getConnectString(), CONNECT_TIMEOUT,
+            serviceDescription.getId())) {
+            PrefetchedZooKeeperPropertySource propertySource = prefetch.getPropertySources().get(0);
+
+            Assertions.assertThat(propertySource.getProperty("property-1")).isEqualTo("value-1");
+            Assertions.assertThat(propertySource.getPropertyNames()).containsExactlyInAnyOrder("property-1", "property-2",
+                "property-3");
+            Assertions.assertThat(propertySource.isLoaded()).isTrue();
+        }
+
+        // the settings for loading the properties apply to the prefetch as well
+        Map<String, String> settings = Map.of(PropertyFilter.PROP_EXCLUDE, "property-2");
+        try (ZooKeeperPrefetch prefetch = ZooKeeperPrefetch.start(testingCluster.getConnectString(), CONNECT_TIMEOUT, settings::get,
+            serviceDescription.getId())) {
+            Assertions.assertThat(prefetch.getPropertySources().get(0).getPropertyNames()).containsExactlyInAnyOrder("property-1",
+                "property-3");
+        }
+    }
+
+    @Test
+    void testProfileConfigurationTree() {
+        ServiceDescription serviceDescription = this.createServiceDescription();
+        serviceDescription.getProperties().put("property-4", "${zk:/id/properties/property-1}-4");
+        serviceDescription.getProperties().put("property-5", "${zk:/id/properties/property-1}${zk:/missing}");
+
+        try (StateExecutor stateExecutor = new StateExecutor(testingCluster.getConnectString(), CONNECT_TIMEOUT)) {
+            Execution execution = stateExecutor.executeState(new WriteServiceDescriptionsState<>(Arrays.asList(serviceDescription)));
+            stateExecutor.waitForTermination(execution);
+
+            execution = stateExecutor.executeState(new ProfileConfigurationTreeState("/id/properties"));
+            stateExecutor.waitForTermination(execution);
+
+            ConfigurationTreeProfile profile = ProfileConfigurationTreeState.getProfile(execution);
+            Assertions.assertThat(profile.getNodeCount()).isEqualTo(6);
+            Assertions.assertThat(profile.getLeafCount()).isEqualTo(5);
+            Assertions.assertThat(profile.getDepthCounts()).containsEntry(0, 1).containsEntry(1, 5);
+            Assertions.assertThat(profile.getValueSizeHistogram()).containsEntry("0 B", 1).containsEntry("<= 64 B", 5);
+            Assertions.assertThat(profile.getPlaceholderReferenceCount()).isEqualTo(3);
+            Assertions.assertThat(profile.getPlaceholderFanOut()).containsEntry("/id/properties/property-1", 2).containsEntry("/missing", 1);
+            Assertions.assertThat(profile.getMissingPlaceholderPaths()).containsExactly("/missing");
+            Assertions.assertThat(profile.getConfigurationRoundTrips()).isEqualTo(2 * 6 + 2);
+            // the snapshot node and the multi validating it
+            Assertions.assertThat(profile.getSnapshotRoundTrips()).isEqualTo(2);
+            Assertions.assertThat(profile.getSnapshotBytes()).isGreaterThan(profile.getValueBytes());
+            Assertions.assertThat(profile.getServiceDescriptionRoundTrips()).isEqualTo(-1);
+            Assertions.assertThat(profile.getWalkRoundTrips()).isEqualTo(5);
+
+            execution = stateExecutor.executeState(new ProfileConfigurationTreeState("/"));
+            stateExecutor.waitForTermination(execution);
+
+            profile = ProfileConfigurationTreeState.getProfile(execution);
+            Assertions.assertThat(profile.getDepthCounts()).containsEntry(1, 1);
+            Assertions.assertThat(profile.getLargestSubtrees(10)).extracting(Subtree::getName).containsExactly("id");
+            Assertions.assertThat(profile.getServiceDescriptionRoundTrips()).isGreaterThan(profile.getNodeCount());
+            Assertions.assertThat(profile.getServiceDescriptionBytes()).isGreaterThan(profile.getValueBytes());
+
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            ConfigurationTreeProfiler.print(profile, new PrintStream(output, true, StandardCharsets.UTF_8));
+            Assertions.assertThat(output.toString(StandardCharsets.UTF_8)).contains("Profile of '/'", "Largest subtrees", "  id: ",
+                "ReadServiceDescriptionsState: ", "with a current snapshot: ");
+        }
+    }
+
+    @Test
+    void testProjection() {
+        ServiceDescription serviceDescription = this.createServiceDescription();
+
+        try (StateExecutor stateExecutor = new StateExecutor(testingCluster.getConnectString(), CONNECT_TIMEOUT)) {
+            Execution execution = stateExecutor.executeState(new WriteServiceDescriptionsState<>(Arrays.asList(serviceDescription)));
+            stateExecutor.waitForTermination(execution);
+
+            execution = stateExecutor.executeState(new ReadServiceDescriptionState<>(serviceDescription.getId(),
+                ServiceDescription.class, FieldProjection.of("properties", "settings.name")));
+            stateExecutor.waitForTermination(execution);
+
+            ServiceDescription readServiceDescription = ReadServiceDescriptionState.getServiceDescription(execution);
+            Assertions.assertThat(readServiceDescription.getId()).isEqualTo(serviceDescription.getId());
+            Assertions.assertThat(readServiceDescription.getProperties()).isEqualTo(serviceDescription.getProperties());
+            Assertions.assertThat(readServiceDescription.getName()).isNull();
+            Assertions.assertThat(readServiceDescription.getInstances()).isEmpty();
+            Assertions.assertThat(readServiceDescription.getSettings()).extracting(Setting::getName).containsExactly("setting-a",
+                "setting-b");
+            Assertions.assertThat(readServiceDescription.getSettings()).extracting(Setting::getValue).containsOnly(0);
+        }
+    }
+
+    @Test
+    void testPropertyFilter() {
+        ServiceDescription serviceDescription = this.createServiceDescription();
+
+        try (StateExecutor stateExecutor = new StateExecutor(testingCluster.getConnectString(), CONNECT_TIMEOUT)) {
+            Execution execution = stateExecutor.executeState(new WriteServiceDescriptionsState<>(Arrays.asList(serviceDescription)));
+            stateExecutor.waitForTermination(execution);
+
+            ZooKeeperPropertySource propertySource = new ZooKeeperPropertySource(stateExecutor, "/id/properties",
+                ZooKeeperRequestPolicy.getDefault(), new PropertyFilter(List.of(), List.of("property-2"), 0));
+            Assertions.assertThat(propertySource.getPropertyNames()).containsExactlyInAnyOrder("property-1", "property-3");
+
+            propertySource = new ZooKeeperPropertySource(stateExecutor, "/id", ZooKeeperRequestPolicy.getDefault(),
+                new PropertyFilter(List.of("links/*"), List.of(), 0));
+            Assertions.assertThat(propertySource.getPropertyNames()).containsExactlyInAnyOrder("links/link-1", "links/link-2");
+
+            propertySource = new ZooKeeperPropertySource(stateExecutor, "/id", ZooKeeperRequestPolicy.getDefault(),
+                new PropertyFilter(List.of(), List.of("instances", "regex:set.*"), 1));
+            Assertions.assertThat(propertySource.getPropertyNames()).contains("type", "url", "properties").allMatch(
+                eachName -> !eachName.contains("/") && !eachName.startsWith("instances") && !eachName.startsWith("settings"));
+
+            // snapshots contain all properties and are filtered when they are read
+            execution = stateExecutor.executeState(new PublishConfigurationSnapshotState("/id/properties"));
+            stateExecutor.waitForTermination(execution);
+            execution = stateExecutor.executeState(new ReadConfigurationState("/id/properties", true,
+                new PropertyFilter(List.of("property-1"), List.of(), 0)));
+            stateExecutor.waitForTermination(execution);
+            Assertions.assertThat(execution.<Map<String, Object>> getEnvironmentValue("properties")).containsOnlyKeys("property-1");
+        }
+    }
+
+    @Test
+    void testReadDeadline(@TempDir Path temporaryDirectory) throws IOException {
+        Path cacheDirectory = temporaryDirectory.resolve("cache");
+        ServiceDescription serviceDescription = this.createServiceDescription();
+
+        try (StateExecutor stateExecutor = new StateExecutor(testingCluster.getConnectString(), CONNECT_TIMEOUT)) {
+            Execution execution = stateExecutor.executeState(new WriteServiceDescriptionsState<>(Arrays.asList(serviceDescription)));
+            stateExecutor.waitForTermination(execution);
+
+            // a complete read updates the local cache
+            ReadDeadline useCache = new ReadDeadline(Duration.ofSeconds(10), Policy.USE_CACHE, cacheDirectory);
+            new ZooKeeperPropertySource(stateExecutor, "/id/properties", ZooKeeperRequestPolicy.getDefault(),
+                PropertyFilter.getDefault(), useCache);
+            Assertions.assertThat(Files.getPosixFilePermissions(cacheDirectory)).isEqualTo(PosixFilePermissions.fromString("rwx------"));
+            Assertions.assertThatThrownBy(() -> new ReadDeadline(Duration.ofSeconds(10), Policy.USE_CACHE))
+                .isInstanceOf(IllegalArgumentException.class);
+
+            // two operations per second exceed a deadline of 300 ms with the second operation, which fails without waiting
+            ReadDeadline partialResults = new ReadDeadline(Duration.ofMillis(300), Policy.PARTIAL_RESULTS);
+            long start = System.nanoTime();
+            ZooKeeperPropertySource propertySource = new ZooKeeperPropertySource(stateExecutor, "/id/properties",
+                new ZooKeeperRequestPolicy(2, 1, 0, 1, 1), PropertyFilter.getDefault(), partialResults);
+            Assertions.assertThat(propertySource.getMissingPaths()).containsExactly("/id/properties");
+            Assertions.assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofMillis(300));
+
+            ReadDeadline failFast = new ReadDeadline(Duration.ofMillis(300), Policy.FAIL_FAST);
+            Assertions.assertThatThrownBy(() -> new ZooKeeperPropertySource(stateExecutor, "/id/properties",
+                new ZooKeeperRequestPolicy(2, 1, 0, 1, 1), PropertyFilter.getDefault(), failFast))
+                .isInstanceOf(ZooKeeperRegistrationException.class);
+
+            useCache = new ReadDeadline(Duration.ofMillis(300), Policy.USE_CACHE, cacheDirectory);
+            propertySource = new ZooKeeperPropertySource(stateExecutor, "/id/properties",
+                new ZooKeeperRequestPolicy(2, 1, 0, 1, 1), PropertyFilter.getDefault(), useCache);
+            Assertions.assertThat(propertySource.getMissingPaths()).isEmpty();
+            Assertions.assertThat(propertySource.getProperty("property-1")).isEqualTo("value-1");
+
+            // listing the service ids succeeds, reading the first service description exceeds the deadline
+            ReadServiceDescriptionsState<ServiceDescription> readState = new ReadServiceDescriptionsState<>(ServiceDescription.class);
+            readState.setRequestPolicy(new ZooKeeperRequestPolicy(2, 1, 0, 1, 1));
+            readState.setReadDeadline(partialResults);
+            execution = stateExecutor.executeState(readState);
+            stateExecutor.waitForTermination(execution);
+            Assertions.assertThat(ReadServiceDescriptionsState.getMissingPaths(execution)).contains("/" + serviceDescription.getId());
+            Assertions.assertThat(ReadServiceDescriptionsState.<ServiceDescription> getServiceDescriptions(execution)).isEmpty();
+
+            readState = new ReadServiceDescriptionsState<>(ServiceDescription.class);
+            readState.setReadDeadline(new ReadDeadline(Duration.ofSeconds(10), Policy.FAIL_FAST));
+            execution = stateExecutor.executeState(readState);
+            stateExecutor.waitForTermination(execution);
+            Assertions.assertThat(ReadServiceDescriptionsState.getMissingPaths(execution)).isEmpty();
+            Assertions.assertThat(ReadServiceDescriptionsState.<ServiceDescription> getServiceDescriptions(execution))
+                .extracting(ServiceDescription::getId)
+                .contains(serviceDescription.getId());
+        }
+    }
+
+    @Test
+    void testRegisterInstances() {
+        ServiceDescription serviceDescription = this.createServiceDescription();
+
+        try (StateExecutor stateExecutor = new StateExecutor(testingCluster.getConnectString(), CONNECT_TIMEOUT)) {
+            Execution execution = stateExecutor.executeState(new WriteServiceDescriptionsState<>(Arrays.asList(serviceDescription)));
+            stateExecutor.waitForTermination(execution);
+
+            // a missing service description must not prevent the registration of the others
+            Execution registration = stateExecutor
+                .executeState(new RegisterInstancesZooKeeperState(serviceDescription.getId(), "missing-id", serviceDescription.getId()));
+            wait(1000);
+            Assertions.assertThat(RegisterInstancesZooKeeperState.getSkippedServiceIds(registration)).containsExactly("missing-id");
+
+            execution = stateExecutor
+                .executeState(new ReadServiceDescriptionState<>(serviceDescription.getId(), ServiceDescription.class));
+            stateExecutor.waitForTermination(execution);
+
+            ServiceDescription readServiceDescription = ReadServiceDescriptionState.getServiceDescription(execution);
+            Assertions.assertThat(readServiceDescription.getInstances()).hasSize(2);
+        }
+    }
+
+    @Test
+    void testRegistry() {
+        ServiceDescription serviceDescription = this.createServiceDescription();
+
+        try (StateExecutor stateExecutor = new StateExecutor(testingCluster.getConnectString(), CONNECT_TIMEOUT)) {
+            Execution execution = stateExecutor.executeState(new WriteServiceDescriptionsState<>(Arrays.asList(serviceDescription)));
+            stateExecutor.waitForTermination(execution);
+
+            try (ServiceDescriptionRegistry<ServiceDescription> registry = new ServiceDescriptionRegistry<>(
+                testingCluster.getConnectString(), CONNECT_TIMEOUT, ServiceDescription.class)) {
+                ServiceDescription registeredServiceDescription = registry.getServiceDescription(serviceDescription.getId());
+                Assertions.assertThat(registeredServiceDescription)
+                    .usingRecursiveComparison()
+                    .ignoringFieldsMatchingRegexes(".*frozen")
+                    .isEqualTo(serviceDescription);
+
+                Assertions.assertThat(registeredServiceDescription.isFrozen()).isTrue();
+                Assertions.assertThatThrownBy(() -> registeredServiceDescription.setName("other-name"))
+                    .isInstanceOf(IllegalStateException.class);
+                Assertions.assertThatThrownBy(() -> registeredServiceDescription.getLinks().put("link-3", "url-3"))
+                    .isInstanceOf(UnsupportedOperationException.class);
+                Assertions.assertThatThrownBy(() -> registeredServiceDescription.setUrl("other-url")).isInstanceOf(IllegalStateException.class);
+                Assertions.assertThatThrownBy(() -> registeredServiceDescription.getDependencies().add("dependency-3"))
+                    .isInstanceOf(UnsupportedOperationException.class);
+                Assertions.assertThat(registeredServiceDescription.getInstances().values()).allMatch(ServiceInstance::isFrozen);
+                registeredServiceDescription.getFolds()[0] = false;
+                Assertions.assertThat(registeredServiceDescription.getFolds()[0]).isTrue();
+
+                serviceDescription.setName("changed-name");
+                execution = stateExecutor.executeState(new WriteServiceDescriptionsState<>(Arrays.asList(serviceDescription)));
+                stateExecutor.waitForTermination(execution);
+
+                for (int i = 0; i < 50 && !"changed-name".equals(registry.getServiceDescription("id").getName()); i++) {
+                    wait(100);
+                }
+                Assertions.assertThat(registry.getServiceDescription(serviceDescription.getId()).getName()).isEqualTo("changed-name");
+            }
+        }
+    }
+
+    @Test
+    void testRegistrySessionExpiry() throws Exception {
+        ServiceDescription serviceDescription = this.createServiceDescription();
+        AtomicReference<Map<String, ServiceDescription>> snapshot = new AtomicReference<>(Map.of());
+
+        try (StateExecutor stateExecutor = new StateExecutor(testingCluster.getConnectString(), CONNECT_TIMEOUT);
+                StateExecutor watchingStateExecutor = new StateExecutor(testingCluster.getConnectString(), CONNECT_TIMEOUT);
+                WatchServiceDescriptionsState<ServiceDescription> state = new WatchServiceDescriptionsState<>(ServiceDescription.class,
+                    snapshot::set)) {
+            Execution execution = stateExecutor.executeState(new WriteServiceDescriptionsState<>(Arrays.asList(serviceDescription)));
+            stateExecutor.waitForTermination(execution);
+
+            watchingStateExecutor.executeState(state);
+            for (int i = 0; i < 50 && !snapshot.get().containsKey("id"); i++) {
+                wait(100);
+            }
+            Assertions.assertThat(snapshot.get()).containsKey("id");
+
+            ZooKeeper newSession = expireSession(state);
+            try {
+                serviceDescription.setName("changed-name");
+                execution = stateExecutor.executeState(new WriteServiceDescriptionsState<>(Arrays.asList(serviceDescription)));
+                stateExecutor.waitForTermination(execution);
+
+                for (int i = 0; i < 50 && !"changed-name".equals(snapshot.get().get("id").getName()); i++) {
+                    wait(100);
+                }
+                Assertions.assertThat(snapshot.get().get("id").getName()).isEqualTo("changed-name");
+            } finally {
+                newSession.close();
+            }
+        }
+    }
+
+    @Test
+    void testReportInstanceLoad() {
+        ServiceDescription serviceDescription = this.createServiceDescription();
+        AtomicReference<InstanceLoad> load = new AtomicReference<>(new InstanceLoad(0.5, 2, 100));
+
+        try (StateExecutor stateExecutor = new StateExecutor(testingCluster.getConnectString(), CONNECT_TIMEOUT)) {
+            Execution execution = stateExecutor.executeState(new WriteServiceDescriptionsState<>(Arrays.asList(serviceDescription)));
+            stateExecutor.waitForTermination(execution);
+
+            stateExecutor.executeState(new RegisterInstancesZooKeeperState(serviceDescription.getId()));
+
+            try (ServiceInstanceSelector selector = new ServiceInstanceSelector(stateExecutor, "id", Strategy.ROUND_ROBIN);
+                    ReportInstanceLoadState loadReporter = new ReportInstanceLoadState(load::get, Duration.ofMillis(50), 0.1, "id")) {
+                stateExecutor.executeState(loadReporter);
+                for (int i = 0; i < 50 && !load.get().equals(this.getPublishedLoad(selector)); i++) {
+                    wait(100);
+                }
+                Assertions.assertThat(this.getPublishedLoad(selector)).isEqualTo(new InstanceLoad(0.5, 2, 100));
+
+                // changes below the threshold are not published
+                load.set(new InstanceLoad(0.52, 2, 104));
+                wait(500);
+                Assertions.assertThat(loadReporter.getSkippedCount()).isPositive();
+                Assertions.assertThat(this.getPublishedLoad(selector)).isEqualTo(new InstanceLoad(0.5, 2, 100));
+
+                load.set(new InstanceLoad(0.9, 10, 300));
+                for (int i = 0; i < 50 && !load.get().equals(this.getPublishedLoad(selector)); i++) {
+                    wait(100);
+                }
+                Assertions.assertThat(this.getPublishedLoad(selector)).isEqualTo(new InstanceLoad(0.9, 10, 300));
+                Assertions.assertThat(loadReporter.getPublishedCount()).isEqualTo(2);
+            }
+
+            execution = stateExecutor
+                .executeState(new ReadServiceDescriptionState<>(serviceDescription.getId(), ServiceDescription.class));
+            stateExecutor.waitForTermination(execution);
+
+            ServiceDescription readServiceDescription = ReadServiceDescriptionState.getServiceDescription(execution);
+            Assertions.assertThat(readServiceDescription.getInstances().values())
+                .flatExtracting(eachInstance -> eachInstance.getLoads().values())
+                .containsExactly(new InstanceLoad(0.9, 10, 300));
+        }
+    }
+
+    @Test
+    void testInstanceSelector() {
+        ServiceDescription serviceDescription = this.createServiceDescription();
+
+        try (StateExecutor stateExecutor = new StateExecutor(testingCluster.getConnectString(), CONNECT_TIMEOUT)) {
+            Execution execution = stateExecutor.executeState(new WriteServiceDescriptionsState<>(Arrays.asList(serviceDescription)));
+            stateExecutor.waitForTermination(execution);
+
+            try (ServiceInstanceSelector selector = new ServiceInstanceSelector(testingCluster.getConnectString(), CONNECT_TIMEOUT,
+                serviceDescription.getId(), Strategy.ROUND_ROBIN)) {
+                Assertions.assertThat(selector.getInstanceCount()).isEqualTo(1);
+                Assertions.assertThat(selector.select().getName()).isEqualTo("instance-1");
+
+                stateExecutor.executeState(new RegisterInstanceZooKeeperState(serviceDescription.getId()));
+                for (int i = 0; i < 50 && selector.getInstanceCount() < 2; i++) {
+                    wait(100);
+                }
+
+                Assertions.assertThat(selector.getInstanceCount()).isEqualTo(2);
+                Assertions.assertThat(selector.select().getName()).isNotEqualTo(selector.select().getName());
+                Assertions.assertThat(selector.select(Strategy.LEAST_RECENTLY_STARTED).getName()).isEqualTo("instance-1");
+            }
+        }
+    }
+
+    @Test
+    void testInstanceSelectorSessionExpiry() throws Exception {
+        ServiceDescription serviceDescription = this.createServiceDescription();
+        AtomicReference<List<ServiceInstance>> instances = new AtomicReference<>(List.of());
+
+        try (StateExecutor stateExecutor = new StateExecutor(testingCluster.getConnectString(), CONNECT_TIMEOUT);
+                StateExecutor watchingStateExecutor = new StateExecutor(testingCluster.getConnectString(), CONNECT_TIMEOUT);
+                WatchServiceInstancesState state = new WatchServiceInstancesState(serviceDescription.getId(), instances::set)) {
+            Execution execution = stateExecutor.executeState(new WriteServiceDescriptionsState<>(Arrays.asList(serviceDescription)));
+            stateExecutor.waitForTermination(execution);
+
+            watchingStateExecutor.executeState(state);
+            for (int i = 0; i < 50 && instances.get().isEmpty(); i++) {
+                wait(100);
+            }
+            Assertions.assertThat(instances.get()).hasSize(1);
+
+            ZooKeeper newSession = expireSession(state);
+            try {
+                stateExecutor.executeState(new RegisterInstanceZooKeeperState(serviceDescription.getId()));
+                for (int i = 0; i < 50 && instances.get().size() < 2; i++) {
+                    wait(100);
+                }
+                Assertions.assertThat(instances.get()).hasSize(2);
+            } finally {
+                newSession.close();
+            }
+        }
+    }
+
+    @Test
+    void testStream() {
+        ServiceDescription serviceDescription = this.createServiceDescription();
+        ServiceDescription otherServiceDescription = this.createServiceDescription();
+        otherServiceDescription.setId("other-id");
+
+        try (StateExecutor stateExecutor = new StateExecutor(testingCluster.getConnectString(), CONNECT_TIMEOUT)) {
+            Execution execution = stateExecutor
+                .executeState(new WriteServiceDescriptionsState<>(Arrays.asList(serviceDescription, otherServiceDescription)));
+            stateExecutor.waitForTermination(execution);
+
+            StreamServiceDescriptionsState<ServiceDescription> state = new StreamServiceDescriptionsState<>(ServiceDescription.class, 1);
+            stateExecutor.executeState(state);
+
+            List<String> ids = new ArrayList<>();
+            try (ServiceDescriptionIterator<ServiceDescription> iterator = state.getIterator()) {
+                iterator.forEachRemaining(each -> ids.add(each.getId()));
+            }
+            Assertions.assertThat(ids).containsExactlyInAnyOrder("id", "other-id");
+
+            state = new StreamServiceDescriptionsState<>(ServiceDescription.class, 1);
+            stateExecutor.executeState(state);
+
+            try (ServiceDescriptionIterator<ServiceDescription> iterator = state.getIterator()) {
+                Assertions.assertThat(iterator.next().getId()).isIn("id", "other-id");
+            }
+        }
+
+        // closing the executor while the state waits for the consumer ends the stream with a failure
+        StreamServiceDescriptionsState<ServiceDescription> state = new StreamServiceDescriptionsState<>(ServiceDescription.class, 1);
+        try (StateExecutor stateExecutor = new StateExecutor(testingCluster.getConnectString(), CONNECT_TIMEOUT)) {
+            stateExecutor.executeState(state);
+            wait(500);
+        }
+
+        try (ServiceDescriptionIterator<ServiceDescription> iterator = state.getIterator()) {
+            Assertions.assertThat(iterator.next().getId()).isIn("id", "other-id");
+            Assertions.assertThat(iterator.next().getId()).isIn("id", "other-id");
+            Assertions.assertThatThrownBy(iterator::hasNext).isInstanceOf(IllegalStateException.class);
+        }
+    }
+
+    @Test
+    void testWatchConfiguration() throws Exception {
+        ServiceDescription serviceDescription = this.createServiceDescription();
+        serviceDescription.getProperties().put("property-4", "${zk:/other-id/properties/property-1}-4");
+        ServiceDescription otherServiceDescription = this.createServiceDescription();
+        otherServiceDescription.setId("other-id");
+        otherServiceDescription.getProperties().put("property-1", "other-value-1");
+
+        Map<String, Object> properties = new ConcurrentHashMap<>();
+        WatchConfigurationState.Listener listener = new WatchConfigurationState.Listener() {
+
+            @Override
+            public void onPropertiesRead(Map<String, Object> readProperties) {
+                properties.clear();
+                properties.putAll(readProperties);
+            }
+
+            @Override
+            public void onPropertyChanged(String name, Object value) {
+                if (value == null) {
+                    properties.remove(name);
+                } else {
+                    properties.put(name, value);
+                }
+            }
+        };
+
+        try (StateExecutor stateExecutor = new StateExecutor(testingCluster.getConnectString(), CONNECT_TIMEOUT);
+                StateExecutor watchingStateExecutor = new StateExecutor(testingCluster.getConnectString(), CONNECT_TIMEOUT);
+                WatchConfigurationState state = new WatchConfigurationState("/id/properties", listener)) {
+            Execution execution = stateExecutor
+                .executeState(new WriteServiceDescriptionsState<>(Arrays.asList(serviceDescription, otherServiceDescription)));
+            stateExecutor.waitForTermination(execution);
+
+            watchingStateExecutor.executeState(state);
+            for (int i = 0; i < 50 && !"other-value-1-4".equals(properties.get("property-4")); i++) {
+                wait(100);
+            }
+            Assertions.assertThat(properties).containsEntry("property-4", "other-value-1-4");
+
+            // properties are re-resolved when a placeholder outside of the base path changes
+            otherServiceDescription.getProperties().put("property-1", "changed-value-1");
+            execution = stateExecutor.executeState(new WriteServiceDescriptionsState<>(Arrays.asList(otherServiceDescription)));
+            stateExecutor.waitForTermination(execution);
+            for (int i = 0; i < 50 && !"changed-value-1-4".equals(properties.get("property-4")); i++) {
+                wait(100);
+            }
+            Assertions.assertThat(properties).containsEntry("property-4", "changed-value-1-4");
+
+            ZooKeeper newSession = expireSession(state);
+            try {
+                serviceDescription.getProperties().put("property-2", "changed-value-2");
+                execution = stateExecutor.executeState(new WriteServiceDescriptionsState<>(Arrays.asList(serviceDescription)));
+                stateExecutor.waitForTermination(execution);
+
+                for (int i = 0; i < 50 && !"changed-value-2".equals(properties.get("property-2")); i++) {
+                    wait(100);
+                }
+                Assertions.assertThat(properties).containsEntry("property-2", "changed-value-2");
+            } finally {
+                newSession.close();
+            }
+        }
+    }
+
     @Test
     void testWrongId() {
         ServiceDescription serviceDescription = this.createServiceDescription();
@@ -120,6 +968,8 @@ class ServiceDescriptionStateTest {
         serviceDescription.setLastAccess(new Date());
         serviceDescription.setName("name");
         serviceDescription.setTotalCount(12);
+        serviceDescription.setTimeout(Duration.ofSeconds(90));
+        serviceDescription.setLevel(Level.HIGH);
         serviceDescription.setType("type");
         serviceDescription.setUrl("url");
         serviceDescription.setFolds(new boolean[] {true, true, false, true});
@@ -149,6 +999,39 @@ class ServiceDescriptionStateTest {
         return serviceDescription;
     }
 
+    private InstanceLoad getPublishedLoad(ServiceInstanceSelector selector) {
+        for (ServiceInstance eachInstance : selector.getInstances()) {
+            for (InstanceLoad eachLoad : eachInstance.getLoads().values()) {
+                return eachLoad;
+            }
+        }
+
+        return null;
+    }
+
+    private Map<String, Object> readConfiguration(StateExecutor stateExecutor, String basePath) {
+        return this.readConfiguration(stateExecutor, basePath, false);
+    }
+
+    private Map<String, Object> readConfiguration(StateExecutor stateExecutor, String basePath, boolean useSnapshot) {
+        Execution execution = stateExecutor.executeState(new ReadConfigurationState(basePath, useSnapshot));
+        stateExecutor.waitForTermination(execution);
+
+        return execution.getEnvironmentValue("properties");
+    }
+
+    private ServiceInstancesSummary readInstanceSummary(StateExecutor stateExecutor, String serviceId) {
+        Execution execution = stateExecutor.executeState(new ReadInstanceSummariesState());
+        stateExecutor.waitForTermination(execution);
+
+        Collection<ServiceInstancesSummary> summaries = ReadInstanceSummariesState.getSummaries(execution);
+        Assertions.assertThat(summaries).hasSize(1);
+
+        ServiceInstancesSummary result = summaries.iterator().next();
+        Assertions.assertThat(result.getServiceId()).isEqualTo(serviceId);
+        return result;
+    }
+
     private static class DeleteAllZooKeeperState extends AbstractZooKeeperState {
 
         public DeleteAllZooKeeperState() {
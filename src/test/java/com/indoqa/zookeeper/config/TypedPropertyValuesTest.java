@@ -0,0 +1,76 @@
+/*
+ * Licensed to the Indoqa Software Design und Beratung GmbH (Indoqa) under
+ * one or more contributor license agreements. See the NOTICE file distributed
+ * with this work for additional information regarding copyright ownership.
+ * Indoqa licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.indoqa.zookeeper.config;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.indoqa.zookeeper.config.utils.ZooKeeperRegistrationException;
+
+class TypedPropertyValuesTest {
+
+    @Test
+    void testConversions() {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("port", "8080");
+        properties.put("enabled", "true");
+        properties.put("timeout", "PT5S");
+        properties.put("switch", "on");
+        properties.put("flag", "1");
+        properties.put("interval", "10s");
+        properties.put("delay", "250");
+        properties.put("hosts", "a, b,c");
+        properties.put("ports", "1,2");
+        ZooKeeperPropertySource propertySource = new ZooKeeperPropertySource("/test", properties);
+
+        Assertions.assertThat(propertySource.getProperty("port", int.class)).isEqualTo(8080);
+        Assertions.assertThat(propertySource.getProperty("port", Long.class)).isEqualTo(8080L);
+        Assertions.assertThat(propertySource.getProperty("enabled", Boolean.class)).isTrue();
+        Assertions.assertThat(propertySource.getProperty("timeout", Duration.class)).isEqualTo(Duration.ofSeconds(5));
+        Assertions.assertThat(propertySource.getProperty("switch", Boolean.class)).isTrue();
+        Assertions.assertThat(propertySource.getProperty("flag", boolean.class)).isTrue();
+        Assertions.assertThat(propertySource.getProperty("interval", Duration.class)).isEqualTo(Duration.ofSeconds(10));
+        Assertions.assertThat(propertySource.getProperty("delay", Duration.class)).isEqualTo(Duration.ofMillis(250));
+        Assertions.assertThat(propertySource.getPropertyList("hosts", String.class)).containsExactly("a", "b", "c");
+        Assertions.assertThat(propertySource.getPropertyList("ports", Integer.class)).containsExactly(1, 2);
+        Assertions.assertThat(propertySource.getProperty("missing", Integer.class, 1)).isEqualTo(1);
+
+        Assertions.assertThatThrownBy(() -> propertySource.getProperty("hosts", Integer.class))
+            .isInstanceOf(ZooKeeperRegistrationException.class);
+    }
+
+    @Test
+    void testInvalidation() {
+        TypedPropertyValues typedValues = new TypedPropertyValues();
+
+        String value = "1,2";
+        List<Integer> list = typedValues.getList("name", value, Integer.class);
+        Assertions.assertThat(typedValues.getList("name", value, Integer.class)).isSameAs(list);
+
+        String changedValue = "3";
+        Assertions.assertThat(typedValues.getList("name", changedValue, Integer.class)).containsExactly(3);
+
+        Long number = typedValues.get("name", changedValue, Long.class);
+        typedValues.invalidate("name");
+        Assertions.assertThat(typedValues.get("name", changedValue, Long.class)).isEqualTo(number);
+    }
+}
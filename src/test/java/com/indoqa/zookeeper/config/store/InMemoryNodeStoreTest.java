@@ -0,0 +1,96 @@
+/*
+ * Licensed to the Indoqa Software Design und Beratung GmbH (Indoqa) under
+ * one or more contributor license agreements. See the NOTICE file distributed
+ * with this work for additional information regarding copyright ownership.
+ * Indoqa licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.indoqa.zookeeper.config.store;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.KeeperException.NoNodeException;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.indoqa.zookeeper.config.ServiceDescription;
+import com.indoqa.zookeeper.config.ServiceDescription.Level;
+import com.indoqa.zookeeper.config.ServiceDescription.Setting;
+import com.indoqa.zookeeper.config.model.FieldProjection;
+
+class InMemoryNodeStoreTest {
+
+    private static ServiceDescription createServiceDescription() {
+        ServiceDescription serviceDescription = new ServiceDescription();
+
+        serviceDescription.setId("id");
+        serviceDescription.setName("name");
+        serviceDescription.setTotalCount(12);
+        serviceDescription.setTimeout(Duration.ofSeconds(90));
+        serviceDescription.setLevel(Level.LOW);
+        serviceDescription.setSettings(new Setting[] {Setting.create("setting-a", 3), Setting.create("setting-b", -4)});
+
+        Map<String, String> properties = new HashMap<>();
+        properties.put("property-1", "value-1");
+        properties.put("property-2", "value-2");
+        serviceDescription.setProperties(properties);
+
+        return serviceDescription;
+    }
+
+    @Test
+    void testLatency() throws KeeperException {
+        InMemoryNodeStore nodeStore = new InMemoryNodeStore(Duration.ofMillis(2));
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 10; i++) {
+            nodeStore.exists("/");
+        }
+
+        Assertions.assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isGreaterThanOrEqualTo(20);
+    }
+
+    @Test
+    void testNodes() throws KeeperException {
+        InMemoryNodeStore nodeStore = new InMemoryNodeStore();
+
+        nodeStore.ensureNodeExists("/a/b/c");
+        nodeStore.setData("/a/b", new byte[] {1, 2});
+
+        Assertions.assertThat(nodeStore.getNodeCount()).isEqualTo(4);
+        Assertions.assertThat(nodeStore.getChildren("/")).containsExactly("a");
+        Assertions.assertThat(nodeStore.getData("/a/b")).containsExactly(1, 2);
+        Assertions.assertThat(nodeStore.getData("/a/b/c")).isEmpty();
+        Assertions.assertThatThrownBy(() -> nodeStore.getChildren("/x")).isInstanceOf(NoNodeException.class);
+        Assertions.assertThatThrownBy(() -> nodeStore.setData("/x", new byte[0])).isInstanceOf(NoNodeException.class);
+    }
+
+    @Test
+    void testServiceDescription() throws KeeperException {
+        InMemoryNodeStore nodeStore = new InMemoryNodeStore();
+        ServiceDescription serviceDescription = createServiceDescription();
+
+        new ServiceDescriptionWriter(nodeStore).write(serviceDescription);
+
+        ServiceDescriptionReader reader = new ServiceDescriptionReader(nodeStore);
+        ServiceDescription readServiceDescription = reader.read("id", ServiceDescription.class, FieldProjection.all());
+        Assertions.assertThat(readServiceDescription).usingRecursiveComparison()
+            .comparingOnlyFields("id", "name", "totalCount", "timeout", "level", "settings", "properties")
+            .isEqualTo(serviceDescription);
+        Assertions.assertThat(reader.read("id", ServiceDescription.class, FieldProjection.of("name")).getProperties()).isEmpty();
+        Assertions.assertThat(reader.read("unknown", ServiceDescription.class, FieldProjection.all())).isNull();
+    }
+}
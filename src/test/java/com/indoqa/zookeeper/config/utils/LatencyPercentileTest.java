@@ -0,0 +1,49 @@
+/*
+ * Licensed to the Indoqa Software Design und Beratung GmbH (Indoqa) under
+ * one or more contributor license agreements. See the NOTICE file distributed
+ * with this work for additional information regarding copyright ownership.
+ * Indoqa licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.indoqa.zookeeper.config.utils;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class LatencyPercentileTest {
+
+    @Test
+    void testPercentile() {
+        LatencyPercentile latencyPercentile = new LatencyPercentile(95);
+        Assertions.assertThat(latencyPercentile.get()).isEqualTo(-1);
+
+        for (int i = 1; i <= 96; i++) {
+            latencyPercentile.record(i);
+        }
+        Assertions.assertThat(latencyPercentile.get()).isEqualTo(92);
+
+        // only the most recent latencies count
+        for (int i = 0; i < 128; i++) {
+            latencyPercentile.record(1000);
+        }
+        Assertions.assertThat(latencyPercentile.get()).isEqualTo(1000);
+
+        // the samples are still updated after far more records than fit into the buffer
+        for (int i = 0; i < 100_000; i++) {
+            latencyPercentile.record(i % 100);
+        }
+        for (int i = 0; i < 128; i++) {
+            latencyPercentile.record(5);
+        }
+        Assertions.assertThat(latencyPercentile.get()).isEqualTo(5);
+    }
+}
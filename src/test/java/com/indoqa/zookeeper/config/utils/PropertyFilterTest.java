@@ -0,0 +1,81 @@
+/*
+ * Licensed to the Indoqa Software Design und Beratung GmbH (Indoqa) under
+ * one or more contributor license agreements. See the NOTICE file distributed
+ * with this work for additional information regarding copyright ownership.
+ * Indoqa licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.indoqa.zookeeper.config.utils;
+
+import java.util.List;
+import java.util.Map;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class PropertyFilterTest {
+
+    @Test
+    void testExcludes() {
+        PropertyFilter propertyFilter = new PropertyFilter(List.of(), List.of("archive", "**/generated-*", "regex:tmp\\d+"), 2);
+
+        Assertions.assertThat(propertyFilter.isSkipped("archive")).isTrue();
+        Assertions.assertThat(propertyFilter.accepts("archive/old")).isFalse();
+        Assertions.assertThat(propertyFilter.accepts("db/generated-1")).isFalse();
+        Assertions.assertThat(propertyFilter.accepts("tmp1")).isFalse();
+        Assertions.assertThat(propertyFilter.accepts("db/url")).isTrue();
+        Assertions.assertThat(propertyFilter.accepts("db/pool/size")).isFalse();
+
+        Assertions.assertThat(propertyFilter.isDescended("db")).isTrue();
+        Assertions.assertThat(propertyFilter.isDescended("db/pool")).isFalse();
+    }
+
+    @Test
+    void testFromProperties() {
+        Assertions.assertThat(PropertyFilter.fromProperties(name -> null)).isSameAs(PropertyFilter.getDefault());
+
+        Map<String, String> properties = Map.of(PropertyFilter.PROP_INCLUDE, "db/*, app", PropertyFilter.PROP_MAX_DEPTH, "3");
+        Assertions.assertThat(PropertyFilter.fromProperties(properties::get)).hasToString(
+            "includes [db/*, app], excludes [], max depth 3");
+
+        Map<String, String> invalidProperties = Map.of(PropertyFilter.PROP_EXCLUDE, "regex:(");
+        Assertions.assertThatThrownBy(() -> PropertyFilter.fromProperties(invalidProperties::get))
+            .isInstanceOf(ZooKeeperRegistrationException.class);
+    }
+
+    @Test
+    void testIncludes() {
+        PropertyFilter propertyFilter = new PropertyFilter(List.of("db/*/url", "app"), List.of(), 0);
+
+        Assertions.assertThat(propertyFilter.isSkipped("db")).isFalse();
+        Assertions.assertThat(propertyFilter.isSkipped("db/main")).isFalse();
+        Assertions.assertThat(propertyFilter.isIncluded("db/main")).isFalse();
+        Assertions.assertThat(propertyFilter.accepts("db/main/url")).isTrue();
+        Assertions.assertThat(propertyFilter.accepts("db/main/user")).isFalse();
+        Assertions.assertThat(propertyFilter.accepts("app")).isTrue();
+        Assertions.assertThat(propertyFilter.isSkipped("apps")).isTrue();
+        Assertions.assertThat(propertyFilter.isSkipped("other")).isTrue();
+
+        // the subtree of a literal include is neither listed nor fetched
+        Assertions.assertThat(propertyFilter.isSkipped("app/child")).isTrue();
+        Assertions.assertThat(propertyFilter.isDescended("app")).isFalse();
+        Assertions.assertThat(propertyFilter.isDescended("db/main")).isTrue();
+
+        PropertyFilter nestedFilter = new PropertyFilter(List.of("db/main/url"), List.of(), 0);
+        Assertions.assertThat(nestedFilter.isSkipped("db")).isFalse();
+        Assertions.assertThat(nestedFilter.isSkipped("db/main")).isFalse();
+        Assertions.assertThat(nestedFilter.accepts("db/main/url")).isTrue();
+        Assertions.assertThat(nestedFilter.isDescended("db/main")).isTrue();
+        Assertions.assertThat(nestedFilter.isDescended("db/main/url")).isFalse();
+        Assertions.assertThat(nestedFilter.isSkipped("db/other")).isTrue();
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Indoqa Software Design und Beratung GmbH (Indoqa) under
+ * one or more contributor license agreements. See the NOTICE file distributed
+ * with this work for additional information regarding copyright ownership.
+ * Indoqa licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.indoqa.zookeeper.config.utils;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.indoqa.zookeeper.config.model.InstanceLoad;
+import com.indoqa.zookeeper.config.model.ServiceInstance;
+
+class ValueCodecsTest {
+
+    private static <T> T roundTrip(T value, Class<T> type) {
+        ValueCodec<T> codec = ValueCodecs.getCodec(type);
+        return codec.decode(codec.encode(value));
+    }
+
+    @Test
+    void testCustomCodec() {
+        Assertions.assertThat(ValueCodecs.hasCodec(Point.class)).isFalse();
+
+        ValueCodecs.register(Point.class, new PointCodec());
+
+        Assertions.assertThat(ValueCodecs.hasCodec(Point.class)).isTrue();
+        Assertions.assertThat(roundTrip(new Point(3, -4), Point.class)).usingRecursiveComparison().isEqualTo(new Point(3, -4));
+        Assertions.assertThat(ReflectionHelper.isSimpleType(Point.class)).isTrue();
+    }
+
+    @Test
+    void testEnums() {
+        Assertions.assertThat(roundTrip(TimeUnit.SECONDS, TimeUnit.class)).isEqualTo(TimeUnit.SECONDS);
+        Assertions.assertThat(ValueCodecs.getCodec(TimeUnit.class).encode(TimeUnit.SECONDS)).isEqualTo("SECONDS".getBytes(UTF_8));
+    }
+
+    @Test
+    void testInstanceLoads() {
+        // the codec of the loads is registered by ServiceInstance
+        Assertions.assertThat(new ServiceInstance().getLoads()).isEmpty();
+        Assertions.assertThat(ValueCodecs.hasCodec(InstanceLoad.class)).isTrue();
+
+        InstanceLoad load = new InstanceLoad(0.4213, 3, 120.54);
+        byte[] data = ValueCodecs.getCodec(InstanceLoad.class).encode(load);
+        Assertions.assertThat(new String(data, UTF_8)).isEqualTo("0.421;3;120.5");
+        Assertions.assertThat(roundTrip(load, InstanceLoad.class)).isEqualTo(load);
+
+        Assertions.assertThat(load.isSignificantlyDifferent(new InstanceLoad(0.45, 3, 125), 0.1)).isFalse();
+        Assertions.assertThat(load.isSignificantlyDifferent(new InstanceLoad(0.6, 3, 120), 0.1)).isTrue();
+        Assertions.assertThat(load.isSignificantlyDifferent(new InstanceLoad(0.42, 5, 120), 0.1)).isTrue();
+        Assertions.assertThat(new InstanceLoad(0, 0, 0).isSignificantlyDifferent(new InstanceLoad(0, 0, 0.5), 0.1)).isTrue();
+        Assertions.assertThatThrownBy(() -> InstanceLoad.parse("0.5;3")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void testNumbers() {
+        for (long eachValue : new long[] {0, 7, -7, 10, 1234567890123L, Long.MAX_VALUE, Long.MIN_VALUE}) {
+            byte[] data = ValueCodecs.getCodec(long.class).encode(eachValue);
+            Assertions.assertThat(new String(data, UTF_8)).isEqualTo(Long.toString(eachValue));
+            Assertions.assertThat(roundTrip(eachValue, Long.class)).isEqualTo(eachValue);
+        }
+
+        Assertions.assertThat(roundTrip(Integer.MIN_VALUE, int.class)).isEqualTo(Integer.MIN_VALUE);
+        Assertions.assertThat(ValueCodecs.getCodec(int.class).decode("+42".getBytes(UTF_8))).isEqualTo(42);
+        Assertions.assertThatThrownBy(() -> ValueCodecs.getCodec(int.class).decode("4x".getBytes(UTF_8)))
+            .isInstanceOf(NumberFormatException.class);
+        Assertions.assertThatThrownBy(() -> ValueCodecs.getCodec(int.class).decode("4294967296".getBytes(UTF_8)))
+            .isInstanceOf(NumberFormatException.class);
+    }
+
+    @Test
+    void testTypes() {
+        UUID uuid = UUID.randomUUID();
+        Assertions.assertThat(roundTrip(uuid, UUID.class)).isEqualTo(uuid);
+        Assertions.assertThat(roundTrip(Duration.ofMillis(1500), Duration.class)).isEqualTo(Duration.ofMillis(1500));
+        Assertions.assertThat(roundTrip(new BigDecimal("12.50"), BigDecimal.class)).isEqualTo(new BigDecimal("12.50"));
+
+        Assertions.assertThat(ReflectionHelper.getDeserializedValue(new byte[0], Duration.class)).isNull();
+        Assertions.assertThat(ReflectionHelper.getDeserializedValue(new byte[0], String.class)).isEqualTo("");
+        Assertions.assertThat(ValueCodecs.hasCodec(Object.class)).isFalse();
+    }
+
+    private static class Point {
+
+        private final int x;
+        private final int y;
+
+        Point(int x, int y) {
+            this.x = x;
+            this.y = y;
+        }
+    }
+
+    private static class PointCodec implements ValueCodec<Point> {
+
+        @Override
+        public Point decode(byte[] data) {
+            String[] coordinates = new String(data, UTF_8).split(",");
+            return new Point(Integer.parseInt(coordinates[0]), Integer.parseInt(coordinates[1]));
+        }
+
+        @Override
+        public byte[] encode(Point value) {
+            return (value.x + "," + value.y).getBytes(UTF_8);
+        }
+    }
+}
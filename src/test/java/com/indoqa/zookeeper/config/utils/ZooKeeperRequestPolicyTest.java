@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Indoqa Software Design und Beratung GmbH (Indoqa) under
+ * one or more contributor license agreements. See the NOTICE file distributed
+ * with this work for additional information regarding copyright ownership.
+ * Indoqa licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.indoqa.zookeeper.config.utils;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.KeeperException.ConnectionLossException;
+import org.apache.zookeeper.KeeperException.NoNodeException;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class ZooKeeperRequestPolicyTest {
+
+    private static void sleep(long milliseconds) {
+        try {
+            Thread.sleep(milliseconds);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Test
+    void testDeadline() throws KeeperException {
+        ZooKeeperRequestPolicy requestPolicy = ZooKeeperRequestPolicy.getDefault()
+            .withDeadline(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(200));
+
+        Assertions.assertThat(requestPolicy.execute(null, () -> "result")).isEqualTo("result");
+
+        long start = System.nanoTime();
+        Assertions.assertThatThrownBy(() -> requestPolicy.execute(null, () -> {
+            sleep(5000);
+            return null;
+        })).isInstanceOf(ReadDeadlineExceededException.class);
+        Assertions.assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(1000);
+
+        // once the deadline has passed, operations are not started at all
+        AtomicInteger attempts = new AtomicInteger();
+        Assertions.assertThatThrownBy(() -> requestPolicy.execute(null, attempts::incrementAndGet))
+            .isInstanceOf(ReadDeadlineExceededException.class);
+        Assertions.assertThat(attempts).hasValue(0);
+    }
+
+    @Test
+    void testFromProperties() {
+        Map<String, String> properties = Map.of(ZooKeeperRequestPolicy.PROP_RATE_LIMIT, "100",
+            ZooKeeperRequestPolicy.PROP_RETRY_MAX_RETRIES, "2");
+
+        Assertions.assertThat(ZooKeeperRequestPolicy.fromProperties(properties::get)).hasToString(
+            "rate limit 100/s (burst 100), 2 retries with 50 - 5000 ms");
+
+        Map<String, String> invalidProperties = Map.of(ZooKeeperRequestPolicy.PROP_RETRY_BASE_DELAY, "fast");
+        Assertions.assertThatThrownBy(() -> ZooKeeperRequestPolicy.fromProperties(invalidProperties::get))
+            .isInstanceOf(ZooKeeperRegistrationException.class);
+    }
+
+    @Test
+    void testRateLimit() throws KeeperException {
+        ZooKeeperRequestPolicy requestPolicy = new ZooKeeperRequestPolicy(20, 1, 0, 1, 1);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 5; i++) {
+            requestPolicy.execute(null, () -> null);
+        }
+
+        Assertions.assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isGreaterThanOrEqualTo(190);
+    }
+
+    @Test
+    void testRateLimitDeadline() throws KeeperException {
+        ZooKeeperRequestPolicy requestPolicy = new ZooKeeperRequestPolicy(2, 1, 0, 1, 1)
+            .withDeadline(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(300));
+        requestPolicy.execute(null, () -> null);
+
+        // the next permit is only available after 500 ms, so the operation fails right away
+        long start = System.nanoTime();
+        Assertions.assertThatThrownBy(() -> requestPolicy.execute(null, () -> null))
+            .isInstanceOf(ReadDeadlineExceededException.class);
+        Assertions.assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(100);
+    }
+
+    @Test
+    void testRetries() throws KeeperException {
+        ZooKeeperRequestPolicy requestPolicy = new ZooKeeperRequestPolicy(0, 0, 3, 1, 10);
+
+        AtomicInteger attempts = new AtomicInteger();
+        String result = requestPolicy.execute(null, () -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new ConnectionLossException();
+            }
+            return "result";
+        });
+        Assertions.assertThat(result).isEqualTo("result");
+        Assertions.assertThat(attempts).hasValue(3);
+
+        attempts.set(0);
+        Assertions.assertThatThrownBy(() -> requestPolicy.execute(null, () -> {
+            attempts.incrementAndGet();
+            throw new ConnectionLossException();
+        })).isInstanceOf(ConnectionLossException.class);
+        Assertions.assertThat(attempts).hasValue(4);
+
+        // other errors are not retried
+        attempts.set(0);
+        Assertions.assertThatThrownBy(() -> requestPolicy.execute(null, () -> {
+            attempts.incrementAndGet();
+            throw new NoNodeException("/");
+        })).isInstanceOf(NoNodeException.class);
+        Assertions.assertThat(attempts).hasValue(1);
+    }
+}